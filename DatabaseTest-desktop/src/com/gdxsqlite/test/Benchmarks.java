@@ -0,0 +1,534 @@
+package com.gdxsqlite.test;
+
+import com.badlogic.gdx.sqlite.ArrayBinding;
+import com.badlogic.gdx.sqlite.AsyncDatabase;
+import com.badlogic.gdx.sqlite.BulkInserter;
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.EntityCache;
+import com.badlogic.gdx.sqlite.IncrementalQuery;
+import com.badlogic.gdx.sqlite.LiveQueries;
+import com.badlogic.gdx.sqlite.PreparedStatement;
+import com.badlogic.gdx.sqlite.WriteBehindQueue;
+import com.badlogic.gdx.sqlite.desktop.DesktopDatabaseManager;
+import com.badlogic.gdx.utils.IntArray;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/** Micro benchmarks of the desktop backend. Runs without a libGDX application and prints the average time per run of
+ * every case, so the variants of a section can be compared with each other. */
+public class Benchmarks {
+
+	private static final int WARMUP_RUNS = 5;
+	private static final int MEASURED_RUNS = 20;
+
+	interface Task {
+		void run () throws Exception;
+	}
+
+	public static void main (String[] args) throws Exception {
+		Database db = new DesktopDatabaseManager().getNewDatabase(":memory:", 1, null, null);
+		db.setupDatabase();
+		db.openOrCreateDatabase();
+		try {
+			columnExtraction(db);
+			inLists(db);
+			incrementalReads(db);
+			queryCache(db);
+			liveQueries(db);
+			entityCache(db);
+		} finally {
+			db.closeDatabase();
+		}
+		inserts();
+		walReads();
+		writeBehind();
+		presets();
+		inMemory();
+	}
+
+	/** Reading one column of 100k rows: per row through next() and getInt() against the bulk readers. */
+	static void columnExtraction (final Database db) throws Exception {
+		db.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY, weight REAL, stat INTEGER)");
+		db.execSQL("INSERT INTO items SELECT value, value * 0.25, value % 100 FROM (WITH RECURSIVE seq(value) AS "
+			+ "(SELECT 0 UNION ALL SELECT value + 1 FROM seq LIMIT 100000) SELECT value FROM seq)");
+		final String sql = "SELECT id, weight, stat FROM items";
+		final DatabaseCursor cursor = db.rawQuery(sql);
+		final IntArray stats = new IntArray(100000);
+		final int[] ids = new int[100000];
+
+		section("column extraction, 100k rows");
+		time("query only", () -> db.rawQuery(cursor, sql));
+		time("query + next()/getInt()", () -> {
+			db.rawQuery(cursor, sql);
+			stats.clear();
+			while (cursor.next()) {
+				stats.add(cursor.getInt(2));
+			}
+		});
+		time("query + readInts(IntArray)", () -> {
+			db.rawQuery(cursor, sql);
+			stats.clear();
+			cursor.readInts(2, stats);
+		});
+		time("query + readInts(int[])", () -> {
+			db.rawQuery(cursor, sql);
+			cursor.readInts(0, ids, 0);
+		});
+		cursor.close();
+	}
+
+	/** Selecting rows by a set of ids from the 100k rows of {@link #columnExtraction(Database)}: an IN list built into
+	 * the SQL text against a constant statement with the ids bound as one JSON array. */
+	static void inLists (final Database db) throws Exception {
+		final DatabaseCursor cursor = db.rawQuery("SELECT 1");
+		final PreparedStatement statement = db
+			.getPreparedStatement("SELECT id, weight, stat FROM items WHERE id IN (" + ArrayBinding.IN_LIST + ")");
+		Random random = new Random(42);
+		for (final int count : new int[] {10, 1000}) {
+			final long[] ids = new long[count];
+			for (int i = 0; i < count; i++) {
+				ids[i] = random.nextInt(100000);
+			}
+			section("IN list, " + count + " ids of 100k rows");
+			time("ids built into the SQL", () -> {
+				StringBuilder sql = new StringBuilder("SELECT id, weight, stat FROM items WHERE id IN (");
+				for (int i = 0; i < count; i++) {
+					if (i > 0) sql.append(',');
+					sql.append(ids[i]);
+				}
+				db.rawQuery(cursor, sql.append(')').toString());
+			});
+			time("setLongArray() with json_each", () -> {
+				statement.setLongArray(1, ids);
+				statement.executeQuery(cursor);
+			});
+		}
+		statement.close();
+		cursor.close();
+	}
+
+	/** Inserting 50k rows into a database file: a statement per row, a statement batch and {@link BulkInserter}. All
+	 * variants run in a single transaction, so the comparison shows the per-statement overhead rather than commit cost. */
+	static void inserts () throws Exception {
+		final int rows = 50000;
+		File file = File.createTempFile("gdx-sqlite-benchmark", ".db");
+		final Database db = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, null, null);
+		db.setupDatabase();
+		db.openOrCreateDatabase();
+		try {
+			db.execSQL("CREATE TABLE events (id INTEGER PRIMARY KEY, kind INTEGER, value REAL, tag TEXT)");
+			final String insert = "INSERT INTO events (id, kind, value, tag) VALUES (?, ?, ?, ?)";
+
+			section("inserts, 50k rows into a file");
+			time("executeInsert() per row", () -> {
+				db.execSQL("DELETE FROM events");
+				PreparedStatement statement = db.getPreparedStatement(insert);
+				db.beginTransaction();
+				for (int i = 0; i < rows; i++) {
+					statement.setLong(1, i);
+					statement.setInt(2, i % 16);
+					statement.setDouble(3, i * 0.5);
+					statement.setString(4, "event");
+					statement.executeInsert();
+				}
+				db.setTransactionSuccessful();
+				db.endTransaction();
+				statement.close();
+			});
+			time("executeBatch()", () -> {
+				db.execSQL("DELETE FROM events");
+				PreparedStatement statement = db.getPreparedStatement(insert);
+				for (int i = 0; i < rows; i++) {
+					statement.setLong(1, i);
+					statement.setInt(2, i % 16);
+					statement.setDouble(3, i * 0.5);
+					statement.setString(4, "event");
+					statement.addBatch();
+				}
+				statement.executeBatch(true);
+				statement.close();
+			});
+			final BulkInserter inserter = new BulkInserter(db, "events", "id", "kind", "value", "tag").setCommitInterval(rows);
+			time("BulkInserter", () -> {
+				db.execSQL("DELETE FROM events");
+				inserter.begin();
+				for (int i = 0; i < rows; i++) {
+					inserter.setLong(0, i).setLong(1, i % 16).setDouble(2, i * 0.5).setString(3, "event").addRow();
+				}
+				inserter.finish();
+			});
+		} finally {
+			db.closeDatabase();
+			file.delete();
+		}
+	}
+
+	/** Reads on the main thread while another thread holds a write transaction open for 500 ms. With write-ahead logging
+	 * the reads run on pooled reader connections and see the last committed state instead of waiting for the writer. */
+	static void walReads () throws Exception {
+		File file = File.createTempFile("gdx-sqlite-benchmark", ".db");
+		final Database db = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, null, null);
+		db.enableWriteAheadLogging(2);
+		db.setupDatabase();
+		db.openOrCreateDatabase();
+		try {
+			db.execSQL("CREATE TABLE scores (id INTEGER PRIMARY KEY, score INTEGER)");
+			db.execSQL("INSERT INTO scores SELECT value, 0 FROM (WITH RECURSIVE seq(value) AS "
+				+ "(SELECT 0 UNION ALL SELECT value + 1 FROM seq LIMIT 10000) SELECT value FROM seq)");
+
+			final Exception[] failure = new Exception[1];
+			Thread writer = new Thread(() -> {
+				try {
+					db.beginTransaction();
+					long end = System.nanoTime() + 500000000L;
+					while (System.nanoTime() < end) {
+						db.execSQL("UPDATE scores SET score = score + 1");
+					}
+					db.setTransactionSuccessful();
+					db.endTransaction();
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}, "writer");
+
+			DatabaseCursor cursor = db.rawQuery("SELECT SUM(score) FROM scores");
+			int reads = 0;
+			long maxRead = 0;
+			writer.start();
+			while (writer.isAlive()) {
+				long start = System.nanoTime();
+				db.rawQuery(cursor, "SELECT SUM(score) FROM scores");
+				maxRead = Math.max(maxRead, System.nanoTime() - start);
+				reads++;
+			}
+			writer.join();
+			if (failure[0] != null) throw failure[0];
+			cursor.next();
+			long committed = cursor.getLong(0);
+			db.rawQuery(cursor, "SELECT SUM(score) FROM scores");
+			cursor.next();
+
+			section("WAL reads during a 500 ms write transaction");
+			System.out.println(String.format("%-40s %10d", "reads completed during the write", reads));
+			System.out.println(String.format("%-40s %10.3f ms", "slowest read", maxRead / 1e6));
+			System.out.println(String.format("%-40s %10d", "last sum seen during the write", committed));
+			System.out.println(String.format("%-40s %10d", "sum after the commit", cursor.getLong(0)));
+			System.out.println(String.format("%-40s %10.3f ms", "reader pool wait, total", db.getReaderWaitNanos() / 1e6));
+			cursor.close();
+		} finally {
+			db.closeDatabase();
+			file.delete();
+			new File(file.getPath() + "-wal").delete();
+			new File(file.getPath() + "-shm").delete();
+		}
+	}
+
+	/** Logging small events into a database file: one implicit transaction per insert against a {@link WriteBehindQueue}
+	 * that commits them in groups. Reports the throughput and the enqueue latency seen by the producing thread. */
+	static void writeBehind () throws Exception {
+		File file = File.createTempFile("gdx-sqlite-benchmark", ".db");
+		Database db = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, null, null);
+		db.enableWriteAheadLogging(1);
+		db.setupDatabase();
+		db.openOrCreateDatabase();
+		try {
+			db.execSQL("CREATE TABLE events (id INTEGER PRIMARY KEY, kind INTEGER, time INTEGER)");
+			String insert = "INSERT INTO events (kind, time) VALUES (?, ?)";
+			section("write-behind, small inserts into a file");
+
+			int direct = 500;
+			long[] latencies = new long[direct];
+			PreparedStatement statement = db.getPreparedStatement(insert);
+			long start = System.nanoTime();
+			for (int i = 0; i < direct; i++) {
+				long before = System.nanoTime();
+				statement.setInt(1, i % 8);
+				statement.setLong(2, before);
+				statement.executeInsert();
+				latencies[i] = System.nanoTime() - before;
+			}
+			report("executeInsert() per event", direct, System.nanoTime() - start, latencies);
+			statement.close();
+
+			int queued = 50000;
+			latencies = new long[queued];
+			WriteBehindQueue queue = new WriteBehindQueue(db);
+			start = System.nanoTime();
+			for (int i = 0; i < queued; i++) {
+				long before = System.nanoTime();
+				queue.enqueue(insert, i % 8, before);
+				latencies[i] = System.nanoTime() - before;
+			}
+			queue.flush();
+			report("WriteBehindQueue", queued, System.nanoTime() - start, latencies);
+			System.out.println(String.format("%-40s %10d", "  groups committed", queue.getGroups()));
+			System.out.println(String.format("%-40s %10d", "  enqueues that waited for space", queue.getBlockedEnqueues()));
+			queue.close();
+		} finally {
+			db.closeDatabase();
+			file.delete();
+			new File(file.getPath() + "-wal").delete();
+			new File(file.getPath() + "-shm").delete();
+		}
+	}
+
+	/** Throughput of every {@link DatabaseConfig} preset on a file: 20k inserts committed in transactions of 50 rows, and
+	 * summing the rows. The read-only preset opens a file filled beforehand with the defaults. */
+	static void presets () throws Exception {
+		section("configuration presets, 20k rows in a file");
+		for (String preset : DatabaseConfig.PRESETS) {
+			File file = File.createTempFile("gdx-sqlite-benchmark", ".db");
+			String create = "CREATE TABLE IF NOT EXISTS rows (id INTEGER PRIMARY KEY, value INTEGER)";
+			DatabaseConfig config = DatabaseConfig.preset(preset);
+			try {
+				if (config.isQueryOnly()) {
+					Database filler = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, create, null);
+					filler.setupDatabase();
+					filler.openOrCreateDatabase();
+					insertRows(filler);
+					filler.closeDatabase();
+				}
+				final Database db = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, create, null, config);
+				db.setupDatabase();
+				db.openOrCreateDatabase();
+				try {
+					if (!config.isQueryOnly()) {
+						long start = System.nanoTime();
+						insertRows(db);
+						double perSecond = 20000 / ((System.nanoTime() - start) / 1e9);
+						System.out.println(String.format("%-40s %10.0f rows/s", preset + ", inserts", perSecond));
+					}
+					time(preset + ", SUM over all rows", () -> db.rawQuery("SELECT SUM(value) FROM rows").close());
+				} finally {
+					db.closeDatabase();
+				}
+			} finally {
+				file.delete();
+				new File(file.getPath() + "-wal").delete();
+				new File(file.getPath() + "-shm").delete();
+				new File(file.getPath() + "-journal").delete();
+			}
+		}
+	}
+
+	/** The 20k inserts of {@link #presets()} on a file with the defaults against an in-memory database saved to the file
+	 * every 100 ms. */
+	static void inMemory () throws Exception {
+		section("in-memory database saved in the background, 20k rows");
+		String create = "CREATE TABLE IF NOT EXISTS rows (id INTEGER PRIMARY KEY, value INTEGER)";
+		for (boolean memory : new boolean[] {false, true}) {
+			File file = File.createTempFile("gdx-sqlite-benchmark", ".db");
+			file.delete();
+			DesktopDatabaseManager manager = new DesktopDatabaseManager();
+			Database db = memory ? manager.getNewInMemoryDatabase(file.getPath(), 1, create, null, 100)
+				: manager.getNewDatabase(file.getPath(), 1, create, null);
+			try {
+				db.setupDatabase();
+				db.openOrCreateDatabase();
+				long start = System.nanoTime();
+				insertRows(db);
+				double perSecond = 20000 / ((System.nanoTime() - start) / 1e9);
+				db.closeDatabase();
+				System.out.println(String.format("%-40s %10.0f rows/s", memory ? "in memory, saved every 100 ms" : "file",
+					perSecond));
+				if (memory) {
+					Database reopened = manager.getNewInMemoryDatabase(file.getPath(), 1, create, null, 100);
+					reopened.setupDatabase();
+					reopened.openOrCreateDatabase();
+					DatabaseCursor cursor = reopened.rawQuery("SELECT COUNT(*) FROM rows");
+					cursor.next();
+					System.out.println(String.format("%-40s %10d", "  rows restored from the file", cursor.getInt(0)));
+					cursor.close();
+					reopened.closeDatabase();
+				}
+			} finally {
+				file.delete();
+				new File(file.getPath() + "-journal").delete();
+			}
+		}
+	}
+
+	private static void insertRows (Database db) throws Exception {
+		PreparedStatement insert = db.getPreparedStatement("INSERT INTO rows (value) VALUES (?)");
+		for (int transaction = 0; transaction < 400; transaction++) {
+			db.beginTransaction();
+			try {
+				for (int i = 0; i < 50; i++) {
+					insert.setInt(1, transaction * 50 + i);
+					insert.executeInsert();
+				}
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+		}
+		insert.close();
+	}
+
+	/** Reading the 100k rows of {@link #columnExtraction(Database)} in one go against steps of 2 ms per frame. */
+	static void incrementalReads (final Database db) throws Exception {
+		final String sql = "SELECT id, weight, stat FROM items";
+		final long[] sum = new long[1];
+		IncrementalQuery.RowHandler handler = cursor -> sum[0] += cursor.getInt(2);
+
+		section("incremental reads, 100k rows");
+		time("one step", () -> new IncrementalQuery(db, sql, handler).step(0, 0));
+		IncrementalQuery query = new IncrementalQuery(db, sql, handler);
+		long maxStep = 0;
+		while (!query.isDone()) {
+			long start = System.nanoTime();
+			query.step(0, 2000);
+			maxStep = Math.max(maxStep, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-40s %10d", "frames at 2 ms per step", query.getSteps()));
+		System.out.println(String.format("%-40s %10.3f ms", "total time in steps", query.getBusyNanos() / 1e6));
+		System.out.println(String.format("%-40s %10.3f ms", "longest step", maxStep / 1e6));
+	}
+
+	/** Repeating a lookup on the 100k rows of {@link #columnExtraction(Database)} with and without the result cache. */
+	static void queryCache (final Database db) throws Exception {
+		final String sql = "SELECT id, weight FROM items WHERE stat = 7";
+		final DatabaseCursor cursor = db.rawQuery(sql);
+
+		section("query result cache, 1000 of 100k rows");
+		time("uncached", () -> db.rawQuery(cursor, sql));
+		db.setQueryCacheSize(4 * 1024 * 1024);
+		time("cached", () -> db.rawQuery(cursor, sql));
+		time("cached, invalidated by a write each run", () -> {
+			db.execSQL("UPDATE items SET weight = weight WHERE id = 0");
+			db.rawQuery(cursor, sql);
+		});
+		System.out.println(String.format("%-40s %10d", "hits", db.getQueryCacheHits()));
+		System.out.println(String.format("%-40s %10d", "misses", db.getQueryCacheMisses()));
+		System.out.println(String.format("%-40s %10d", "invalidations", db.getQueryCacheInvalidations()));
+		System.out.println(String.format("%-40s %10d", "bytes held", db.getQueryCacheBytes()));
+		db.setQueryCacheSize(0);
+		cursor.close();
+	}
+
+	/** Keeping a lookup on the rows of {@link #columnExtraction(Database)} current over 600 frames with a write every 10th
+	 * frame: polling every frame against a live query. */
+	static void liveQueries (final Database db) throws Exception {
+		final String sql = "SELECT id, weight FROM items WHERE stat = 7";
+		final String write = "UPDATE items SET weight = weight + 1 WHERE id = 0";
+		final DatabaseCursor cursor = db.rawQuery(sql);
+		final int frames = 600;
+
+		section("live queries, 600 frames, a write every 10th");
+		long start = System.nanoTime();
+		for (int frame = 0; frame < frames; frame++) {
+			if (frame % 10 == 0) {
+				db.execSQL(write);
+			}
+			db.rawQuery(cursor, sql);
+		}
+		System.out.println(String.format("%-40s %10.3f ms", "polling every frame", (System.nanoTime() - start) / 1e6));
+		cursor.close();
+
+		final int[] results = new int[1];
+		AsyncDatabase async = new AsyncDatabase(db, false);
+		LiveQueries live = new LiveQueries(async);
+		live.observe(database -> {
+			DatabaseCursor result = database.rawQuery(sql);
+			result.close();
+			return null;
+		}, new AsyncDatabase.Callback<Object>() {
+			public void onResult (Object result) {
+				results[0]++;
+			}
+
+			public void onError (Throwable error) {
+				error.printStackTrace();
+			}
+		}, "items");
+		start = System.nanoTime();
+		for (int frame = 0; frame < frames; frame++) {
+			if (frame % 10 == 0) {
+				async.execSQL(write);
+			}
+			live.update();
+		}
+		async.submit(database -> null).get();
+		live.update();
+		async.submit(database -> null).get();
+		System.out.println(String.format("%-40s %10.3f ms", "live query", (System.nanoTime() - start) / 1e6));
+		System.out.println(String.format("%-40s %10d", "  commits reported", live.getNotifications()));
+		System.out.println(String.format("%-40s %10d", "  query runs", live.getRuns()));
+		System.out.println(String.format("%-40s %10d", "  results delivered", results[0]));
+		live.dispose();
+		async.dispose();
+	}
+
+	/** Looking up 10k rows of {@link #columnExtraction(Database)} by id, drawn from 1000 hot ids, through a prepared
+	 * statement against an entity cache. */
+	static void entityCache (final Database db) throws Exception {
+		final PreparedStatement byId = db.getPreparedStatement("SELECT weight, stat FROM items WHERE id = ?");
+		final EntityCache.Loader<float[]> loader = id -> {
+			byId.setLong(1, id);
+			DatabaseCursor cursor = byId.executeQuery();
+			try {
+				return cursor.next() ? new float[] {cursor.getFloat(0), cursor.getInt(1)} : null;
+			} finally {
+				cursor.close();
+			}
+		};
+		final long[] ids = new long[10000];
+		Random random = new Random(7);
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = random.nextInt(1000) * 97;
+		}
+		final EntityCache<float[]> cache = new EntityCache<>(db, "items", 2000, loader);
+
+		section("entity cache, 10k lookups of 1000 hot rows");
+		time("prepared statement", () -> {
+			for (long id : ids) {
+				loader.load(id);
+			}
+		});
+		time("entity cache", () -> {
+			for (long id : ids) {
+				cache.get(id);
+			}
+		});
+		time("entity cache, a row written per 100", () -> {
+			for (int i = 0; i < ids.length; i++) {
+				if (i % 100 == 0) {
+					db.execSQL("UPDATE items SET weight = weight WHERE id = " + ids[i]);
+				}
+				cache.get(ids[i]);
+			}
+		});
+		System.out.println(String.format("%-40s %10d", "hits", cache.getHits()));
+		System.out.println(String.format("%-40s %10d", "misses", cache.getMisses()));
+		System.out.println(String.format("%-40s %10d", "invalidations", cache.getInvalidations()));
+		cache.dispose();
+		byId.close();
+	}
+
+	static void report (String name, int events, long nanos, long[] latencies) {
+		Arrays.sort(latencies);
+		double perSecond = events / (nanos / 1e9);
+		double p99 = latencies[(int)(latencies.length * 0.99)] / 1e3;
+		System.out.println(String.format("%-40s %10.0f events/s, p99 enqueue %8.1f us", name, perSecond, p99));
+	}
+
+	static void section (String name) {
+		System.out.println();
+		System.out.println("== " + name);
+	}
+
+	static void time (String name, Task task) throws Exception {
+		for (int i = 0; i < WARMUP_RUNS; i++) {
+			task.run();
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_RUNS; i++) {
+			task.run();
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+		System.out.println(String.format("%-40s %10.3f ms", name, millis));
+	}
+}
@@ -6,6 +6,7 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
 import com.badlogic.gdx.sqlite.DatabaseFactory;
 import com.badlogic.gdx.sqlite.SQLiteGdxRuntimeException;
+import java.util.Arrays;
 
 /**
  * @author M Rafay Aleem
@@ -13,6 +14,8 @@ import com.badlogic.gdx.sqlite.SQLiteGdxRuntimeException;
 public class AndroidCursor implements DatabaseCursor {
 
   private Cursor cursor = null;
+  private String[] columnNames = null;
+  private int columnLayout = 0;
 
   @Override
   public byte[] getBlob(int columnIndex) {
@@ -128,6 +131,44 @@ public class AndroidCursor implements DatabaseCursor {
 
   public void setNativeCursor(Cursor cursorRef) {
     cursor = cursorRef;
+    // SQLiteCursor hands out its own column name array, so comparing does not allocate
+    String[] names = cursorRef.getColumnNames();
+    if (!Arrays.equals(names, columnNames)) {
+      columnNames = names;
+      columnLayout++;
+    }
+  }
+
+  @Override
+  public int getColumnIndex(String columnName) {
+    if (columnName == null) {
+      return -1;
+    }
+    // SQLiteCursor.getColumnIndex compares case-sensitively, so the names are scanned here
+    int index = indexOf(columnName, 0);
+    int dot = columnName.lastIndexOf('.');
+    if (index < 0 && dot >= 0) {
+      // like SQLiteCursor, "table.column" finds the column
+      index = indexOf(columnName, dot + 1);
+    }
+    return index;
+  }
+
+  /** @return index of the column named like {@code columnName} from {@code start} on, or -1 */
+  private int indexOf(String columnName, int start) {
+    int length = columnName.length() - start;
+    for (int i = 0; i < columnNames.length; i++) {
+      String name = columnNames[i];
+      if (name.length() == length && name.regionMatches(true, 0, columnName, start, length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int getColumnLayout() {
+    return columnLayout;
   }
 
   @Override
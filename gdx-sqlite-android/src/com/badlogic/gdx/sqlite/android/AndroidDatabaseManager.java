@@ -7,11 +7,16 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.backends.android.AndroidApplication;
+import com.badlogic.gdx.sqlite.CloseNotifier;
 import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCloseListener;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
 import com.badlogic.gdx.sqlite.DatabaseManager;
 import com.badlogic.gdx.sqlite.PreparedStatement;
 import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.TableChangeListener;
+import com.badlogic.gdx.sqlite.TableChangeTracker;
 
 /**
  * @author M Rafay Aleem
@@ -30,6 +35,11 @@ public class AndroidDatabaseManager implements DatabaseManager {
     private final int dbVersion;
     private final String dbOnCreateQuery;
     private final String dbOnUpgradeQuery;
+    private boolean writeAheadLogging = false;
+    private DatabaseConfig config = null;
+    // tables written through execSQL() and the transaction methods, for table change listeners
+    private final TableChangeTracker changes = new TableChangeTracker();
+    private final CloseNotifier closeListeners = new CloseNotifier();
 
     private AndroidDatabase(
         Context context,
@@ -49,19 +59,52 @@ public class AndroidDatabaseManager implements DatabaseManager {
       helper =
           new SQLiteDatabaseHelper(
               this.context, dbName, null, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
+      helper.setConfig(config);
+    }
+
+    /**
+     * The settings are applied by the helper when it opens a connection. Journal modes other than
+     * WAL are ignored, as Android manages the journal itself. Settings other than the journal mode
+     * and the page size only apply to that connection, so with them a WAL database keeps a single
+     * connection instead of Android's reader pool.
+     */
+    @Override
+    public void configure(DatabaseConfig config) {
+      this.config = config != null ? config.copy() : null;
+      if (helper != null) {
+        helper.setConfig(this.config);
+      }
     }
 
     @Override
     public void openOrCreateDatabase() throws SQLiteGdxException {
       try {
         database = helper.getWritableDatabase();
+        if (writeAheadLogging) {
+          helper.enableWriteAheadLogging(database);
+        }
+        if (config != null && config.isQueryOnly()) {
+          SQLiteDatabaseHelper.runPragma(database, "PRAGMA query_only = ON");
+        }
       } catch (SQLiteException e) {
         throw new SQLiteGdxException(e);
       }
     }
 
+    /**
+     * Enables Android's own write-ahead logging, which keeps a pool of reader connections sized by
+     * the platform. The number of reader connections is therefore ignored. A database configured
+     * with per-connection settings keeps a single connection in WAL journal mode instead, see
+     * {@link #configure(DatabaseConfig)}.
+     */
+    @Override
+    public void enableWriteAheadLogging(int readerConnections) {
+      writeAheadLogging = readerConnections > 0;
+    }
+
     @Override
     public void closeDatabase() throws SQLiteGdxException {
+      closeListeners.closing(this);
       try {
         helper.close();
       } catch (SQLiteException e) {
@@ -76,6 +119,29 @@ public class AndroidDatabaseManager implements DatabaseManager {
       } catch (SQLException e) {
         throw new SQLiteGdxException(e);
       }
+      if (changes.hasListeners()) {
+        changes.executed(sql);
+      }
+    }
+
+    @Override
+    public void addTableChangeListener(TableChangeListener listener) {
+      changes.addListener(listener);
+    }
+
+    @Override
+    public void removeTableChangeListener(TableChangeListener listener) {
+      changes.removeListener(listener);
+    }
+
+    @Override
+    public void addCloseListener(DatabaseCloseListener listener) {
+      closeListeners.addListener(listener);
+    }
+
+    @Override
+    public void removeCloseListener(DatabaseCloseListener listener) {
+      closeListeners.removeListener(listener);
     }
 
     @Override
@@ -105,16 +171,22 @@ public class AndroidDatabaseManager implements DatabaseManager {
     @Override
     public void beginTransaction() {
       database.beginTransaction();
+      changes.begin();
     }
 
     @Override
     public void setTransactionSuccessful() {
       database.setTransactionSuccessful();
+      changes.setSuccessful();
     }
 
     @Override
     public void endTransaction() {
-      database.endTransaction();
+      try {
+        database.endTransaction();
+      } finally {
+        changes.end();
+      }
     }
 
     @Override
@@ -1,9 +1,11 @@
 package com.badlogic.gdx.sqlite.android;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteDatabase.CursorFactory;
 import android.database.sqlite.SQLiteOpenHelper;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
 
 /**
  * @author M Rafay Aleem
@@ -14,6 +16,7 @@ public class SQLiteDatabaseHelper extends SQLiteOpenHelper {
   private final int dbVersion;
   private final String dbOnCreateQuery;
   private final String dbOnUpgradeQuery;
+  private DatabaseConfig config = null;
 
   public SQLiteDatabaseHelper(
       Context context,
@@ -29,6 +32,73 @@ public class SQLiteDatabaseHelper extends SQLiteOpenHelper {
     this.dbOnUpgradeQuery = dbOnUpgradeQuery;
   }
 
+  /**
+   * @param config settings applied when a connection is opened, or {@code null} for the defaults
+   */
+  public void setConfig(DatabaseConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public void onConfigure(SQLiteDatabase database) {
+    if (config == null) {
+      return;
+    }
+    for (String pragma : config.toPragmas(false)) {
+      if (pragma.startsWith("PRAGMA journal_mode")) {
+        // the platform manages the journal, write-ahead logging has its own switch
+        if (config.getJournalMode() == DatabaseConfig.JournalMode.WAL) {
+          enableWriteAheadLogging(database);
+        }
+      } else {
+        runPragma(database, pragma);
+      }
+    }
+  }
+
+  /**
+   * Turns on write-ahead logging. Android then opens further connections for reads without calling
+   * {@link #onConfigure(SQLiteDatabase)} for them, so they would miss every setting that only
+   * applies to the connection it runs on. With such settings the database keeps its single
+   * connection and only switches its journal to WAL.
+   */
+  void enableWriteAheadLogging(SQLiteDatabase database) {
+    if (hasConnectionSettings()) {
+      runPragma(database, "PRAGMA journal_mode = WAL");
+    } else {
+      database.enableWriteAheadLogging();
+    }
+  }
+
+  /**
+   * @return whether the configuration has settings that only apply to the connection they run on,
+   *     everything but the journal mode and the page size
+   */
+  private boolean hasConnectionSettings() {
+    if (config == null) {
+      return false;
+    }
+    if (config.isQueryOnly()) {
+      return true;
+    }
+    for (String pragma : config.toPragmas(false)) {
+      if (!pragma.startsWith("PRAGMA journal_mode") && !pragma.startsWith("PRAGMA page_size")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Runs a PRAGMA statement, which Android only accepts as a query when it returns a row. */
+  static void runPragma(SQLiteDatabase database, String pragma) {
+    Cursor cursor = database.rawQuery(pragma, null);
+    try {
+      cursor.moveToFirst();
+    } finally {
+      cursor.close();
+    }
+  }
+
   @Override
   public void onCreate(SQLiteDatabase database) {
     if (dbOnCreateQuery != null) database.execSQL(dbOnCreateQuery);
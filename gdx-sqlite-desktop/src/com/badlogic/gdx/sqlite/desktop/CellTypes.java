@@ -0,0 +1,56 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.sqlite.core.CoreStatement;
+import org.sqlite.core.DB;
+import org.sqlite.core.SafeStmtPtr;
+
+/**
+ * Reads the storage class of the cells of a sqlite-jdbc result ({@code sqlite3_column_type})
+ * without boxing them, so that a row store can pick the typed getter that matches each cell. JDBC
+ * only offers {@link ResultSet#getObject(int)} for this, which boxes every number.
+ *
+ * <p>Thread-safety: Not thread-safe; a row store keeps one instance for its loads.
+ */
+final class CellTypes {
+
+  static final int INTEGER = 1;
+  static final int FLOAT = 2;
+  static final int TEXT = 3;
+  static final int BLOB = 4;
+  static final int NULL = 5;
+
+  private final ColumnType columnType = new ColumnType();
+  private SafeStmtPtr pointer = null;
+
+  /**
+   * @param resultSet result whose cells are read next
+   * @return whether the storage classes of its cells can be read, i.e. it comes from sqlite-jdbc
+   */
+  boolean attach(ResultSet resultSet) throws SQLException {
+    Statement statement = resultSet.getStatement();
+    pointer = statement instanceof CoreStatement ? ((CoreStatement) statement).pointer : null;
+    return pointer != null;
+  }
+
+  /**
+   * @param jdbcColumn one-based column index
+   * @return storage class of the cell in the current row, one of the constants of this class
+   */
+  int of(int jdbcColumn) throws SQLException {
+    columnType.column = jdbcColumn - 1;
+    return pointer.safeRunInt(columnType);
+  }
+
+  /** Reused for every cell, as a capturing lambda would be allocated per call. */
+  private static final class ColumnType implements SafeStmtPtr.SafePtrIntFunction<SQLException> {
+    int column;
+
+    @Override
+    public int run(DB db, long ptr) throws SQLException {
+      return db.column_type(ptr, column);
+    }
+  }
+}
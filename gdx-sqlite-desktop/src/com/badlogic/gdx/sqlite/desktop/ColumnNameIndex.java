@@ -0,0 +1,157 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Case-insensitive column name lookup that does not allocate. Names are kept as reported by the
+ * driver and hashed character by character with the same folding {@link
+ * String#equalsIgnoreCase(String)} uses, so no lower-cased copies or boxed indices are needed.
+ *
+ * <p>A layout stamp is bumped only when the column names actually change, which lets callers keep
+ * resolved indices across queries that return the same columns.
+ */
+final class ColumnNameIndex {
+
+  private String[] names = new String[0];
+  private int count = 0;
+  // open addressing table holding column index + 1, 0 marks an empty slot
+  private int[] slots = new int[0];
+  private int layout = 0;
+
+  /**
+   * Reads the column labels of the given result metadata.
+   *
+   * @param meta metadata of the new result
+   * @return whether the labels differ from the previous ones
+   * @throws SQLException if the metadata cannot be read
+   */
+  boolean update(ResultSetMetaData meta) throws SQLException {
+    int newCount = meta.getColumnCount();
+    boolean changed = newCount != count;
+    if (names.length < newCount) {
+      names = Arrays.copyOf(names, newCount);
+    }
+    for (int i = 0; i < newCount; i++) {
+      String label = label(meta, i);
+      if (!changed && !label.equals(names[i])) {
+        changed = true;
+      }
+      names[i] = label;
+    }
+    finishUpdate(newCount, changed);
+    return changed;
+  }
+
+  /**
+   * Takes the column labels of a result read earlier, see {@link #labels(ResultSetMetaData)}.
+   *
+   * @param labels labels of the new result
+   */
+  void update(String[] labels) {
+    int newCount = labels.length;
+    boolean changed = newCount != count;
+    if (names.length < newCount) {
+      names = Arrays.copyOf(names, newCount);
+    }
+    for (int i = 0; i < newCount; i++) {
+      if (!changed && !labels[i].equals(names[i])) {
+        changed = true;
+      }
+      names[i] = labels[i];
+    }
+    finishUpdate(newCount, changed);
+  }
+
+  /**
+   * @param meta metadata of a result
+   * @return the column labels as {@link #update(ResultSetMetaData)} reads them
+   * @throws SQLException if the metadata cannot be read
+   */
+  static String[] labels(ResultSetMetaData meta) throws SQLException {
+    String[] labels = new String[meta.getColumnCount()];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = label(meta, i);
+    }
+    return labels;
+  }
+
+  private static String label(ResultSetMetaData meta, int column) throws SQLException {
+    String label = meta.getColumnLabel(column + 1);
+    if (label == null || label.length() == 0) {
+      label = meta.getColumnName(column + 1);
+    }
+    return label;
+  }
+
+  private void finishUpdate(int newCount, boolean changed) {
+    for (int i = newCount; i < count; i++) {
+      names[i] = null;
+    }
+    count = newCount;
+    if (changed) {
+      layout++;
+      rehash();
+    }
+  }
+
+  int getLayout() {
+    return layout;
+  }
+
+  int getCount() {
+    return count;
+  }
+
+  /**
+   * @param name column name, compared ignoring case
+   * @return zero-based index of the first column with that name, or -1 if there is none
+   */
+  int indexOf(String name) {
+    if (count == 0) {
+      return -1;
+    }
+    int mask = slots.length - 1;
+    for (int slot = hash(name) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int index = slots[slot] - 1;
+      if (names[index].equalsIgnoreCase(name)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public String toString() {
+    return Arrays.toString(Arrays.copyOf(names, count));
+  }
+
+  private void rehash() {
+    int size = Integer.highestOneBit(Math.max(count, 1) * 2) << 1;
+    if (slots.length != size) {
+      slots = new int[size];
+    } else {
+      Arrays.fill(slots, 0);
+    }
+    int mask = size - 1;
+    for (int i = 0; i < count; i++) {
+      if (indexOf(names[i]) >= 0) {
+        continue; // duplicate label, the first column wins
+      }
+      int slot = hash(names[i]) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i + 1;
+    }
+  }
+
+  private static int hash(String name) {
+    int h = 0;
+    for (int i = 0, n = name.length(); i < n; i++) {
+      h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+    }
+    return h ^ (h >>> 16);
+  }
+}
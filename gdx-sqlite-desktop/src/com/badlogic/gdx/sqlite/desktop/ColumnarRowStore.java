@@ -0,0 +1,472 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Column oriented buffer for the rows of a JDBC {@link ResultSet}. Every column is stored in a
+ * primitive or reference array chosen from the SQLite type affinity of its declared type:
+ *
+ * <ul>
+ *   <li>INTEGER affinity: {@code long[]}
+ *   <li>REAL affinity: {@code double[]}
+ *   <li>TEXT affinity: {@code String[]} arena
+ *   <li>BLOB declared type: {@code byte[][]} arena
+ *   <li>anything else (NUMERIC affinity, expressions without a source table): boxed values
+ * </ul>
+ *
+ * NULL cells are tracked in a per-column bitmap. A declared type does not restrict what a cell
+ * holds, so the storage class of every cell is checked as it is loaded, without boxing it (see
+ * {@link CellTypes}), and a matching cell is read with its typed getter. The first cell that does
+ * not fit the array of its column, e.g. a real or text value in an INTEGER column, moves the column
+ * to boxed values for the rest of that result, which keep every value as it was stored. The next
+ * result starts from the declared types again. Loading and reading the numeric cells of primitive
+ * columns does not allocate.
+ *
+ * <p>The arrays are kept and grown across {@link #load} calls so that a store reused for repeated
+ * queries stops allocating once it has reached the size of the largest result. Capacity above the
+ * configured high-water mark is released again after a number of consecutive smaller results (see
+ * {@link #setRecyclePolicy(int, int)}).
+ */
+final class ColumnarRowStore implements RowStore {
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte[] EMPTY = new byte[0];
+
+  private int columnCount = 0;
+  private int rowCount = 0;
+  private int capacity = 0;
+
+  private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+  private int trimAfterLoads = DEFAULT_TRIM_AFTER_LOADS;
+  private int loadsBelowMark = 0;
+
+  // kind of each column chosen from its declared type, and its kind in the current result
+  private byte[] declaredKinds = new byte[0];
+  private byte[] kinds = new byte[0];
+  private long[][] longs = new long[0][];
+  private double[][] doubles = new double[0][];
+  private String[][] strings = new String[0][];
+  private byte[][][] blobs = new byte[0][][];
+  private Object[][] values = new Object[0][];
+  private long[][] nulls = new long[0][];
+  private final CellTypes cellTypes = new CellTypes();
+
+  @Override
+  public void load(ResultSet resultSet, ResultSetMetaData meta, boolean sameLayout)
+      throws SQLException {
+    clear();
+    if (!sameLayout || capacity == 0) {
+      layout(meta);
+    } else {
+      resetKinds();
+    }
+    boolean typed = cellTypes.attach(resultSet);
+    while (resultSet.next()) {
+      readRow(resultSet, typed);
+    }
+    recycle();
+  }
+
+  @Override
+  public void setRecyclePolicy(int highWaterMark, int trimAfterLoads) {
+    if (highWaterMark < 0 || trimAfterLoads < 1) {
+      throw new IllegalArgumentException(
+          "Invalid recycle policy: highWaterMark="
+              + highWaterMark
+              + " trimAfterLoads="
+              + trimAfterLoads);
+    }
+    this.highWaterMark = highWaterMark;
+    this.trimAfterLoads = trimAfterLoads;
+    loadsBelowMark = 0;
+  }
+
+  @Override
+  public void trim(int rows) {
+    int newCapacity = Math.max(Math.max(rows, rowCount), INITIAL_CAPACITY);
+    if (newCapacity < capacity) {
+      resize(newCapacity);
+    }
+  }
+
+  @Override
+  public void clear() {
+    for (int c = 0; c < columnCount; c++) {
+      Arrays.fill(nulls[c], 0L);
+      // release references so strings and blobs from the previous result can be collected
+      if (strings[c] != null) Arrays.fill(strings[c], 0, rowCount, null);
+      if (blobs[c] != null) Arrays.fill(blobs[c], 0, rowCount, null);
+      if (values[c] != null) Arrays.fill(values[c], 0, rowCount, null);
+    }
+    rowCount = 0;
+  }
+
+  @Override
+  public void release() {
+    // heap arrays are reclaimed by the garbage collector together with the cursor
+  }
+
+  @Override
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  /**
+   * @return rough number of heap bytes held by the rows of this store, including unused capacity
+   */
+  long sizeInBytes() {
+    long bytes = 64;
+    for (int c = 0; c < columnCount; c++) {
+      bytes += 32 + 8L * nulls[c].length + 8L * capacity;
+      for (int r = 0; r < rowCount; r++) {
+        if (kinds[c] == KIND_TEXT) bytes += sizeOf(strings[c][r]);
+        else if (kinds[c] == KIND_BLOB) bytes += sizeOf(blobs[c][r]);
+        else if (kinds[c] == KIND_VALUE) bytes += sizeOf(values[c][r]);
+      }
+    }
+    return bytes;
+  }
+
+  static long sizeOf(Object value) {
+    if (value == null) return 0;
+    if (value instanceof String) return 40 + 2L * ((String) value).length();
+    if (value instanceof byte[]) return 16 + ((byte[]) value).length;
+    return 24;
+  }
+
+  byte getKind(int column) {
+    return kinds[column];
+  }
+
+  @Override
+  public boolean isNull(int row, int column) {
+    return (nulls[column][row >>> 6] & (1L << row)) != 0;
+  }
+
+  @Override
+  public long getLong(int row, int column) {
+    if (isNull(row, column)) return 0L;
+    switch (kinds[column]) {
+      case KIND_LONG:
+        return longs[column][row];
+      case KIND_DOUBLE:
+        return (long) doubles[column][row];
+      case KIND_TEXT:
+        return RowStore.parseLong(strings[column][row]);
+      case KIND_BLOB:
+        return 0L;
+      default:
+        return RowStore.toLong(values[column][row]);
+    }
+  }
+
+  @Override
+  public double getDouble(int row, int column) {
+    if (isNull(row, column)) return 0d;
+    switch (kinds[column]) {
+      case KIND_LONG:
+        return longs[column][row];
+      case KIND_DOUBLE:
+        return doubles[column][row];
+      case KIND_TEXT:
+        return RowStore.parseDouble(strings[column][row]);
+      case KIND_BLOB:
+        return 0d;
+      default:
+        return RowStore.toDouble(values[column][row]);
+    }
+  }
+
+  @Override
+  public String getString(int row, int column) {
+    if (isNull(row, column)) return null;
+    switch (kinds[column]) {
+      case KIND_LONG:
+        return Long.toString(longs[column][row]);
+      case KIND_DOUBLE:
+        return Double.toString(doubles[column][row]);
+      case KIND_TEXT:
+        return strings[column][row];
+      case KIND_BLOB:
+        return new String(blobs[column][row], StandardCharsets.UTF_8);
+      default:
+        Object value = values[column][row];
+        return value instanceof byte[]
+            ? new String((byte[]) value, StandardCharsets.UTF_8)
+            : value.toString();
+    }
+  }
+
+  @Override
+  public byte[] getBlob(int row, int column) {
+    if (isNull(row, column)) return null;
+    switch (kinds[column]) {
+      case KIND_BLOB:
+        return blobs[column][row];
+      case KIND_VALUE:
+        Object value = values[column][row];
+        if (value instanceof byte[]) return (byte[]) value;
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+      default:
+        return getString(row, column).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  // NULL cells of integer and real columns hold 0, so they copy without null checks.
+
+  @Override
+  public void readInts(int column, int row, int count, int[] dst, int offset) {
+    if (kinds[column] == KIND_LONG) {
+      long[] src = longs[column];
+      for (int i = 0; i < count; i++) {
+        dst[offset + i] = (int) src[row + i];
+      }
+    } else {
+      RowStore.super.readInts(column, row, count, dst, offset);
+    }
+  }
+
+  @Override
+  public void readLongs(int column, int row, int count, long[] dst, int offset) {
+    if (kinds[column] == KIND_LONG) {
+      System.arraycopy(longs[column], row, dst, offset, count);
+    } else {
+      RowStore.super.readLongs(column, row, count, dst, offset);
+    }
+  }
+
+  @Override
+  public void readFloats(int column, int row, int count, float[] dst, int offset) {
+    if (kinds[column] == KIND_DOUBLE) {
+      double[] src = doubles[column];
+      for (int i = 0; i < count; i++) {
+        dst[offset + i] = (float) src[row + i];
+      }
+    } else if (kinds[column] == KIND_LONG) {
+      long[] src = longs[column];
+      for (int i = 0; i < count; i++) {
+        dst[offset + i] = src[row + i];
+      }
+    } else {
+      RowStore.super.readFloats(column, row, count, dst, offset);
+    }
+  }
+
+  @Override
+  public void readDoubles(int column, int row, int count, double[] dst, int offset) {
+    if (kinds[column] == KIND_DOUBLE) {
+      System.arraycopy(doubles[column], row, dst, offset, count);
+    } else if (kinds[column] == KIND_LONG) {
+      long[] src = longs[column];
+      for (int i = 0; i < count; i++) {
+        dst[offset + i] = src[row + i];
+      }
+    } else {
+      RowStore.super.readDoubles(column, row, count, dst, offset);
+    }
+  }
+
+  private void layout(ResultSetMetaData meta) throws SQLException {
+    int count = meta.getColumnCount();
+    if (count != columnCount) {
+      columnCount = count;
+      declaredKinds = new byte[count];
+      kinds = new byte[count];
+      longs = new long[count][];
+      doubles = new double[count][];
+      strings = new String[count][];
+      blobs = new byte[count][][];
+      values = new Object[count][];
+      nulls = new long[count][];
+    }
+    if (capacity == 0) capacity = INITIAL_CAPACITY;
+    for (int c = 0; c < count; c++) {
+      byte kind = RowStore.kindOf(meta, c + 1);
+      declaredKinds[c] = kind;
+      kinds[c] = kind;
+      // keep arrays of the matching kind, drop the others
+      longs[c] = kind == KIND_LONG ? ensure(longs[c]) : null;
+      doubles[c] = kind == KIND_DOUBLE ? ensure(doubles[c]) : null;
+      strings[c] = kind == KIND_TEXT ? ensure(strings[c]) : null;
+      blobs[c] = kind == KIND_BLOB ? ensure(blobs[c]) : null;
+      values[c] = kind == KIND_VALUE ? ensure(values[c]) : null;
+      if (nulls[c] == null || nulls[c].length < bitmapLength(capacity)) {
+        nulls[c] = new long[bitmapLength(capacity)];
+      }
+    }
+  }
+
+  /** Restores the declared kinds of columns that the previous result moved to boxed values. */
+  private void resetKinds() {
+    for (int c = 0; c < columnCount; c++) {
+      if (kinds[c] == declaredKinds[c]) continue;
+      kinds[c] = declaredKinds[c];
+      switch (kinds[c]) {
+        case KIND_LONG:
+          longs[c] = ensure(longs[c]);
+          break;
+        case KIND_DOUBLE:
+          doubles[c] = ensure(doubles[c]);
+          break;
+        case KIND_TEXT:
+          strings[c] = ensure(strings[c]);
+          break;
+        case KIND_BLOB:
+          blobs[c] = ensure(blobs[c]);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private void readRow(ResultSet resultSet, boolean typed) throws SQLException {
+    if (rowCount == capacity) grow();
+    int row = rowCount;
+    for (int c = 0; c < columnCount; c++) {
+      int type = typed ? cellTypes.of(c + 1) : storageClass(resultSet.getObject(c + 1));
+      if (type == CellTypes.NULL) {
+        nulls[c][row >>> 6] |= 1L << row;
+        if (kinds[c] == KIND_LONG) longs[c][row] = 0L;
+        else if (kinds[c] == KIND_DOUBLE) doubles[c][row] = 0d;
+        continue;
+      }
+      switch (kinds[c]) {
+        case KIND_LONG:
+          if (type == CellTypes.INTEGER) {
+            longs[c][row] = resultSet.getLong(c + 1);
+            continue;
+          }
+          break;
+        case KIND_DOUBLE:
+          if (type == CellTypes.FLOAT) {
+            doubles[c][row] = resultSet.getDouble(c + 1);
+            continue;
+          }
+          break;
+        case KIND_TEXT:
+          if (type == CellTypes.TEXT) {
+            // the cell is not NULL, so an empty value may come back as null
+            String text = resultSet.getString(c + 1);
+            strings[c][row] = text != null ? text : "";
+            continue;
+          }
+          break;
+        case KIND_BLOB:
+          if (type == CellTypes.BLOB) {
+            byte[] bytes = resultSet.getBytes(c + 1);
+            blobs[c][row] = bytes != null ? bytes : EMPTY;
+            continue;
+          }
+          break;
+        default:
+          break;
+      }
+      if (kinds[c] != KIND_VALUE) {
+        toValues(c);
+      }
+      // the driver returns the cell as its storage class: Integer or Long, Double, String, byte[]
+      Object value = resultSet.getObject(c + 1);
+      values[c][row] = value != null ? value : type == CellTypes.BLOB ? EMPTY : "";
+    }
+    rowCount++;
+  }
+
+  /** Storage class of a cell read from a result of another driver, which can only box it. */
+  private static int storageClass(Object value) {
+    if (value == null) return CellTypes.NULL;
+    if (value instanceof Double || value instanceof Float) return CellTypes.FLOAT;
+    if (value instanceof Number) return CellTypes.INTEGER;
+    if (value instanceof byte[]) return CellTypes.BLOB;
+    return CellTypes.TEXT;
+  }
+
+  /**
+   * Moves a column holding a cell of another storage class than its array to boxed values for the
+   * rest of the result.
+   */
+  private void toValues(int column) {
+    Object[] boxed = ensure(values[column]);
+    for (int row = 0; row < rowCount; row++) {
+      if (!isNull(row, column)) {
+        switch (kinds[column]) {
+          case KIND_LONG:
+            boxed[row] = longs[column][row];
+            break;
+          case KIND_DOUBLE:
+            boxed[row] = doubles[column][row];
+            break;
+          case KIND_TEXT:
+            boxed[row] = strings[column][row];
+            break;
+          default:
+            boxed[row] = blobs[column][row];
+            break;
+        }
+      }
+    }
+    // the typed array is kept for the next result, which starts from the declared kind again
+    kinds[column] = KIND_VALUE;
+    values[column] = boxed;
+  }
+
+  private void recycle() {
+    if (capacity <= highWaterMark || rowCount > highWaterMark) {
+      loadsBelowMark = 0;
+      return;
+    }
+    if (++loadsBelowMark >= trimAfterLoads) {
+      trim(highWaterMark);
+      loadsBelowMark = 0;
+    }
+  }
+
+  private void grow() {
+    resize(capacity + (capacity >> 1));
+  }
+
+  private void resize(int newCapacity) {
+    for (int c = 0; c < columnCount; c++) {
+      if (longs[c] != null) longs[c] = Arrays.copyOf(longs[c], newCapacity);
+      if (doubles[c] != null) doubles[c] = Arrays.copyOf(doubles[c], newCapacity);
+      if (strings[c] != null) strings[c] = Arrays.copyOf(strings[c], newCapacity);
+      if (blobs[c] != null) blobs[c] = Arrays.copyOf(blobs[c], newCapacity);
+      if (values[c] != null) values[c] = Arrays.copyOf(values[c], newCapacity);
+      nulls[c] = Arrays.copyOf(nulls[c], bitmapLength(newCapacity));
+    }
+    capacity = newCapacity;
+  }
+
+  private long[] ensure(long[] array) {
+    return array != null && array.length >= capacity ? array : new long[capacity];
+  }
+
+  private double[] ensure(double[] array) {
+    return array != null && array.length >= capacity ? array : new double[capacity];
+  }
+
+  private String[] ensure(String[] array) {
+    return array != null && array.length >= capacity ? array : new String[capacity];
+  }
+
+  private byte[][] ensure(byte[][] array) {
+    return array != null && array.length >= capacity ? array : new byte[capacity][];
+  }
+
+  private Object[] ensure(Object[] array) {
+    return array != null && array.length >= capacity ? array : new Object[capacity];
+  }
+
+  private static int bitmapLength(int rows) {
+    return (rows + 63) >>> 6;
+  }
+}
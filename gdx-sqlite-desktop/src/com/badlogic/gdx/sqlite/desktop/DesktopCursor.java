@@ -4,84 +4,248 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
 import com.badlogic.gdx.sqlite.DatabaseFactory;
 import com.badlogic.gdx.sqlite.SQLiteGdxRuntimeException;
-import java.sql.Blob;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.sql.Statement;
 
 /**
  * This is a Desktop implementation of the public interface {@link DatabaseCursor}. Note that
  * columns in JDBC are not zero-based and hence +1 has been added to accomodate for this difference.
  *
+ * <p>By default all rows are buffered eagerly when the query is executed, column by column in
+ * primitive arrays so that the numeric getters neither box nor allocate. In streaming mode (see
+ * {@link #setStreamingCursor(ResultSet, Statement, String)}) rows are read lazily from the JDBC
+ * {@link ResultSet} and only the current row is held in memory. In windowed mode (see {@link
+ * #setWindowedCursor(Connection, String, int)}) a fixed number of rows is buffered and other
+ * windows are fetched on demand, so random access keeps working with bounded memory.
+ *
+ * <p>A cursor passed back to {@link com.badlogic.gdx.sqlite.Database#rawQuery(DatabaseCursor,
+ * String)} keeps its row storage, so repeating a query with a result of similar size does not
+ * allocate new buffers. When the query is the same as the previous one and returns the same
+ * columns, the column layout is kept as well. How much storage is retained between queries is
+ * controlled with {@link #setRecyclePolicy(int, int)}.
+ *
+ * <p>In every mode NULL cells read as 0 from the numeric getters and as {@code null} from {@link
+ * #getString(int)} and {@link #getBlob(int)}. A closed cursor throws {@link IllegalStateException}
+ * until it is passed to another query.
+ *
+ * <p>Large results that must be buffered can be kept outside the Java heap with {@link
+ * #setStorage(Storage)}, so they do not add to garbage collection pauses:
+ *
+ * <pre>
+ * DesktopCursor cursor = new DesktopCursor();
+ * cursor.setStorage(DesktopCursor.Storage.DIRECT);
+ * db.rawQuery(cursor, "SELECT * FROM samples");
+ * ...
+ * cursor.close(); // frees the direct memory
+ * </pre>
+ *
  * @author M Rafay Aleem
  */
 public class DesktopCursor implements DatabaseCursor {
 
-  // Buffered rows: each row is an Object[] with length equal to column count.
-  private final List<Object[]> rows = new ArrayList<>();
-  private final Map<String, Integer> columnNameToIndex = new HashMap<>();
+  /** Where a cursor keeps its buffered rows, see {@link #setStorage(Storage)}. */
+  public enum Storage {
+    /** Column arrays on the Java heap. The default. */
+    HEAP,
+    /** Direct memory outside the Java heap, freed when the cursor is closed. */
+    DIRECT,
+    /** Memory-mapped temporary file, deleted when the cursor is closed. */
+    MAPPED_FILE
+  }
+
+  // Buffered rows, stored column by column on the heap unless another storage was selected.
+  private RowStore ownRows = new ColumnarRowStore();
+  // Rows of the current result: ownRows, or a cached result shared with other cursors.
+  private RowStore rows = ownRows;
+  private Storage storage = Storage.HEAP;
+  private final ColumnNameIndex columns = new ColumnNameIndex();
   private int columnCount = 0;
   private int cursor = -1; // index into rows; -1 before first
+  private Object lastQuery = null; // SQL text or statement of the last buffered query
+  private boolean closed = false;
+
+  // Streaming mode: rows are stepped lazily from resultSet, cursor counts the rows consumed so far.
+  private boolean streaming = false;
+  private boolean exhausted = false;
+  private ResultSet resultSet = null;
+  private Statement ownedStatement = null;
+  // hands back the connection or lock the streamed result holds, null if it holds none
+  private Runnable release = null;
+  private String countSql = null;
+  private int streamingCount = -1;
+
+  // Windowed mode: rows holds windowSize rows starting at row windowStart of the full result.
+  private boolean windowed = false;
+  private java.sql.PreparedStatement windowStatement = null;
+  private int windowStart = 0;
+  private int windowSize = 0;
+  private int windowedCount = -1;
 
   @Override
   public byte[] getBlob(int columnIndex) {
-    Blob blob = (Blob) getCell(columnIndex);
-    try {
-      return blob.getBytes(1, (int) blob.length());
-    } catch (SQLException e) {
-      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in getting the blob", e);
-      throw new SQLiteGdxRuntimeException(e);
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        byte[] value = row.getBytes(columnIndex + 1);
+        return row.wasNull() ? null : value;
+      } catch (SQLException e) {
+        Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in getting the blob", e);
+        throw new SQLiteGdxRuntimeException(e);
+      }
     }
+    return rows.getBlob(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public void reposition(int columnIndex) {
-
-    if (columnIndex < 0 || columnIndex >= rows.size()) {
+    checkOpen();
+    if (streaming) {
+      if (columnIndex < cursor) {
+        throw new SQLiteGdxRuntimeException(
+            new SQLException(
+                "Streaming cursor cannot move backwards from row "
+                    + cursor
+                    + " to "
+                    + columnIndex));
+      }
+      while (cursor < columnIndex) {
+        if (!next()) {
+          throw new SQLiteGdxRuntimeException(
+              new SQLException(
+                  "Row index out of bounds: " + columnIndex + " size=" + (cursor + 1)));
+        }
+      }
+      return;
+    }
+    if (windowed) {
+      repositionWindow(columnIndex);
+      return;
+    }
+    if (columnIndex < 0 || columnIndex >= rows.getRowCount()) {
       throw new SQLiteGdxRuntimeException(
-          new SQLException("Row index out of bounds: " + columnIndex + " size=" + rows.size()));
+          new SQLException(
+              "Row index out of bounds: " + columnIndex + " size=" + rows.getRowCount()));
     }
     cursor = columnIndex;
   }
 
   @Override
   public double getDouble(int columnIndex) {
-    return ((Number) getCell(columnIndex)).doubleValue();
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        double value = row.getDouble(columnIndex + 1);
+        return row.wasNull() ? 0d : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return rows.getDouble(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public float getFloat(int columnIndex) {
-    return ((Number) getCell(columnIndex)).floatValue();
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        float value = row.getFloat(columnIndex + 1);
+        return row.wasNull() ? 0f : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return (float) rows.getDouble(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public int getInt(int columnIndex) {
-    return ((Number) getCell(columnIndex)).intValue();
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        int value = row.getInt(columnIndex + 1);
+        return row.wasNull() ? 0 : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return (int) rows.getLong(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public long getLong(int columnIndex) {
-    return ((Number) getCell(columnIndex)).longValue();
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        long value = row.getLong(columnIndex + 1);
+        return row.wasNull() ? 0L : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return rows.getLong(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public short getShort(int columnIndex) {
-    return ((Number) getCell(columnIndex)).shortValue();
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        short value = row.getShort(columnIndex + 1);
+        return row.wasNull() ? 0 : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return (short) rows.getLong(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public String getString(int columnIndex) {
-    Object val = getCell(columnIndex);
-    return val != null ? val.toString() : null;
+    if (streaming) {
+      try {
+        ResultSet row = streamingRow(columnIndex);
+        String value = row.getString(columnIndex + 1);
+        return row.wasNull() ? null : value;
+      } catch (SQLException e) {
+        throw new SQLiteGdxRuntimeException(e);
+      }
+    }
+    return rows.getString(bufferedRow(columnIndex), columnIndex);
   }
 
   @Override
   public boolean next() {
-    if (cursor + 1 < rows.size()) {
+    checkOpen();
+    if (streaming) {
+      if (exhausted) {
+        return false;
+      }
+      try {
+        if (resultSet.next()) {
+          cursor++;
+          return true;
+        }
+      } catch (SQLException e) {
+        Gdx.app.log(
+            DatabaseFactory.ERROR_TAG, "There was an error in moving the cursor to next", e);
+        throw new SQLiteGdxRuntimeException(e);
+      }
+      // Release the statement as soon as the last row has been consumed.
+      exhausted = true;
+      streamingCount = cursor + 1;
+      releaseResources();
+      return false;
+    }
+    if (windowed) {
+      return nextWindowed();
+    }
+    if (cursor + 1 < rows.getRowCount()) {
       cursor++;
       return true;
     }
@@ -90,105 +254,488 @@ public class DesktopCursor implements DatabaseCursor {
 
   @Override
   public int getCount() {
-    return rows.size();
+    checkOpen();
+    if (streaming) {
+      return streamingCount();
+    }
+    if (windowed) {
+      return windowedCount();
+    }
+    return rows.getRowCount();
+  }
+
+  @Override
+  public int readInts(int columnIndex, int[] dst, int offset) {
+    int count = bulkCount(columnIndex, dst.length - offset);
+    if (count < 0) {
+      return DatabaseCursor.super.readInts(columnIndex, dst, offset);
+    }
+    rows.readInts(columnIndex, cursor + 1, count, dst, offset);
+    cursor += count;
+    return count;
+  }
+
+  @Override
+  public int readLongs(int columnIndex, long[] dst, int offset) {
+    int count = bulkCount(columnIndex, dst.length - offset);
+    if (count < 0) {
+      return DatabaseCursor.super.readLongs(columnIndex, dst, offset);
+    }
+    rows.readLongs(columnIndex, cursor + 1, count, dst, offset);
+    cursor += count;
+    return count;
+  }
+
+  @Override
+  public int readFloats(int columnIndex, float[] dst, int offset) {
+    int count = bulkCount(columnIndex, dst.length - offset);
+    if (count < 0) {
+      return DatabaseCursor.super.readFloats(columnIndex, dst, offset);
+    }
+    rows.readFloats(columnIndex, cursor + 1, count, dst, offset);
+    cursor += count;
+    return count;
+  }
+
+  @Override
+  public int readDoubles(int columnIndex, double[] dst, int offset) {
+    int count = bulkCount(columnIndex, dst.length - offset);
+    if (count < 0) {
+      return DatabaseCursor.super.readDoubles(columnIndex, dst, offset);
+    }
+    rows.readDoubles(columnIndex, cursor + 1, count, dst, offset);
+    cursor += count;
+    return count;
+  }
+
+  @Override
+  public IntArray readInts(int columnIndex, IntArray dst) {
+    checkOpen();
+    if (streaming || windowed) {
+      return DatabaseCursor.super.readInts(columnIndex, dst);
+    }
+    int[] items = dst.ensureCapacity(rows.getRowCount() - cursor - 1);
+    dst.size += readInts(columnIndex, items, dst.size);
+    return dst;
+  }
+
+  @Override
+  public LongArray readLongs(int columnIndex, LongArray dst) {
+    checkOpen();
+    if (streaming || windowed) {
+      return DatabaseCursor.super.readLongs(columnIndex, dst);
+    }
+    long[] items = dst.ensureCapacity(rows.getRowCount() - cursor - 1);
+    dst.size += readLongs(columnIndex, items, dst.size);
+    return dst;
+  }
+
+  @Override
+  public FloatArray readFloats(int columnIndex, FloatArray dst) {
+    checkOpen();
+    if (streaming || windowed) {
+      return DatabaseCursor.super.readFloats(columnIndex, dst);
+    }
+    float[] items = dst.ensureCapacity(rows.getRowCount() - cursor - 1);
+    dst.size += readFloats(columnIndex, items, dst.size);
+    return dst;
   }
 
   @Override
   public void close() {
-    // nothing to do, data buffered eagerly
+    // streaming and windowed cursors still hold statements, off-heap rows hold native memory
+    releaseResources();
+    rows = ownRows;
+    rows.release();
+    closed = true;
   }
 
   public void setNativeCursor(ResultSet resultSetRef) {
-    rows.clear();
-    columnNameToIndex.clear();
+    setNativeCursor(resultSetRef, null);
+  }
+
+  /**
+   * Buffers all rows of the given result set, reusing the storage of the previous result.
+   *
+   * @param resultSetRef result set positioned before the first row
+   * @param query SQL text or statement that produced the result; when it equals the query of the
+   *     previous result and the columns are still the same, e.g. no {@code ALTER TABLE} changed
+   *     the result of a {@code SELECT *}, the column storage is reused. May be {@code null}.
+   */
+  public void setNativeCursor(ResultSet resultSetRef, Object query) {
+    resetMode();
     cursor = -1;
+    boolean sameQuery = query != null && query.equals(lastQuery);
+    lastQuery = query;
     try {
       ResultSetMetaData meta = resultSetRef.getMetaData();
-      columnCount = meta.getColumnCount();
-      for (int i = 1; i <= columnCount; i++) {
-        String label = meta.getColumnLabel(i);
-        if (label == null || label.length() == 0) {
-          label = meta.getColumnName(i);
-        }
-        columnNameToIndex.put(label.toLowerCase(), i - 1); // store lower-case for case-insensitive
+      boolean changed = readColumnNames(meta);
+      rows.load(resultSetRef, meta, sameQuery && !changed);
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error buffering the results", e);
+      throw new SQLiteGdxRuntimeException(e);
+    }
+  }
+
+  /**
+   * Shows a result buffered earlier, e.g. by the query result cache. The rows are only read, so
+   * several cursors may show the same result at once.
+   *
+   * @param sharedRows rows of the result
+   * @param columnNames labels of the result columns
+   */
+  void setSharedRows(RowStore sharedRows, String[] columnNames) {
+    resetMode();
+    cursor = -1;
+    // the own rows may no longer match the layout of the last query
+    lastQuery = null;
+    columns.update(columnNames);
+    columnCount = columns.getCount();
+    rows = sharedRows;
+  }
+
+  /**
+   * Switches this cursor to streaming mode over the given result set. Rows are read lazily on every
+   * {@link #next()} call instead of being buffered, so only the current row is held in memory.
+   *
+   * @param resultSetRef result set to stream, positioned before the first row
+   * @param statement statement owned by this cursor that is closed together with the result set, or
+   *     {@code null} if the statement is owned by someone else
+   * @param sql query that produced the result set, used to compute {@link #getCount()} on demand;
+   *     {@code null} if the count is not supported
+   */
+  public void setStreamingCursor(ResultSet resultSetRef, Statement statement, String sql) {
+    setStreamingCursor(resultSetRef, statement, sql, null);
+  }
+
+  /**
+   * Like {@link #setStreamingCursor(ResultSet, Statement, String)}, and runs {@code release} once
+   * the result set is closed, e.g. to hand back the connection it is read from.
+   */
+  void setStreamingCursor(
+      ResultSet resultSetRef, Statement statement, String sql, Runnable release) {
+    resetMode();
+    rows.clear();
+    lastQuery = null;
+    cursor = -1;
+    resultSet = resultSetRef;
+    ownedStatement = statement;
+    this.release = release;
+    try {
+      readColumnNames(resultSetRef.getMetaData());
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error reading the result metadata", e);
+      releaseResources();
+      throw new SQLiteGdxRuntimeException(e);
+    }
+    streaming = true;
+    countSql = sql;
+  }
+
+  /**
+   * Switches this cursor to windowed mode over the given query. Only {@code windowSize} rows are
+   * buffered at a time; moving outside the current window re-runs the query with {@code LIMIT} and
+   * {@code OFFSET} to fetch the window holding the requested row. The query should have a
+   * deterministic {@code ORDER BY}, and rows written between window fetches may shift the result.
+   *
+   * @param connection connection to run the window and count queries on
+   * @param sql query to page through. The SQL string must not be ; terminated
+   * @param windowSize number of rows buffered per window
+   * @throws SQLException if the query cannot be prepared or the first window cannot be read
+   */
+  public void setWindowedCursor(Connection connection, String sql, int windowSize)
+      throws SQLException {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+    }
+    resetMode();
+    lastQuery = null;
+    cursor = -1;
+    windowStatement = connection.prepareStatement("SELECT * FROM (" + sql + ") LIMIT ? OFFSET ?");
+    windowed = true;
+    countSql = sql;
+    this.windowSize = windowSize;
+    loadWindow(0, false);
+  }
+
+  /**
+   * Configures how much row storage this cursor keeps when it is reused for another query. Storage
+   * for up to {@code highWaterMark} rows is always kept. Larger storage, grown for a big result, is
+   * released once {@code trimAfterQueries} consecutive results fit below the high-water mark.
+   *
+   * @param highWaterMark number of rows worth of storage that is always kept
+   * @param trimAfterQueries number of consecutive smaller results before larger storage is released
+   */
+  public void setRecyclePolicy(int highWaterMark, int trimAfterQueries) {
+    ownRows.setRecyclePolicy(highWaterMark, trimAfterQueries);
+  }
+
+  /**
+   * Selects where buffered rows are kept. Off-heap storage keeps large results out of the reach of
+   * the garbage collector and frees them on {@link #close()}; reading text and blobs from it costs
+   * a decode per call. Changing the storage discards the current result, so select it before
+   * passing the cursor to {@link com.badlogic.gdx.sqlite.Database#rawQuery(DatabaseCursor,
+   * String)} or {@link com.badlogic.gdx.sqlite.PreparedStatement#executeQuery(DatabaseCursor)}.
+   * The recycle policy is reset to its default.
+   *
+   * @param storage the storage for buffered rows
+   */
+  public void setStorage(Storage storage) {
+    if (storage == null) {
+      throw new IllegalArgumentException("storage must not be null");
+    }
+    if (storage == this.storage) {
+      return;
+    }
+    resetMode();
+    ownRows.release();
+    ownRows =
+        storage == Storage.HEAP
+            ? new ColumnarRowStore()
+            : new OffHeapRowStore(storage == Storage.MAPPED_FILE);
+    rows = ownRows;
+    this.storage = storage;
+    lastQuery = null;
+    cursor = -1;
+  }
+
+  public Storage getStorage() {
+    return storage;
+  }
+
+  /** Releases row storage beyond what the current result needs. */
+  public void trimToSize() {
+    ownRows.trim(0);
+  }
+
+  /** Returns whether the column labels differ from those of the previous result. */
+  private boolean readColumnNames(ResultSetMetaData meta) throws SQLException {
+    boolean changed = columns.update(meta);
+    columnCount = columns.getCount();
+    return changed;
+  }
+
+  private ResultSet streamingRow(int zeroBasedColumn) {
+    checkOpen();
+    if (cursor < 0 || exhausted) {
+      throw new SQLiteGdxRuntimeException(new SQLException("Cursor not on a valid row: " + cursor));
+    }
+    checkColumn(zeroBasedColumn);
+    return resultSet;
+  }
+
+  private boolean nextWindowed() {
+    int next = cursor + 1;
+    if (next - windowStart >= rows.getRowCount()) {
+      // a window shorter than windowSize is the last one
+      if (rows.getRowCount() < windowSize) {
+        return false;
       }
-      while (resultSetRef.next()) {
-        Object[] row = new Object[columnCount];
-        for (int i = 1; i <= columnCount; i++) {
-          row[i - 1] = resultSetRef.getObject(i);
-        }
-        rows.add(row);
+      loadWindow(next, true);
+      if (rows.getRowCount() == 0) {
+        return false;
       }
+    }
+    cursor = next;
+    return true;
+  }
+
+  private void repositionWindow(int row) {
+    if (row < windowStart || row >= windowStart + rows.getRowCount()) {
+      if (row < 0 || row >= windowedCount()) {
+        throw new SQLiteGdxRuntimeException(
+            new SQLException("Row index out of bounds: " + row + " size=" + windowedCount()));
+      }
+      loadWindow(row - row % windowSize, true);
+    }
+    cursor = row;
+  }
+
+  private void loadWindow(int start, boolean sameLayout) {
+    try {
+      windowStatement.setInt(1, windowSize);
+      windowStatement.setInt(2, start);
+      try (ResultSet window = windowStatement.executeQuery()) {
+        ResultSetMetaData meta = window.getMetaData();
+        boolean changed = readColumnNames(meta);
+        rows.load(window, meta, sameLayout && !changed);
+      }
+      windowStart = start;
     } catch (SQLException e) {
-      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error buffering the results", e);
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error loading the cursor window", e);
       throw new SQLiteGdxRuntimeException(e);
     }
   }
 
-  private Object getCell(int zeroBasedColumn) {
-    if (cursor < 0 || cursor >= rows.size()) {
+  private int windowedCount() {
+    if (windowedCount < 0) {
+      if (rows.getRowCount() < windowSize) {
+        windowedCount = windowStart + rows.getRowCount();
+      } else {
+        windowedCount = countRows(windowStatement);
+      }
+    }
+    return windowedCount;
+  }
+
+  private int countRows(Statement owner) {
+    try (Statement countStatement = owner.getConnection().createStatement();
+        ResultSet countResult =
+            countStatement.executeQuery("SELECT COUNT(*) FROM (" + countSql + ")")) {
+      return countResult.next() ? countResult.getInt(1) : 0;
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error counting the result rows", e);
+      throw new SQLiteGdxRuntimeException(e);
+    }
+  }
+
+  private int streamingCount() {
+    if (streamingCount >= 0) {
+      return streamingCount;
+    }
+    if (countSql == null) {
+      throw new SQLiteGdxRuntimeException(
+          "getCount() is not supported by this streaming cursor; iterate with next() instead");
+    }
+    // The streaming result set is still open, so count on a separate statement.
+    try {
+      streamingCount = countRows(resultSet.getStatement());
+    } catch (SQLException e) {
+      throw new SQLiteGdxRuntimeException(e);
+    }
+    return streamingCount;
+  }
+
+  private void resetMode() {
+    releaseResources();
+    closed = false;
+    rows = ownRows;
+    streaming = false;
+    exhausted = false;
+    countSql = null;
+    streamingCount = -1;
+    windowed = false;
+    windowStart = 0;
+    windowedCount = -1;
+  }
+
+  private void releaseResources() {
+    try {
+      if (resultSet != null) {
+        resultSet.close();
+      }
+      if (ownedStatement != null) {
+        ownedStatement.close();
+      }
+      if (windowStatement != null) {
+        windowStatement.close();
+      }
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in closing the cursor", e);
+      throw new SQLiteGdxRuntimeException(e);
+    } finally {
+      resultSet = null;
+      ownedStatement = null;
+      windowStatement = null;
+      Runnable release = this.release;
+      this.release = null;
+      if (release != null) {
+        release.run();
+      }
+    }
+  }
+
+  private int bufferedRow(int zeroBasedColumn) {
+    checkOpen();
+    int row = cursor - windowStart;
+    if (row < 0 || row >= rows.getRowCount()) {
       throw new SQLiteGdxRuntimeException(new SQLException("Cursor not on a valid row: " + cursor));
     }
+    checkColumn(zeroBasedColumn);
+    return row;
+  }
+
+  /**
+   * Returns how many of the rows after the current one a bulk read copies straight from the
+   * buffer, or -1 if the rows are not all buffered and the read has to step through them.
+   */
+  private int bulkCount(int zeroBasedColumn, int capacity) {
+    checkOpen();
+    if (streaming || windowed) {
+      return -1;
+    }
+    checkColumn(zeroBasedColumn);
+    return Math.max(0, Math.min(capacity, rows.getRowCount() - cursor - 1));
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The cursor is closed");
+    }
+  }
+
+  private void checkColumn(int zeroBasedColumn) {
     if (zeroBasedColumn < 0 || zeroBasedColumn >= columnCount) {
       throw new SQLiteGdxRuntimeException(
           new SQLException(
               "Column index out of bounds: " + zeroBasedColumn + " count=" + columnCount));
     }
-    return rows.get(cursor)[zeroBasedColumn];
   }
 
   private int columnIndex(String columnName) {
     if (columnName == null) {
       throw new SQLiteGdxRuntimeException(new SQLException("Column name is null"));
     }
-    Integer idx = columnNameToIndex.get(columnName.toLowerCase());
-    if (idx == null) {
+    int idx = columns.indexOf(columnName);
+    if (idx < 0) {
       throw new SQLiteGdxRuntimeException(
-          new SQLException(
-              "Column not found: " + columnName + " available=" + columnNameToIndex.keySet()));
+          new SQLException("Column not found: " + columnName + " available=" + columns));
     }
     return idx;
   }
 
+  @Override
+  public int getColumnIndex(String columnName) {
+    return columnName != null ? columns.indexOf(columnName) : -1;
+  }
+
+  @Override
+  public int getColumnLayout() {
+    return columns.getLayout();
+  }
+
   @Override
   public byte[] getBlob(String columnName) {
-    Blob blob = (Blob) getCell(columnIndex(columnName));
-    try {
-      return blob.getBytes(1, (int) blob.length());
-    } catch (SQLException e) {
-      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in getting the blob", e);
-      throw new SQLiteGdxRuntimeException(e);
-    }
+    return getBlob(columnIndex(columnName));
   }
 
   @Override
   public double getDouble(String columnName) {
-    return ((Number) getCell(columnIndex(columnName))).doubleValue();
+    return getDouble(columnIndex(columnName));
   }
 
   @Override
   public float getFloat(String columnName) {
-    return ((Number) getCell(columnIndex(columnName))).floatValue();
+    return getFloat(columnIndex(columnName));
   }
 
   @Override
   public int getInt(String columnName) {
-    return ((Number) getCell(columnIndex(columnName))).intValue();
+    return getInt(columnIndex(columnName));
   }
 
   @Override
   public long getLong(String columnName) {
-    return ((Number) getCell(columnIndex(columnName))).longValue();
+    return getLong(columnIndex(columnName));
   }
 
   @Override
   public short getShort(String columnName) {
-    return ((Number) getCell(columnIndex(columnName))).shortValue();
+    return getShort(columnIndex(columnName));
   }
 
   @Override
   public String getString(String columnName) {
-    Object val = getCell(columnIndex(columnName));
-    return val != null ? val.toString() : null;
+    return getString(columnIndex(columnName));
   }
 }
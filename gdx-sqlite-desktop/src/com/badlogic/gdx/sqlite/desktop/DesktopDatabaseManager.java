@@ -1,17 +1,31 @@
 package com.badlogic.gdx.sqlite.desktop;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.CancellationToken;
+import com.badlogic.gdx.sqlite.CloseNotifier;
 import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCloseListener;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
 import com.badlogic.gdx.sqlite.DatabaseFactory;
 import com.badlogic.gdx.sqlite.DatabaseManager;
 import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.SQLiteGdxRuntimeException;
+import com.badlogic.gdx.sqlite.TableChangeListener;
+import com.badlogic.gdx.sqlite.TableChangeTracker;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectSet;
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+import org.sqlite.SQLiteCommitListener;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteUpdateListener;
 
 /**
  * @author M Rafay Aleem
@@ -29,13 +43,76 @@ public class DesktopDatabaseManager implements DatabaseManager {
 
     private Connection connection = null;
     private Statement stmt = null;
+    private final StatementCache statements = new StatementCache(StatementCache.DEFAULT_CAPACITY);
+
+    // WAL mode: read-only connections for rawQuery and a lock serializing use of the writer.
+    private int readerConnections = 0;
+    private ReaderPool readers = null;
+    private final ReentrantLock writer = new ReentrantLock();
+    // busy timeout of every connection, -1 keeps the configured or driver default
+    private int busyTimeout = -1;
+    // PRAGMA settings applied on open, null keeps the defaults
+    private DatabaseConfig config = null;
+    // in-memory mode: saves the database to the dbName file, null for a database on disk
+    private final MemoryPersistence persistence;
+    // interrupts queries run with a deadline or a cancellation token
+    private final QueryWatchdog watchdog = new QueryWatchdog();
+    // results of repeated queries, invalidated by the update and commit hooks of the writer
+    private final QueryCache queryCache = new QueryCache();
+    private final SQLiteUpdateListener cacheUpdates =
+        (type, database, table, rowId) -> {
+          if ("main".equals(database)) {
+            queryCache.written(table);
+          }
+        };
+    private final SQLiteCommitListener cacheCommits =
+        new SQLiteCommitListener() {
+          @Override
+          public void onCommit() {
+            queryCache.committed();
+          }
+
+          @Override
+          public void onRollback() {
+            queryCache.rolledBack();
+          }
+        };
+    // tables written by each transaction, reported to table change listeners by the same hooks
+    private final TableChangeTracker changes = new TableChangeTracker();
+    private boolean changeHooks = false;
+    // WITHOUT ROWID tables of the main schema, read again when its schema version changes
+    private ObjectSet<String> withoutRowid = null;
+    private int withoutRowidVersion = -1;
+    private final SQLiteUpdateListener changeUpdates =
+        (type, database, table, rowId) -> changes.written(table, rowId);
+    private final SQLiteCommitListener changeCommits =
+        new SQLiteCommitListener() {
+          @Override
+          public void onCommit() {
+            // schema changes commit without a reported row, and truncating deletes are noted by
+            // truncating(); reported by settleChanges() once the statement that committed has
+            // returned
+            changes.committed(true);
+          }
+
+          @Override
+          public void onRollback() {
+            changes.rolledBack();
+          }
+        };
+    private final CloseNotifier closeListeners = new CloseNotifier();
 
     private DesktopDatabase(
-        String dbName, int dbVersion, String dbOnCreateQuery, String dbOnUpgradeQuery) {
+        String dbName,
+        int dbVersion,
+        String dbOnCreateQuery,
+        String dbOnUpgradeQuery,
+        MemoryPersistence persistence) {
       this.dbName = dbName;
       this.dbVersion = dbVersion;
       this.dbOnCreateQuery = dbOnCreateQuery;
       this.dbOnUpgradeQuery = dbOnUpgradeQuery;
+      this.persistence = persistence;
     }
 
     @Override
@@ -57,17 +134,302 @@ public class DesktopDatabaseManager implements DatabaseManager {
         helper = new SQLiteDatabaseHelper(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
 
       try {
-        connection = DriverManager.getConnection("jdbc:sqlite:" + dbName);
+        String path = persistence != null ? ":memory:" : dbName;
+        connection = DriverManager.getConnection("jdbc:sqlite:" + path);
         stmt = connection.createStatement();
-        stmt.setQueryTimeout(30);
+        if (persistence != null) {
+          // before the pragmas, as the restore replaces the page size
+          persistence.open(stmt, writer);
+        }
+        if (config != null) {
+          for (String pragma : config.toPragmas(false)) {
+            stmt.execute(pragma);
+          }
+        }
+        if (busyTimeout() >= 0) {
+          DesktopDatabaseManager.setBusyTimeout(connection, busyTimeout());
+        }
         helper.onCreate(stmt);
+        if (config != null && config.isQueryOnly()) {
+          stmt.execute("PRAGMA query_only = ON");
+        }
+        if (readerConnections > 0) {
+          openReaders();
+        }
+        queryCache.setDeferSettle(readers != null);
+        listenForWrites();
+        listenForChanges();
+      } catch (SQLException e) {
+        throw new SQLiteGdxException(e);
+      }
+    }
+
+    private void openReaders() throws SQLException, SQLiteGdxException {
+      if (persistence != null
+          || dbName.isEmpty()
+          || dbName.contains(":memory:")
+          || dbName.contains("mode=memory")) {
+        Gdx.app.log(
+            DatabaseFactory.ERROR_TAG,
+            "In-memory databases cannot use write-ahead logging, keeping a single connection");
+        return;
+      }
+      String mode;
+      try (ResultSet result = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+        mode = result.next() ? result.getString(1) : null;
+      }
+      if (!"wal".equalsIgnoreCase(mode)) {
+        Gdx.app.log(
+            DatabaseFactory.ERROR_TAG,
+            "Write-ahead logging is not available, keeping a single connection in mode " + mode);
+        return;
+      }
+      readers = new ReaderPool("jdbc:sqlite:" + dbName, readerConnections);
+      if (config != null) {
+        for (String pragma : config.toPragmas(true)) {
+          readers.executeOnEach(pragma);
+        }
+      }
+      if (busyTimeout() >= 0) {
+        readers.setBusyTimeout(busyTimeout());
+      }
+    }
+
+    /** @return the busy timeout to apply, -1 to keep the driver default */
+    private int busyTimeout() {
+      if (busyTimeout >= 0) {
+        return busyTimeout;
+      }
+      Integer configured = config != null ? config.getBusyTimeout() : null;
+      return configured != null ? configured : -1;
+    }
+
+    @Override
+    public void configure(DatabaseConfig config) {
+      this.config = config != null ? config.copy() : null;
+    }
+
+    @Override
+    public void setBusyTimeout(int millis) throws SQLiteGdxException {
+      if (millis < 0) {
+        throw new IllegalArgumentException("Busy timeout must not be negative: " + millis);
+      }
+      busyTimeout = millis;
+      try {
+        if (stmt == null || stmt.isClosed()) {
+          return; // applied when the database is opened
+        }
+        lockWriter();
+        try {
+          DesktopDatabaseManager.setBusyTimeout(connection, millis);
+        } finally {
+          unlockWriter();
+        }
+        if (readers != null) {
+          readers.setBusyTimeout(millis);
+        }
       } catch (SQLException e) {
         throw new SQLiteGdxException(e);
       }
     }
 
+    /** Registers the query cache's hooks on the writer connection while the cache has a size. */
+    private void listenForWrites() {
+      if (!(connection instanceof SQLiteConnection)) {
+        return; // without the hooks writes cannot be noticed, so nothing is cached
+      }
+      boolean listen = queryCache.isRequested() && !isClosed();
+      if (listen == queryCache.isListening()) {
+        return;
+      }
+      SQLiteConnection sqlite = (SQLiteConnection) connection;
+      if (listen) {
+        sqlite.addUpdateListener(cacheUpdates);
+        sqlite.addCommitListener(cacheCommits);
+      } else {
+        sqlite.removeUpdateListener(cacheUpdates);
+        sqlite.removeCommitListener(cacheCommits);
+      }
+      queryCache.setListening(listen);
+    }
+
+    /** Registers the change tracker's hooks on the writer connection while it has listeners. */
+    private void listenForChanges() {
+      if (!(connection instanceof SQLiteConnection)) {
+        return;
+      }
+      boolean listen = changes.hasListeners() && !isClosed();
+      if (listen == changeHooks) {
+        return;
+      }
+      SQLiteConnection sqlite = (SQLiteConnection) connection;
+      if (listen) {
+        sqlite.addUpdateListener(changeUpdates);
+        sqlite.addCommitListener(changeCommits);
+      } else {
+        sqlite.removeUpdateListener(changeUpdates);
+        sqlite.removeCommitListener(changeCommits);
+      }
+      changeHooks = listen;
+    }
+
+    /**
+     * Reports the transactions this thread committed to the table change listeners. Called once
+     * the statement that committed has returned: the commit hook runs before other connections,
+     * such as the readers in WAL mode, see the commit.
+     */
+    private void settleChanges() {
+      if (changes.isSettling()) {
+        changes.settle(withoutRowidTables());
+      }
+    }
+
+    /**
+     * @return the WITHOUT ROWID tables of the main schema, whose writes the update hook does not
+     *     report; {@code null} if they could not be read
+     */
+    private synchronized ObjectSet<String> withoutRowidTables() {
+      try (Statement statement = connection.createStatement()) {
+        int version;
+        try (ResultSet result = statement.executeQuery("PRAGMA main.schema_version")) {
+          version = result.next() ? result.getInt(1) : -1;
+        }
+        if (version != withoutRowidVersion || withoutRowid == null) {
+          ObjectSet<String> tables = new ObjectSet<>();
+          try (ResultSet result =
+              statement.executeQuery(
+                  "SELECT tbl_name, sql FROM main.sqlite_master WHERE type = 'table'")) {
+            while (result.next()) {
+              if (SqlKind.isWithoutRowid(result.getString(2))) {
+                tables.add(result.getString(1).toLowerCase(Locale.ROOT));
+              }
+            }
+          }
+          withoutRowid = tables;
+          withoutRowidVersion = version;
+        }
+        return withoutRowid;
+      } catch (SQLException e) {
+        if (Gdx.app != null) {
+          Gdx.app.log(DatabaseFactory.ERROR_TAG, "Unable to read the WITHOUT ROWID tables", e);
+        }
+        return null;
+      }
+    }
+
+    @Override
+    public void addTableChangeListener(TableChangeListener listener) {
+      changes.addListener(listener);
+      listenForChanges();
+    }
+
+    @Override
+    public void removeTableChangeListener(TableChangeListener listener) {
+      changes.removeListener(listener);
+      listenForChanges();
+    }
+
+    @Override
+    public void addCloseListener(DatabaseCloseListener listener) {
+      closeListeners.addListener(listener);
+    }
+
+    @Override
+    public void removeCloseListener(DatabaseCloseListener listener) {
+      closeListeners.removeListener(listener);
+    }
+
+    private boolean isClosed() {
+      try {
+        return connection == null || connection.isClosed();
+      } catch (SQLException e) {
+        return true;
+      }
+    }
+
+    @Override
+    public void setQueryCacheSize(long maxBytes) {
+      queryCache.setMaxBytes(maxBytes);
+      listenForWrites();
+    }
+
+    @Override
+    public void clearQueryCache() {
+      queryCache.clear();
+    }
+
+    @Override
+    public long getQueryCacheHits() {
+      return queryCache.getHits();
+    }
+
+    @Override
+    public long getQueryCacheMisses() {
+      return queryCache.getMisses();
+    }
+
+    @Override
+    public long getQueryCacheEvictions() {
+      return queryCache.getEvictions();
+    }
+
+    @Override
+    public long getQueryCacheInvalidations() {
+      return queryCache.getInvalidations();
+    }
+
+    @Override
+    public long getQueryCacheBytes() {
+      return queryCache.getBytes();
+    }
+
+    @Override
+    public void enableWriteAheadLogging(int readerConnections) {
+      if (readerConnections < 0) {
+        throw new IllegalArgumentException(
+            "readerConnections must not be negative: " + readerConnections);
+      }
+      this.readerConnections = readerConnections;
+    }
+
+    @Override
+    public long getReaderAcquisitions() {
+      return readers != null ? readers.getAcquisitions() : 0;
+    }
+
+    @Override
+    public long getReaderWaitNanos() {
+      return readers != null ? readers.getWaitNanos() : 0;
+    }
+
+    @Override
+    public long getMaxReaderWaitNanos() {
+      return readers != null ? readers.getMaxWaitNanos() : 0;
+    }
+
     @Override
     public void closeDatabase() throws SQLiteGdxException {
+      closeListeners.closing(this);
+      if (persistence != null) {
+        persistence.close();
+      }
+      if (readers != null) {
+        readers.close();
+        readers = null;
+      }
+      statements.clear();
+      if (queryCache.isListening()) {
+        SQLiteConnection sqlite = (SQLiteConnection) connection;
+        sqlite.removeUpdateListener(cacheUpdates);
+        sqlite.removeCommitListener(cacheCommits);
+        queryCache.setListening(false);
+      }
+      if (changeHooks) {
+        SQLiteConnection sqlite = (SQLiteConnection) connection;
+        sqlite.removeUpdateListener(changeUpdates);
+        sqlite.removeCommitListener(changeCommits);
+        changeHooks = false;
+      }
       try {
         if (stmt != null) {
           stmt.close();
@@ -82,19 +444,43 @@ public class DesktopDatabaseManager implements DatabaseManager {
 
     @Override
     public void execSQL(String sql) throws SQLiteGdxException {
+      lockWriter();
       try {
+        if (SqlKind.isTruncatingDelete(sql)) {
+          truncating();
+        }
         stmt.executeUpdate(sql);
+        readConnectionSchema(sql);
       } catch (SQLException e) {
         throw new SQLiteGdxException(e);
+      } finally {
+        unlockWriter();
       }
     }
 
     @Override
     public DatabaseCursor rawQuery(String sql) throws SQLiteGdxException {
-      DesktopCursor lCursor = new DesktopCursor();
+      return rawQuery(new DesktopCursor(), sql, 0, null);
+    }
+
+    @Override
+    public DatabaseCursor rawQuery(DatabaseCursor cursor, String sql) throws SQLiteGdxException {
+      return rawQuery(cursor, sql, 0, null);
+    }
+
+    @Override
+    public DatabaseCursor rawQuery(String sql, long timeoutMillis, CancellationToken token)
+        throws SQLiteGdxException {
+      return rawQuery(new DesktopCursor(), sql, timeoutMillis, token);
+    }
+
+    @Override
+    public DatabaseCursor rawQuery(
+        DatabaseCursor cursor, String sql, long timeoutMillis, CancellationToken token)
+        throws SQLiteGdxException {
+      DesktopCursor lCursor = (DesktopCursor) cursor;
       try {
-        ResultSet resultSetRef = stmt.executeQuery(sql);
-        lCursor.setNativeCursor(resultSetRef);
+        query(lCursor, sql, timeoutMillis, token);
         return lCursor;
       } catch (SQLException e) {
         throw new SQLiteGdxException(e);
@@ -102,34 +488,246 @@ public class DesktopDatabaseManager implements DatabaseManager {
     }
 
     @Override
-    public DatabaseCursor rawQuery(DatabaseCursor cursor, String sql) throws SQLiteGdxException {
-      DesktopCursor lCursor = (DesktopCursor) cursor;
+    public long getQueryTimeouts() {
+      return watchdog.getTimeouts();
+    }
+
+    @Override
+    public long getQueryCancellations() {
+      return watchdog.getCancellations();
+    }
+
+    /**
+     * Buffers the result of the query into the cursor, or shows the cached result. In WAL mode a
+     * plain query runs on a reader connection unless the calling thread holds a transaction, which
+     * has to see its own changes. Everything else runs on the writer: {@code PRAGMA}s read and set
+     * the state of the writer connection, other statements may write, and once the writer has TEMP
+     * tables or attached databases, queries may read them and the readers cannot see them.
+     */
+    private void query(
+        DesktopCursor cursor, String sql, long timeoutMillis, CancellationToken token)
+        throws SQLException, SQLiteGdxException {
+      boolean cached = queryCache.isEnabled() && (token == null || !token.isCancelled());
+      if (cached) {
+        QueryCache.Entry entry = queryCache.get(sql);
+        if (entry != null) {
+          cursor.setSharedRows(entry.rows, entry.columns);
+          return;
+        }
+      }
+      boolean truncates = SqlKind.isTruncatingDelete(sql);
+      if (readers == null || writer.isHeldByCurrentThread()) {
+        if (truncates) {
+          truncating();
+        }
+        load(cursor, stmt, sql, cached, timeoutMillis, token);
+        readConnectionSchema(sql);
+        settleChanges();
+        return;
+      }
+      if (readers.isWriterOnly() || !SqlKind.isPlainRead(sql)) {
+        lockWriter();
+        try {
+          if (truncates) {
+            truncating();
+          }
+          load(cursor, stmt, sql, cached, timeoutMillis, token);
+          readConnectionSchema(sql);
+        } finally {
+          unlockWriter();
+        }
+        return;
+      }
+      if (cached && !writer.isLocked()) {
+        // every commit whose hook ran has completed and is visible to the readers
+        queryCache.settle();
+      }
+      ReaderPool.Reader reader = readers.acquire();
+      try {
+        load(cursor, reader.statement, sql, cached, timeoutMillis, token);
+      } finally {
+        readers.release(reader);
+      }
+    }
+
+    private void load(
+        DesktopCursor cursor,
+        Statement statement,
+        String sql,
+        boolean cached,
+        long timeoutMillis,
+        CancellationToken token)
+        throws SQLException, SQLiteGdxException {
+      String[] tables = cached ? queryCache.tablesOf(statement.getConnection(), sql) : null;
+      long version = queryCache.version();
+      QueryWatchdog.Guard guard = watchdog.start(statement, timeoutMillis, token, sql);
+      // closing the result ends the read transaction, so the WAL can be checkpointed
+      try (ResultSet resultSetRef = statement.executeQuery(sql)) {
+        if (tables != null) {
+          QueryCache.Entry entry = queryCache.load(sql, tables, resultSetRef, version);
+          cursor.setSharedRows(entry.rows, entry.columns);
+        } else {
+          cursor.setNativeCursor(resultSetRef, sql);
+        }
+      } catch (SQLException | SQLiteGdxRuntimeException e) {
+        QueryWatchdog.throwIfInterrupted(guard, e);
+        throw e;
+      } finally {
+        QueryWatchdog.finish(guard);
+      }
+    }
+
+    /**
+     * Notes a statement about to run on the writer that SQLite may run by emptying a table without
+     * reporting its rows to the update hook, see {@link SqlKind#isTruncatingDelete(String)}.
+     */
+    private void truncating() {
+      if (queryCache.isListening()) {
+        queryCache.truncating();
+      }
+      if (changeHooks) {
+        // the emptied table is not known, so the commit is reported as a change to every table
+        changes.written(null);
+      }
+    }
+
+    /** Notes a statement that ran on the writer and made tables the readers cannot see. */
+    private void readConnectionSchema(String sql) {
+      if (readers != null && !readers.isWriterOnly() && SqlKind.isConnectionSchema(sql)) {
+        readers.setWriterOnly();
+      }
+    }
+
+    private void lockWriter() {
+      // in-memory mode: saves copy the database between transactions
+      if (readers != null || persistence != null) {
+        writer.lock();
+      }
+    }
+
+    private void unlockWriter() {
       try {
-        ResultSet resultSetRef = stmt.executeQuery(sql);
-        lCursor.setNativeCursor(resultSetRef);
+        settleChanges();
+      } finally {
+        if (writer.isHeldByCurrentThread()) {
+          writer.unlock();
+          if (!writer.isHeldByCurrentThread()) {
+            // the writes of this thread have completed, readers see them from now on
+            queryCache.settle();
+          }
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>In WAL mode a plain query keeps a reader connection until the cursor is closed, so writes
+     * do not wait for it; other queries wait while every reader is kept this way. Otherwise the
+     * query runs on the writer, and in WAL and in-memory mode the cursor holds the writer lock
+     * until it is closed, which has to happen on the thread that opened it.
+     */
+    @Override
+    public DatabaseCursor rawQueryStreaming(String sql) throws SQLiteGdxException {
+      if (readers != null
+          && !readers.isWriterOnly()
+          && !writer.isHeldByCurrentThread()
+          && SqlKind.isPlainRead(sql)) {
+        ReaderPool.Reader reader = readers.acquire();
+        return stream(reader.connection, sql, () -> readers.release(reader));
+      }
+      lockWriter();
+      if (SqlKind.isTruncatingDelete(sql)) {
+        truncating();
+      }
+      DatabaseCursor cursor = stream(connection, sql, this::unlockWriter);
+      readConnectionSchema(sql);
+      return cursor;
+    }
+
+    /**
+     * Runs the query on the connection and returns a cursor streaming its result.
+     *
+     * @param release run once the cursor is closed, or right away if the query fails
+     */
+    private DatabaseCursor stream(Connection on, String sql, Runnable release)
+        throws SQLiteGdxException {
+      // A dedicated statement keeps the result set open while the shared one is reused.
+      Statement streamingStmt = null;
+      try {
+        streamingStmt = on.createStatement();
+        ResultSet resultSetRef = streamingStmt.executeQuery(sql);
+        DesktopCursor lCursor = new DesktopCursor();
+        lCursor.setStreamingCursor(resultSetRef, streamingStmt, sql, release);
         return lCursor;
       } catch (SQLException e) {
+        closeQuietly(streamingStmt);
+        release.run();
+        throw new SQLiteGdxException(e);
+      }
+    }
+
+    @Override
+    public DatabaseCursor rawQueryWindowed(String sql, int windowSize) throws SQLiteGdxException {
+      DesktopCursor lCursor = new DesktopCursor();
+      try {
+        lCursor.setWindowedCursor(connection, sql, windowSize);
+        return lCursor;
+      } catch (SQLException | SQLiteGdxRuntimeException e) {
+        // loading the first window reports its failure unchecked
+        lCursor.close();
         throw new SQLiteGdxException(e);
       }
     }
 
     @Override
     public PreparedStatement getPreparedStatement(String query) throws SQLiteGdxException {
+      PreparedStatement cached = statements.take(query);
+      if (cached != null) {
+        return cached;
+      }
       try {
         java.sql.PreparedStatement _statement = connection.prepareStatement(query);
-        _statement.setQueryTimeout(3);
-        return new PreparedStatement(_statement);
+        readConnectionSchema(query);
+        return new PreparedStatement(
+            _statement,
+            statements,
+            query,
+            readers != null || persistence != null ? writer : null,
+            readers != null && SqlKind.isPlainRead(query) ? readers : null,
+            watchdog,
+            queryCache,
+            this::settleChanges,
+            SqlKind.isTruncatingDelete(query) ? this::truncating : null);
       } catch (SQLException e) {
         throw new SQLiteGdxException(
             "There was an error in getting the prepared statement for query : " + query, e);
       }
     }
 
+    @Override
+    public void setStatementCacheSize(int size) {
+      statements.setCapacity(size);
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+      return statements.getHits();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+      return statements.getMisses();
+    }
+
     @Override
     public void beginTransaction() throws SQLiteGdxException {
+      // in WAL or in-memory mode the transaction holds the writer until endTransaction()
+      lockWriter();
       try {
         connection.setAutoCommit(false);
       } catch (SQLException e) {
+        unlockWriter();
         throw new SQLiteGdxException("Error when begining transaction", e);
       }
     }
@@ -141,14 +739,21 @@ public class DesktopDatabaseManager implements DatabaseManager {
       } catch (SQLException e) {
         throw new SQLiteGdxException("Can't commit batch to database", e);
       }
+      settleChanges();
     }
 
     @Override
     public void endTransaction() throws SQLiteGdxException {
       try {
-        connection.setAutoCommit(false);
+        // setTransactionSuccessful() already committed, anything after it is rolled back
+        if (!connection.getAutoCommit()) {
+          connection.rollback();
+          connection.setAutoCommit(true);
+        }
       } catch (SQLException e) {
         throw new SQLiteGdxException("Error when ending transaction", e);
+      } finally {
+        unlockWriter();
       }
     }
 
@@ -162,9 +767,61 @@ public class DesktopDatabaseManager implements DatabaseManager {
     }
   }
 
+  private static void closeQuietly(Statement statement) {
+    if (statement == null) {
+      return;
+    }
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in closing the statement", e);
+    }
+  }
+
+  /**
+   * Sets the busy timeout of a connection through the driver. sqlite-jdbc puts its own value back
+   * after statements with a query timeout, which would undo a {@code PRAGMA busy_timeout}.
+   */
+  static void setBusyTimeout(Connection connection, int millis) throws SQLException {
+    if (connection instanceof SQLiteConnection) {
+      ((SQLiteConnection) connection).setBusyTimeout(millis);
+      return;
+    }
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA busy_timeout = " + millis);
+    }
+  }
+
   @Override
   public Database getNewDatabase(
       String dbName, int dbVersion, String dbOnCreateQuery, String dbOnUpgradeQuery) {
-    return new DesktopDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
+    return new DesktopDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery, null);
+  }
+
+  /**
+   * Returns a database that works in memory and is saved to the file {@code dbName} in the
+   * background. Opening it loads the file, if it exists, with SQLite's online backup. Each commit
+   * is saved at most {@code maxDataLossMillis} later, together with the commits made in the
+   * meantime, so a crash or power failure loses at most that window of commits; the file always
+   * holds a complete committed state. {@link Database#closeDatabase()} saves the last commits and
+   * returns once they are on disk, so the file can be opened again right away.
+   *
+   * <p>Reads and writes never wait for the disk, which suits databases that are written often and
+   * fit in memory, such as game state. A save briefly holds up writes while it copies the
+   * database in memory; the file is written on a background thread. Write-ahead logging is not
+   * available and {@link DatabaseConfig} settings apply to the in-memory database. Only one
+   * database may use the file at a time.
+   *
+   * @param dbName path of the file the database is loaded from and saved to
+   * @param maxDataLossMillis longest time a commit waits to be saved, at least 1
+   */
+  public Database getNewInMemoryDatabase(
+      String dbName,
+      int dbVersion,
+      String dbOnCreateQuery,
+      String dbOnUpgradeQuery,
+      long maxDataLossMillis) {
+    MemoryPersistence persistence = new MemoryPersistence(new File(dbName), maxDataLossMillis);
+    return new DesktopDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery, persistence);
   }
 }
@@ -0,0 +1,228 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import org.sqlite.SQLiteCommitListener;
+import org.sqlite.SQLiteConnection;
+
+/**
+ * Keeps the in-memory database of {@link DesktopDatabaseManager#getNewInMemoryDatabase} on disk.
+ * The file is restored into the empty in-memory database with SQLite's online backup when it is
+ * opened. Afterwards every commit schedules a save, at most the data loss window later; commits
+ * made in between are saved together.
+ *
+ * <p>A save copies the database into a byte array with {@code sqlite3_serialize} while holding the
+ * writer lock, which only waits for an open transaction to end and takes as long as copying the
+ * database in memory. The copy is written to a temporary file on a background thread, synced and
+ * renamed over the database file, so the file always holds a complete committed state. A backup in
+ * page steps is not used for saving: the driver keeps the connection locked for the whole backup,
+ * and every commit to an in-memory source restarts it.
+ */
+final class MemoryPersistence {
+
+  private final File file;
+  private final long maxDataLossMillis;
+
+  private SQLiteConnection connection = null;
+  private Lock writer = null;
+  private ScheduledThreadPoolExecutor executor = null;
+  private final SQLiteCommitListener commits =
+      new SQLiteCommitListener() {
+        @Override
+        public void onCommit() {
+          changed();
+        }
+
+        @Override
+        public void onRollback() {}
+      };
+
+  // guarded by this: whether a commit is not in a snapshot yet, and the save scheduled for it
+  private boolean dirty = false;
+  private ScheduledFuture<?> pending = null;
+  // guarded by the writer lock
+  private boolean closed = true;
+  private long snapshots = 0;
+  // guarded by file: number of the newest snapshot on disk
+  private long written = 0;
+
+  /**
+   * @param file file the database is loaded from and saved to
+   * @param maxDataLossMillis longest time a commit waits to be saved
+   */
+  MemoryPersistence(File file, long maxDataLossMillis) {
+    if (maxDataLossMillis < 1) {
+      throw new IllegalArgumentException(
+          "The data loss window must be at least 1 ms: " + maxDataLossMillis);
+    }
+    this.file = file;
+    this.maxDataLossMillis = maxDataLossMillis;
+  }
+
+  /**
+   * Restores the file, if it exists, into the newly opened in-memory database and starts saving
+   * its commits.
+   *
+   * @param statement statement of the in-memory connection
+   * @param writer lock held by every write and transaction on the connection
+   */
+  void open(Statement statement, Lock writer) throws SQLException {
+    if (!(statement.getConnection() instanceof SQLiteConnection)) {
+      throw new SQLException("In-memory persistence needs the sqlite-jdbc driver");
+    }
+    boolean exists = file.exists();
+    if (exists) {
+      // the driver runs the online backup API for this command
+      statement.executeUpdate("restore from " + quote(file.getPath()));
+    }
+    connection = (SQLiteConnection) statement.getConnection();
+    this.writer = writer;
+    executor =
+        new ScheduledThreadPoolExecutor(
+            1,
+            task -> {
+              Thread thread = new Thread(task, "gdx-sqlite-persistence");
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.setRemoveOnCancelPolicy(true);
+    closed = false;
+    connection.addCommitListener(commits);
+    if (!exists) {
+      changed(); // creates the file even if nothing is written
+    }
+  }
+
+  /**
+   * Stops the saves and saves the last commits. Returns once the file holds the last commit, so
+   * that the database can be opened again right away. Call before closing the connection, from a
+   * thread that holds no transaction.
+   */
+  void close() {
+    if (executor == null) {
+      return; // never opened
+    }
+    byte[] image = null;
+    long number = 0;
+    writer.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      connection.removeCommitListener(commits);
+      synchronized (this) {
+        if (pending != null) {
+          pending.cancel(false);
+          pending = null;
+        }
+        if (dirty) {
+          dirty = false;
+          image = connection.serialize("main");
+          number = ++snapshots;
+        }
+      }
+    } catch (SQLException e) {
+      log("There was an error in saving the in-memory database to " + file, e);
+    } finally {
+      writer.unlock();
+      executor.shutdown();
+    }
+    // a save that started before may still be writing the snapshot of the last commit
+    boolean terminated = false;
+    boolean interrupted = false;
+    while (!terminated) {
+      try {
+        terminated = executor.awaitTermination(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (image != null) {
+      write(number, image);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private synchronized void changed() {
+    dirty = true;
+    if (pending == null && executor != null && !executor.isShutdown()) {
+      pending = executor.schedule(this::save, maxDataLossMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void save() {
+    byte[] image;
+    long number;
+    writer.lock();
+    try {
+      synchronized (this) {
+        pending = null;
+        if (closed || !dirty) {
+          return;
+        }
+        dirty = false;
+      }
+      image = connection.serialize("main");
+      number = ++snapshots;
+    } catch (SQLException e) {
+      log("There was an error in copying the in-memory database", e);
+      changed(); // try again after another window
+      return;
+    } finally {
+      writer.unlock();
+    }
+    if (!write(number, image)) {
+      changed();
+    }
+  }
+
+  /** Replaces the file with the snapshot, unless a newer one was written already. */
+  private boolean write(long number, byte[] image) {
+    synchronized (file) {
+      if (number <= written) {
+        return true;
+      }
+      File temp = new File(file.getPath() + ".tmp");
+      try {
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+          out.write(image);
+          out.getFD().sync();
+        }
+        Files.move(
+            temp.toPath(),
+            file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        written = number;
+        return true;
+      } catch (IOException e) {
+        log("There was an error in saving the in-memory database to " + file, e);
+        return false;
+      }
+    }
+  }
+
+  private static String quote(String path) {
+    return path.indexOf('"') < 0 ? '"' + path + '"' : '\'' + path + '\'';
+  }
+
+  private static void log(String message, Exception e) {
+    if (Gdx.app != null) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, message, e);
+    }
+  }
+}
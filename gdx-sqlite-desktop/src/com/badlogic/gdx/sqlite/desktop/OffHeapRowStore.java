@@ -0,0 +1,432 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Row oriented buffer that keeps a result outside the Java heap, either in a direct {@link
+ * ByteBuffer} or in a memory-mapped temporary file. The garbage collector only sees a handful of
+ * buffer objects, however many rows are buffered, and the memory is returned as soon as {@link
+ * #release()} is called instead of when the buffers are collected.
+ *
+ * <p>Every row starts with a fixed header of one 9 byte cell per column: a tag byte followed by
+ * either the value itself (integers and reals) or the offset and length of the value in the
+ * variable part of the row (text as UTF-8 and blobs). A separate buffer holds the start offset of
+ * every row. Getters decode straight from the buffer; only text and blob getters allocate their
+ * result.
+ *
+ * <p>A single buffer is limited to 2 GB, which bounds the size of a result held by this store.
+ */
+final class OffHeapRowStore implements RowStore {
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_LONG = 1;
+  private static final byte TAG_DOUBLE = 2;
+  private static final byte TAG_TEXT = 3;
+  private static final byte TAG_BLOB = 4;
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private static final int CELL_SIZE = 9;
+  private static final int INITIAL_ROWS = 16;
+  private static final int INITIAL_BYTES = 64 * 1024;
+  private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+  // Releasing direct and mapped buffers explicitly is not part of the public API: Java 9+ exposes
+  // it as Unsafe.invokeCleaner, Java 8 through the buffer's internal Cleaner.
+  private static final Object UNSAFE;
+  private static final Method INVOKE_CLEANER;
+  private static final Method CLEANER;
+  private static final Method CLEAN;
+
+  static {
+    Object unsafe = null;
+    Method invokeCleaner = null;
+    Method cleaner = null;
+    Method clean = null;
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      unsafe = theUnsafe.get(null);
+    } catch (Exception e) {
+      invokeCleaner = null;
+      try {
+        cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+      } catch (Exception e2) {
+        // neither is available: buffers are freed when they are garbage collected
+        cleaner = null;
+      }
+    }
+    UNSAFE = unsafe;
+    INVOKE_CLEANER = invokeCleaner;
+    CLEANER = cleaner;
+    CLEAN = clean;
+  }
+
+  private final boolean mapped;
+  private File file = null;
+  private FileChannel channel = null;
+
+  private ByteBuffer data = null; // row headers and values
+  private ByteBuffer offsets = null; // start of every row in data, one int per row
+  private int dataUsed = 0;
+  private int rowCapacity = 0;
+
+  private int columnCount = 0;
+  private int rowCount = 0;
+  private byte[] scratch = new byte[64];
+  private final CellTypes cellTypes = new CellTypes();
+
+  private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+  private int trimAfterLoads = DEFAULT_TRIM_AFTER_LOADS;
+  private int loadsBelowMark = 0;
+
+  /**
+   * @param mapped {@code true} to back the rows with a memory-mapped temporary file instead of
+   *     direct memory, which lets the operating system page out results larger than physical memory
+   */
+  OffHeapRowStore(boolean mapped) {
+    this.mapped = mapped;
+  }
+
+  @Override
+  public void load(ResultSet resultSet, ResultSetMetaData meta, boolean sameLayout)
+      throws SQLException {
+    clear();
+    columnCount = meta.getColumnCount();
+    boolean typed = cellTypes.attach(resultSet);
+    while (resultSet.next()) {
+      readRow(resultSet, typed);
+    }
+    recycle();
+  }
+
+  @Override
+  public void setRecyclePolicy(int highWaterMark, int trimAfterLoads) {
+    if (highWaterMark < 0 || trimAfterLoads < 1) {
+      throw new IllegalArgumentException(
+          "Invalid recycle policy: highWaterMark="
+              + highWaterMark
+              + " trimAfterLoads="
+              + trimAfterLoads);
+    }
+    this.highWaterMark = highWaterMark;
+    this.trimAfterLoads = trimAfterLoads;
+    loadsBelowMark = 0;
+  }
+
+  @Override
+  public void trim(int rows) {
+    if (data == null) return;
+    int keepRows = Math.max(Math.max(rows, rowCount), INITIAL_ROWS);
+    // estimate the bytes needed for keepRows from the rows currently held
+    long rowBytes = rowCount > 0 ? dataUsed / rowCount : (long) columnCount * CELL_SIZE;
+    long keepBytes = Math.max(Math.max(keepRows * rowBytes, dataUsed), INITIAL_BYTES);
+    try {
+      if (keepRows < rowCapacity) {
+        offsets = reallocate(offsets, keepRows * 4L, rowCount * 4, false);
+        rowCapacity = keepRows;
+      }
+      if (keepBytes < data.capacity()) {
+        data = reallocate(data, keepBytes, dataUsed, mapped);
+      }
+    } catch (SQLException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error shrinking the row store", e);
+    }
+  }
+
+  @Override
+  public void clear() {
+    rowCount = 0;
+    dataUsed = 0;
+  }
+
+  @Override
+  public void release() {
+    clear();
+    free(data);
+    free(offsets);
+    data = null;
+    offsets = null;
+    rowCapacity = 0;
+    loadsBelowMark = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error closing the row store file", e);
+      }
+      channel = null;
+    }
+    if (file != null) {
+      if (!file.delete()) {
+        file.deleteOnExit();
+      }
+      file = null;
+    }
+  }
+
+  @Override
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  @Override
+  public int getColumnCount() {
+    return columnCount;
+  }
+
+  @Override
+  public boolean isNull(int row, int column) {
+    return data.get(cell(row, column)) == TAG_NULL;
+  }
+
+  @Override
+  public long getLong(int row, int column) {
+    int cell = cell(row, column);
+    switch (data.get(cell)) {
+      case TAG_LONG:
+        return data.getLong(cell + 1);
+      case TAG_DOUBLE:
+        return (long) data.getDouble(cell + 1);
+      case TAG_TEXT:
+        return RowStore.parseLong(decode(row, cell));
+      default:
+        return 0L;
+    }
+  }
+
+  @Override
+  public double getDouble(int row, int column) {
+    int cell = cell(row, column);
+    switch (data.get(cell)) {
+      case TAG_LONG:
+        return data.getLong(cell + 1);
+      case TAG_DOUBLE:
+        return data.getDouble(cell + 1);
+      case TAG_TEXT:
+        return RowStore.parseDouble(decode(row, cell));
+      default:
+        return 0d;
+    }
+  }
+
+  @Override
+  public String getString(int row, int column) {
+    int cell = cell(row, column);
+    switch (data.get(cell)) {
+      case TAG_NULL:
+        return null;
+      case TAG_LONG:
+        return Long.toString(data.getLong(cell + 1));
+      case TAG_DOUBLE:
+        return Double.toString(data.getDouble(cell + 1));
+      default:
+        return decode(row, cell);
+    }
+  }
+
+  @Override
+  public byte[] getBlob(int row, int column) {
+    int cell = cell(row, column);
+    switch (data.get(cell)) {
+      case TAG_NULL:
+        return null;
+      case TAG_LONG:
+      case TAG_DOUBLE:
+        return getString(row, column).getBytes(StandardCharsets.UTF_8);
+      default:
+        byte[] bytes = new byte[data.getInt(cell + 5)];
+        copy(offsets.getInt(row * 4) + data.getInt(cell + 1), bytes);
+        return bytes;
+    }
+  }
+
+  private int cell(int row, int column) {
+    return offsets.getInt(row * 4) + column * CELL_SIZE;
+  }
+
+  private String decode(int row, int cell) {
+    int length = data.getInt(cell + 5);
+    if (scratch.length < length) {
+      scratch = new byte[Math.max(length, scratch.length * 2)];
+    }
+    copy(offsets.getInt(row * 4) + data.getInt(cell + 1), scratch, length);
+    return new String(scratch, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private void copy(int position, byte[] dst) {
+    copy(position, dst, dst.length);
+  }
+
+  private void copy(int position, byte[] dst, int length) {
+    ByteBuffer view = data.duplicate();
+    ((Buffer) view).position(position);
+    view.get(dst, 0, length);
+  }
+
+  private void readRow(ResultSet resultSet, boolean typed) throws SQLException {
+    if (rowCount == rowCapacity) {
+      int newCapacity = Math.max(rowCapacity + (rowCapacity >> 1), INITIAL_ROWS);
+      offsets = reallocate(offsets, newCapacity * 4L, rowCount * 4, false);
+      rowCapacity = newCapacity;
+    }
+    int rowStart = dataUsed;
+    int headerSize = columnCount * CELL_SIZE;
+    ensureData((long) rowStart + headerSize);
+    dataUsed += headerSize;
+    offsets.putInt(rowCount * 4, rowStart);
+    for (int c = 0; c < columnCount; c++) {
+      // the declared type does not restrict the cell, so it is tagged with its storage class
+      int cell = rowStart + c * CELL_SIZE;
+      if (typed) {
+        putCell(cell, rowStart, resultSet, c + 1);
+      } else {
+        putValue(cell, rowStart, resultSet.getObject(c + 1));
+      }
+    }
+    rowCount++;
+  }
+
+  /** Stores a cell of a sqlite-jdbc result, read with the getter of its storage class. */
+  private void putCell(int cell, int rowStart, ResultSet resultSet, int jdbcColumn)
+      throws SQLException {
+    switch (cellTypes.of(jdbcColumn)) {
+      case CellTypes.INTEGER:
+        data.put(cell, TAG_LONG).putLong(cell + 1, resultSet.getLong(jdbcColumn));
+        break;
+      case CellTypes.FLOAT:
+        data.put(cell, TAG_DOUBLE).putDouble(cell + 1, resultSet.getDouble(jdbcColumn));
+        break;
+      case CellTypes.TEXT:
+        // the bytes of a text cell are its UTF-8 encoding
+        putBytes(cell, rowStart, TAG_TEXT, bytes(resultSet, jdbcColumn));
+        break;
+      case CellTypes.BLOB:
+        putBytes(cell, rowStart, TAG_BLOB, bytes(resultSet, jdbcColumn));
+        break;
+      default:
+        data.put(cell, TAG_NULL);
+        break;
+    }
+  }
+
+  private static byte[] bytes(ResultSet resultSet, int jdbcColumn) throws SQLException {
+    byte[] bytes = resultSet.getBytes(jdbcColumn);
+    // the cell is not NULL, so an empty value may come back as null
+    return bytes != null ? bytes : EMPTY;
+  }
+
+  /** Stores a cell of a result of another driver, which can only box it. */
+  private void putValue(int cell, int rowStart, Object value) throws SQLException {
+    if (value instanceof Double || value instanceof Float) {
+      data.put(cell, TAG_DOUBLE).putDouble(cell + 1, ((Number) value).doubleValue());
+    } else if (value instanceof Number) {
+      data.put(cell, TAG_LONG).putLong(cell + 1, ((Number) value).longValue());
+    } else if (value instanceof byte[]) {
+      putBytes(cell, rowStart, TAG_BLOB, (byte[]) value);
+    } else if (value != null) {
+      putBytes(cell, rowStart, TAG_TEXT, value.toString().getBytes(StandardCharsets.UTF_8));
+    } else {
+      data.put(cell, TAG_NULL);
+    }
+  }
+
+  private void putBytes(int cell, int rowStart, byte tag, byte[] bytes) throws SQLException {
+    if (bytes == null) {
+      data.put(cell, TAG_NULL);
+      return;
+    }
+    ensureData((long) dataUsed + bytes.length);
+    data.put(cell, tag).putInt(cell + 1, dataUsed - rowStart).putInt(cell + 5, bytes.length);
+    ByteBuffer view = data.duplicate();
+    ((Buffer) view).position(dataUsed);
+    view.put(bytes);
+    dataUsed += bytes.length;
+  }
+
+  private void ensureData(long required) throws SQLException {
+    int capacity = data != null ? data.capacity() : 0;
+    if (required <= capacity) return;
+    if (required > MAX_BUFFER_SIZE) {
+      throw new SQLException("Result exceeds the 2 GB limit of the off-heap row store");
+    }
+    long newCapacity = Math.max(Math.max(required, capacity + (capacity >> 1)), INITIAL_BYTES);
+    data = reallocate(data, Math.min(newCapacity, MAX_BUFFER_SIZE), dataUsed, mapped);
+  }
+
+  private void recycle() {
+    if (rowCapacity <= highWaterMark || rowCount > highWaterMark) {
+      loadsBelowMark = 0;
+      return;
+    }
+    if (++loadsBelowMark >= trimAfterLoads) {
+      trim(highWaterMark);
+      loadsBelowMark = 0;
+    }
+  }
+
+  /** Replaces {@code old} by a buffer of the given size holding its first {@code used} bytes. */
+  private ByteBuffer reallocate(ByteBuffer old, long size, int used, boolean fileBacked)
+      throws SQLException {
+    ByteBuffer buffer;
+    if (fileBacked) {
+      try {
+        if (channel == null) {
+          file = File.createTempFile("gdx-sqlite-rows", ".tmp");
+          file.deleteOnExit();
+          channel = new RandomAccessFile(file, "rw").getChannel();
+        }
+        if (channel.size() > size) {
+          // unmap first, some platforms cannot truncate a mapped file
+          free(old);
+          old = null;
+          channel.truncate(size);
+        }
+        // the file already holds the bytes, so a new mapping needs no copy
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      } catch (IOException e) {
+        throw new SQLException("Can't map the row store file", e);
+      }
+    } else {
+      buffer = ByteBuffer.allocateDirect((int) size);
+      if (old != null && used > 0) {
+        ByteBuffer view = old.duplicate();
+        ((Buffer) view).position(0).limit(used);
+        buffer.put(view);
+      }
+    }
+    free(old);
+    return buffer.order(ByteOrder.nativeOrder());
+  }
+
+  private static void free(ByteBuffer buffer) {
+    if (buffer == null || !buffer.isDirect()) return;
+    try {
+      if (INVOKE_CLEANER != null) {
+        INVOKE_CLEANER.invoke(UNSAFE, buffer);
+      } else if (CLEANER != null) {
+        Object cleaner = CLEANER.invoke(buffer);
+        if (cleaner != null) CLEAN.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "Can't free off-heap row storage", e);
+    }
+  }
+}
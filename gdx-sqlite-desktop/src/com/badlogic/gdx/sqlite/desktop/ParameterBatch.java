@@ -0,0 +1,179 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Parameter rows of a statement batch. The values bound to the statement are mirrored into typed
+ * arrays as they are set, without boxing, and {@link #add()} appends them as a row. Rows are bound
+ * back to the statement one at a time when the batch is executed.
+ */
+final class ParameterBatch {
+
+  private static final byte UNSET = 0;
+  private static final byte NULL = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte OBJECT = 4; // String or byte[]
+
+  // Parameters of the current row, indexed by zero-based parameter index.
+  private byte[] types = new byte[8];
+  private long[] longs = new long[8];
+  private double[] doubles = new double[8];
+  private Object[] objects = new Object[8];
+  private int width = 0;
+
+  // Rows added so far, row r spans [rowStart[r], rowStart[r + 1]) of the row arrays.
+  private int rowCount = 0;
+  private int[] rowStart = new int[17];
+  private byte[] rowTypes = new byte[0];
+  private long[] rowLongs = new long[0];
+  private double[] rowDoubles = new double[0];
+  private Object[] rowObjects = new Object[0];
+
+  void setNull(int parameterIndex) {
+    int i = slot(parameterIndex);
+    types[i] = NULL;
+    objects[i] = null;
+  }
+
+  void setLong(int parameterIndex, long value) {
+    int i = slot(parameterIndex);
+    types[i] = LONG;
+    longs[i] = value;
+    objects[i] = null;
+  }
+
+  void setDouble(int parameterIndex, double value) {
+    int i = slot(parameterIndex);
+    types[i] = DOUBLE;
+    doubles[i] = value;
+    objects[i] = null;
+  }
+
+  void setObject(int parameterIndex, Object value) {
+    int i = slot(parameterIndex);
+    types[i] = value == null ? NULL : OBJECT;
+    objects[i] = value;
+  }
+
+  /** Forgets the parameters of the current row. */
+  void clearParameters() {
+    Arrays.fill(types, 0, width, UNSET);
+    Arrays.fill(objects, 0, width, null);
+    width = 0;
+  }
+
+  /** Appends the parameters of the current row to the batch. They stay bound for the next row. */
+  void add() {
+    int start = rowStart[rowCount];
+    int end = start + width;
+    if (end > rowTypes.length) {
+      int capacity = Math.max(end, rowTypes.length * 2);
+      rowTypes = Arrays.copyOf(rowTypes, capacity);
+      rowLongs = Arrays.copyOf(rowLongs, capacity);
+      rowDoubles = Arrays.copyOf(rowDoubles, capacity);
+      rowObjects = Arrays.copyOf(rowObjects, capacity);
+    }
+    System.arraycopy(types, 0, rowTypes, start, width);
+    System.arraycopy(longs, 0, rowLongs, start, width);
+    System.arraycopy(doubles, 0, rowDoubles, start, width);
+    System.arraycopy(objects, 0, rowObjects, start, width);
+    if (rowCount + 2 > rowStart.length) {
+      rowStart = Arrays.copyOf(rowStart, rowStart.length * 2);
+    }
+    rowStart[++rowCount] = end;
+  }
+
+  /**
+   * @return the parameters of the current row as boxed values, unset parameters as {@code null};
+   *     byte arrays are copied, so the result does not change when the caller reuses them
+   */
+  Object[] values() {
+    Object[] values = new Object[width];
+    for (int i = 0; i < width; i++) {
+      switch (types[i]) {
+        case LONG:
+          values[i] = longs[i];
+          break;
+        case DOUBLE:
+          values[i] = doubles[i];
+          break;
+        case OBJECT:
+          values[i] = objects[i] instanceof byte[] ? ((byte[]) objects[i]).clone() : objects[i];
+          break;
+        default:
+          break;
+      }
+    }
+    return values;
+  }
+
+  int size() {
+    return rowCount;
+  }
+
+  /** Binds the parameters of the given row to the statement. */
+  void bind(int row, java.sql.PreparedStatement statement) throws SQLException {
+    statement.clearParameters();
+    int start = rowStart[row];
+    bind(statement, rowTypes, rowLongs, rowDoubles, rowObjects, start, rowStart[row + 1] - start);
+  }
+
+  /** Binds the parameters of the current row to another statement for the same SQL. */
+  void bindCurrent(java.sql.PreparedStatement statement) throws SQLException {
+    statement.clearParameters();
+    bind(statement, types, longs, doubles, objects, 0, width);
+  }
+
+  private static void bind(
+      java.sql.PreparedStatement statement,
+      byte[] types,
+      long[] longs,
+      double[] doubles,
+      Object[] objects,
+      int start,
+      int count)
+      throws SQLException {
+    for (int i = start, end = start + count, p = 1; i < end; i++, p++) {
+      switch (types[i]) {
+        case NULL:
+          statement.setNull(p, java.sql.Types.NULL);
+          break;
+        case LONG:
+          statement.setLong(p, longs[i]);
+          break;
+        case DOUBLE:
+          statement.setDouble(p, doubles[i]);
+          break;
+        case OBJECT:
+          statement.setObject(p, objects[i]);
+          break;
+        default:
+          // left unbound, SQLite treats it as NULL
+          break;
+      }
+    }
+  }
+
+  /** Drops every row of the batch. The parameters of the current row are kept. */
+  void clear() {
+    Arrays.fill(rowObjects, 0, rowStart[rowCount], null);
+    rowCount = 0;
+  }
+
+  private int slot(int parameterIndex) {
+    int i = parameterIndex - 1;
+    if (i >= types.length) {
+      int capacity = Math.max(parameterIndex, types.length * 2);
+      types = Arrays.copyOf(types, capacity);
+      longs = Arrays.copyOf(longs, capacity);
+      doubles = Arrays.copyOf(doubles, capacity);
+      objects = Arrays.copyOf(objects, capacity);
+    }
+    if (i >= width) {
+      width = i + 1;
+    }
+    return i;
+  }
+}
@@ -1,12 +1,22 @@
 /** */
 package com.badlogic.gdx.sqlite.desktop;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.ArrayBinding;
+import com.badlogic.gdx.sqlite.CancellationToken;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import com.badlogic.gdx.sqlite.ParameterNames;
 import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.SQLiteGdxRuntimeException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Blob;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * @author cycloneqi
@@ -14,47 +24,246 @@ import java.sql.SQLException;
 public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatement {
   private java.sql.PreparedStatement statement;
 
+  // Statement cache this statement returns to on close(), null if it is not cached.
+  private final StatementCache cache;
+  private final String sql;
+  private final int generation;
+  // Writer lock of a database in WAL or in-memory mode, held while the statement executes; null
+  // otherwise.
+  private final ReentrantLock writeLock;
+  // Reader pool the query runs on in WAL mode, null if the SQL is not a plain query.
+  private final ReaderPool readers;
+  // Interrupts executeQuery calls with a deadline or a cancellation token.
+  private final QueryWatchdog watchdog;
+  // Result cache of the database, null for statements created with the public constructor.
+  private final QueryCache queryCache;
+  // Reports the commits of this thread to the table change listeners once an execution returned;
+  // null for statements created with the public constructor.
+  private final Runnable settleChanges;
+  // Notes a DELETE without WHERE before each execution, see QueryCache#truncating(); null for any
+  // other statement and for statements created with the public constructor.
+  private final Runnable truncating;
+  private ResultSet streamingResult = null;
+  // Named parameters, parsed once from the SQL; kept while the statement is cached.
+  private final ParameterNames parameterNames;
+
+  // Reused for the JSON text of array parameters, so repeated binds only allocate the final string.
+  private final StringBuilder json = new StringBuilder();
+
+  // Mirror of the bound parameters, so rows added with addBatch() can be bound again one by one.
+  private final ParameterBatch batch = new ParameterBatch();
+
+  /**
+   * Wraps a statement whose SQL text is not known, so its parameters can only be bound by index;
+   * see {@link #PreparedStatement(java.sql.PreparedStatement, String)}.
+   */
   public PreparedStatement(java.sql.PreparedStatement preparedStatement) {
+    this(preparedStatement, null);
+  }
+
+  /**
+   * @param preparedStatement statement to wrap
+   * @param sql SQL text the statement was prepared from, which its named parameters are read from;
+   *     {@code null} if it is not known
+   */
+  public PreparedStatement(java.sql.PreparedStatement preparedStatement, String sql) {
+    this(preparedStatement, null, sql, null, null, new QueryWatchdog(), null, null, null);
+  }
+
+  PreparedStatement(
+      java.sql.PreparedStatement preparedStatement,
+      StatementCache cache,
+      String sql,
+      ReentrantLock writeLock,
+      ReaderPool readers,
+      QueryWatchdog watchdog,
+      QueryCache queryCache,
+      Runnable settleChanges,
+      Runnable truncating) {
     this.statement = preparedStatement;
+    this.writeLock = writeLock;
+    this.readers = readers;
+    this.watchdog = watchdog;
+    this.queryCache = queryCache;
+    this.settleChanges = settleChanges;
+    this.truncating = truncating;
+    this.cache = cache;
+    this.sql = sql;
+    this.generation = cache != null ? cache.getGeneration() : 0;
+    this.parameterNames = sql != null ? ParameterNames.parse(sql) : null;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Statements created without their SQL text throw {@link UnsupportedOperationException}.
+   */
+  @Override
+  public int getParameterIndex(String name) {
+    if (parameterNames == null) {
+      throw new UnsupportedOperationException(
+          "Named parameters need a statement from Database.getPreparedStatement(String)");
+    }
+    return parameterNames.indexOf(name);
   }
 
   @Override
   public DatabaseCursor executeQuery() throws SQLiteGdxException {
+    return executeQuery(null, 0, null);
+  }
+
+  @Override
+  public DatabaseCursor executeQuery(DatabaseCursor cursor) throws SQLiteGdxException {
+    return executeQuery(cursor, 0, null);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>In WAL mode the query runs on a reader connection, so it does not wait for writes, unless
+   * the calling thread holds a transaction, which has to see its own changes.
+   */
+  @Override
+  public DatabaseCursor executeQuery(
+      DatabaseCursor cursor, long timeoutMillis, CancellationToken token)
+      throws SQLiteGdxException {
+    DesktopCursor _cursor = cursor != null ? (DesktopCursor) cursor : new DesktopCursor();
+    if (readers != null && !readers.isWriterOnly() && !writeLock.isHeldByCurrentThread()) {
+      return executeOnReader(_cursor, timeoutMillis, token);
+    }
+    lock();
+    try {
+      return query(_cursor, statement, false, timeoutMillis, token);
+    } finally {
+      unlock();
+    }
+  }
+
+  private DatabaseCursor executeOnReader(
+      DesktopCursor cursor, long timeoutMillis, CancellationToken token)
+      throws SQLiteGdxException {
+    if (queryCache.isEnabled() && !writeLock.isLocked()) {
+      // every commit whose hook ran has completed and is visible to the readers
+      queryCache.settle();
+    }
+    ReaderPool.Reader reader = readers.acquire();
+    try {
+      java.sql.PreparedStatement readerStatement = reader.prepare(sql);
+      batch.bindCurrent(readerStatement);
+      return query(cursor, readerStatement, true, timeoutMillis, token);
+    } catch (SQLException e) {
+      throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } finally {
+      readers.release(reader);
+    }
+  }
+
+  /**
+   * Buffers the result of the statement into the cursor, or shows the cached result.
+   *
+   * @param closeResult whether to close the result once it is buffered, which ends the read
+   *     transaction of a reader connection before it goes back to the pool
+   */
+  private DatabaseCursor query(
+      DesktopCursor _cursor,
+      java.sql.PreparedStatement statement,
+      boolean closeResult,
+      long timeoutMillis,
+      CancellationToken token)
+      throws SQLiteGdxException {
+    QueryWatchdog.Guard guard = null;
+    try {
+      Object key = null;
+      String[] tables = null;
+      if (queryCache != null
+          && queryCache.isEnabled()
+          && (token == null || !token.isCancelled())) {
+        key = QueryCache.key(sql, batch.values());
+        QueryCache.Entry entry = queryCache.get(key);
+        if (entry != null) {
+          _cursor.setSharedRows(entry.rows, entry.columns);
+          return _cursor;
+        }
+        tables = queryCache.tablesOf(statement.getConnection(), sql);
+      }
+      long version = queryCache != null ? queryCache.version() : 0;
+      guard = watchdog.start(statement, timeoutMillis, token, sql);
+      ResultSet _result = statement.executeQuery();
+      try {
+        if (tables != null) {
+          QueryCache.Entry entry = queryCache.load(key, tables, _result, version);
+          _cursor.setSharedRows(entry.rows, entry.columns);
+        } else {
+          _cursor.setNativeCursor(_result, statement);
+        }
+      } finally {
+        if (closeResult) {
+          _result.close();
+        }
+      }
+      return _cursor;
+    } catch (SQLException e) {
+      QueryWatchdog.throwIfInterrupted(guard, e);
+      throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } catch (SQLiteGdxRuntimeException e) {
+      QueryWatchdog.throwIfInterrupted(guard, e);
+      throw e;
+    } finally {
+      QueryWatchdog.finish(guard);
+    }
+  }
+
+  @Override
+  public DatabaseCursor executeQueryStreaming() throws SQLiteGdxException {
+    lock();
     try {
       ResultSet _result = statement.executeQuery();
+      streamingResult = _result;
       DesktopCursor _cursor = new DesktopCursor();
-      _cursor.setNativeCursor(_result);
+      // No count query: the bound parameters cannot be replayed on another statement.
+      _cursor.setStreamingCursor(_result, null, null);
       return _cursor;
     } catch (SQLException e) {
       throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } finally {
+      unlock();
     }
   }
 
   @Override
   public void execute() throws SQLiteGdxException {
+    lock();
     try {
       statement.execute();
     } catch (SQLException e) {
       throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } finally {
+      unlock();
     }
   }
 
   @Override
   public long executeInsert() throws SQLiteGdxException {
+    lock();
     try {
       statement.execute();
       return statement.getGeneratedKeys().getLong(1);
     } catch (SQLException e) {
       throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } finally {
+      unlock();
     }
   }
 
   @Override
   public int executeUpdateDelete() throws SQLiteGdxException {
+    lock();
     try {
       return statement.executeUpdate();
     } catch (SQLException e) {
       throw new SQLiteGdxException("There is an error in executing the prepared statement", e);
+    } finally {
+      unlock();
     }
   }
 
@@ -62,14 +271,29 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void clearParameters() throws SQLiteGdxException {
     try {
       statement.clearParameters();
+      batch.clearParameters();
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "There is an error in clearing parameters the prepared statement", e);
     }
   }
 
+  /**
+   * Closes this statement, or hands it back to the statement cache of its database if it came from
+   * there. A cached statement is reset and reused by the next {@link
+   * com.badlogic.gdx.sqlite.Database#getPreparedStatement(String)} call with the same SQL, so it
+   * must not be used after this call.
+   */
   @Override
   public void close() throws SQLiteGdxException {
+    if (cache != null && cache.offer(sql, generation, this)) {
+      return;
+    }
+    closeStatement();
+  }
+
+  /** Closes the underlying JDBC statement, bypassing the statement cache. */
+  void closeStatement() throws SQLiteGdxException {
     try {
       statement.close();
     } catch (SQLException e) {
@@ -77,10 +301,25 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
     }
   }
 
+  /** Closes a result still being streamed and clears the bound parameters. */
+  void reset() throws SQLiteGdxException {
+    try {
+      if (streamingResult != null) {
+        streamingResult.close();
+        streamingResult = null;
+      }
+    } catch (SQLException e) {
+      throw new SQLiteGdxException("There is an error in resetting the prepared statement", e);
+    }
+    clearParameters();
+    batch.clear();
+  }
+
   @Override
   public void setNull(int parameterIndex, int type) throws SQLiteGdxException {
     try {
       statement.setNull(parameterIndex, type);
+      batch.setNull(parameterIndex);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set null value tostatement for parameter index : " + parameterIndex, e);
@@ -91,6 +330,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setInt(int parameterIndex, int value) throws SQLiteGdxException {
     try {
       statement.setInt(parameterIndex, value);
+      batch.setLong(parameterIndex, value);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set int value to statement for parameter index : " + parameterIndex, e);
@@ -101,6 +341,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setLong(int parameterIndex, long value) throws SQLiteGdxException {
     try {
       statement.setLong(parameterIndex, value);
+      batch.setLong(parameterIndex, value);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set long value to statement for parameter index : " + parameterIndex, e);
@@ -111,6 +352,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setFloat(int parameterIndex, float value) throws SQLiteGdxException {
     try {
       statement.setFloat(parameterIndex, value);
+      batch.setDouble(parameterIndex, value);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set float value to statement for parameter index : " + parameterIndex, e);
@@ -121,6 +363,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setDouble(int parameterIndex, double value) throws SQLiteGdxException {
     try {
       statement.setDouble(parameterIndex, value);
+      batch.setDouble(parameterIndex, value);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set double value to statement for parameter index : " + parameterIndex, e);
@@ -131,6 +374,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setString(int parameterIndex, String value) throws SQLiteGdxException {
     try {
       statement.setString(parameterIndex, value);
+      batch.setObject(parameterIndex, value);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set string value to statement for parameter index : " + parameterIndex, e);
@@ -140,7 +384,7 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   @Override
   public void setBlob(int parameterIndex, Blob blob) throws SQLiteGdxException {
     try {
-      statement.setBlob(parameterIndex, blob);
+      setBytes(parameterIndex, blob.getBytes(1, (int) blob.length()));
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set blob to statement for parameter index : " + parameterIndex, e);
@@ -149,9 +393,16 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
 
   @Override
   public void setBlob(int parameterIndex, InputStream stream) throws SQLiteGdxException {
+    // the driver reads the stream into memory as well, reading it here keeps it replayable
     try {
-      statement.setBlob(parameterIndex, stream);
-    } catch (SQLException e) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        bytes.write(buffer, 0, read);
+      }
+      setBytes(parameterIndex, bytes.toByteArray());
+    } catch (IOException e) {
       throw new SQLiteGdxException(
           "Can't set blob to statement for parameter index : " + parameterIndex, e);
     }
@@ -161,12 +412,129 @@ public class PreparedStatement implements com.badlogic.gdx.sqlite.PreparedStatem
   public void setBytes(int parameterIndex, byte[] b) throws SQLiteGdxException {
     try {
       statement.setBytes(parameterIndex, b);
+      batch.setObject(parameterIndex, b);
     } catch (SQLException e) {
       throw new SQLiteGdxException(
           "Can't set bytes to statement for parameter index : " + parameterIndex, e);
     }
   }
 
+  @Override
+  public void setLongArray(int parameterIndex, long[] values, int offset, int count)
+      throws SQLiteGdxException {
+    if (values == null) {
+      setNull(parameterIndex, java.sql.Types.NULL);
+      return;
+    }
+    json.setLength(0);
+    setString(parameterIndex, ArrayBinding.appendJson(json, values, offset, count).toString());
+  }
+
+  @Override
+  public void setIntArray(int parameterIndex, int[] values, int offset, int count)
+      throws SQLiteGdxException {
+    if (values == null) {
+      setNull(parameterIndex, java.sql.Types.NULL);
+      return;
+    }
+    json.setLength(0);
+    setString(parameterIndex, ArrayBinding.appendJson(json, values, offset, count).toString());
+  }
+
+  @Override
+  public void addBatch() {
+    batch.add();
+  }
+
+  @Override
+  public void clearBatch() {
+    batch.clear();
+  }
+
+  @Override
+  public long[] executeBatch(boolean inTransaction) throws SQLiteGdxException {
+    return runBatch(inTransaction, false);
+  }
+
+  @Override
+  public long[] executeInsertBatch(boolean inTransaction) throws SQLiteGdxException {
+    return runBatch(inTransaction, true);
+  }
+
+  /**
+   * Executes every row of the batch and clears it. Returns the update count of every row, or its
+   * rowid (-1 if it inserted nothing) when {@code rowids} is set.
+   */
+  private long[] runBatch(boolean inTransaction, boolean rowids) throws SQLiteGdxException {
+    lock();
+    long[] results = new long[batch.size()];
+    int row = 0;
+    Connection connection = null;
+    boolean ownTransaction = false;
+    try {
+      connection = statement.getConnection();
+      ownTransaction = inTransaction && connection.getAutoCommit();
+      if (ownTransaction) {
+        connection.setAutoCommit(false);
+      }
+      for (; row < results.length; row++) {
+        batch.bind(row, statement);
+        int count = statement.executeUpdate();
+        if (rowids) {
+          results[row] = count > 0 ? statement.getGeneratedKeys().getLong(1) : -1;
+        } else {
+          results[row] = count;
+        }
+      }
+      if (ownTransaction) {
+        connection.commit();
+      }
+      return results;
+    } catch (SQLException e) {
+      if (ownTransaction) {
+        try {
+          connection.rollback();
+        } catch (SQLException rollbackFailure) {
+          e.addSuppressed(rollbackFailure);
+        }
+      }
+      throw new SQLiteGdxException(
+          "There is an error in executing row " + row + " of the statement batch", e);
+    } finally {
+      batch.clear();
+      if (ownTransaction) {
+        try {
+          connection.setAutoCommit(true);
+        } catch (SQLException e) {
+          Gdx.app.log(
+              DatabaseFactory.ERROR_TAG, "There was an error ending the batch transaction", e);
+        }
+      }
+      unlock();
+    }
+  }
+
+  private void lock() {
+    if (writeLock != null) {
+      writeLock.lock();
+    }
+    if (truncating != null) {
+      truncating.run();
+    }
+  }
+
+  private void unlock() {
+    try {
+      if (settleChanges != null) {
+        settleChanges.run();
+      }
+    } finally {
+      if (writeLock != null) {
+        writeLock.unlock();
+      }
+    }
+  }
+
   public void setStatement(java.sql.PreparedStatement statement) {
     this.statement = statement;
   }
@@ -0,0 +1,538 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Results of read queries kept for reuse, bounded by an estimate of their heap size and evicted
+ * least recently used first. Results are keyed by SQL text, or SQL text and bound parameters for
+ * prepared statements, and stay valid until a table they read is written.
+ *
+ * <p>The tables a query reads are taken from its bytecode ({@code EXPLAIN}): every table or index
+ * opened for reading is mapped to its table through the root pages in {@code sqlite_master}. Only
+ * plain {@code SELECT} and {@code WITH} queries on tables of the main database are cached; queries
+ * that write, open virtual or {@code WITHOUT ROWID} tables or call functions whose result changes
+ * between calls ({@code random()}, the date and time functions, ...) always run.
+ *
+ * <p>Writes are reported by the update and commit hooks of the writer connection, see {@link
+ * #written(String)}, {@link #committed()} and {@link #rolledBack()}. SQLite does not report every
+ * write through the update hook. A transaction that committed without any reported row change (a
+ * schema change) drops the whole cache, and so does one that ran a {@code DELETE} without {@code
+ * WHERE}, see {@link #truncating()}, as SQLite may empty the table without reporting its rows. A
+ * schema changed together with rows is noticed the next time a query has to run after the commit.
+ *
+ * <p>A result read while a table was written could be stale by the time it is stored, so results
+ * are only stored if no write was reported while their query ran. Readers in WAL mode may see a
+ * transaction only after its commit hook ran; such tables stay uncacheable until {@link #settle()}
+ * is called once the commit is visible.
+ *
+ * <p>Thread-safety: All methods may be called from any thread. SQL is never run while holding the
+ * cache's lock, since the hooks are called from inside the driver.
+ */
+final class QueryCache {
+
+  /** One cached result. */
+  static final class Entry {
+    final Object key;
+    final ColumnarRowStore rows;
+    final String[] columns;
+    final String[] tables;
+    final long bytes;
+
+    private Entry(Object key, ColumnarRowStore rows, String[] columns, String[] tables) {
+      this.key = key;
+      this.rows = rows;
+      this.columns = columns;
+      this.tables = tables;
+      long size = rows.sizeInBytes() + 64 + sizeOf(key);
+      for (String column : columns) {
+        size += ColumnarRowStore.sizeOf(column);
+      }
+      this.bytes = size;
+    }
+  }
+
+  /** Key of a prepared statement result: SQL text and the values of the bound parameters. */
+  private static final class StatementKey {
+    private final String sql;
+    private final Object[] parameters;
+    private final int hash;
+
+    private StatementKey(String sql, Object[] parameters) {
+      this.sql = sql;
+      this.parameters = parameters;
+      this.hash = 31 * sql.hashCode() + Arrays.deepHashCode(parameters);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof StatementKey)) {
+        return false;
+      }
+      StatementKey key = (StatementKey) other;
+      return hash == key.hash
+          && sql.equals(key.sql)
+          && Arrays.deepEquals(parameters, key.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+
+  private static final String[] UNCACHEABLE = new String[0];
+  private static final int MAX_ANALYSES = 512;
+  private static final HashSet<String> VOLATILE_FUNCTIONS =
+      new HashSet<>(
+          Arrays.asList(
+              "random",
+              "randomblob",
+              "changes",
+              "total_changes",
+              "last_insert_rowid",
+              "date",
+              "time",
+              "datetime",
+              "julianday",
+              "unixepoch",
+              "strftime",
+              "timediff",
+              "current_date",
+              "current_time",
+              "current_timestamp"));
+
+  private volatile long maxBytes = 0;
+  // whether the hooks reporting writes are registered; without them nothing may be cached
+  private volatile boolean listening = false;
+  private long bytes = 0;
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final HashMap<String, HashSet<Entry>> entriesByTable = new HashMap<>();
+
+  // Tables read by each query, UNCACHEABLE for queries that are not cached.
+  private final LinkedHashMap<String, String[]> analyses =
+      new LinkedHashMap<String, String[]>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+          return size() > MAX_ANALYSES;
+        }
+      };
+  // Table of each root page of the main schema, tables WITHOUT ROWID map to null.
+  private HashMap<Long, String> tablesByRootPage = null;
+  private int schemaVersion = -1;
+  private boolean schemaCheckPending = true;
+
+  // Tables written by the open transaction, and by committed ones readers may not see yet.
+  private final HashSet<String> written = new HashSet<>();
+  private final HashSet<String> settling = new HashSet<>();
+  // whether the open transaction, or a committed one readers may not see yet, may have emptied a
+  // table without reporting its rows
+  private boolean truncated = false;
+  private boolean settlingTruncate = false;
+  private boolean deferSettle = false;
+  // Bumped on every invalidation; a result is only stored if it did not change during its query.
+  private long version = 0;
+
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+  private long invalidations = 0;
+
+  /**
+   * @param sql SQL text of a prepared statement
+   * @param parameters values of its bound parameters
+   * @return the cache key of the result
+   */
+  static Object key(String sql, Object[] parameters) {
+    return new StatementKey(sql, parameters);
+  }
+
+  /**
+   * @return whether results are cached: a size is set and writes are reported
+   */
+  boolean isEnabled() {
+    return listening && maxBytes > 0;
+  }
+
+  boolean isListening() {
+    return listening;
+  }
+
+  /**
+   * @return whether a size is set, so the hooks reporting writes should be registered
+   */
+  boolean isRequested() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * @param listening whether the hooks reporting writes are registered; results stored while they
+   *     were not are dropped
+   */
+  synchronized void setListening(boolean listening) {
+    if (listening != this.listening) {
+      clear();
+      this.listening = listening;
+    }
+  }
+
+  synchronized void setMaxBytes(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative: " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+    evict();
+  }
+
+  /**
+   * @param deferSettle whether readers on other connections may see commits only after their
+   *     commit hook ran, so written tables stay uncacheable until {@link #settle()}
+   */
+  synchronized void setDeferSettle(boolean deferSettle) {
+    this.deferSettle = deferSettle;
+    settle();
+  }
+
+  /**
+   * @return the cached result, or {@code null} if there is none
+   */
+  synchronized Entry get(Object key) {
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      hits++;
+    }
+    return entry;
+  }
+
+  /**
+   * @return the version to pass to {@link #load} for a query that starts now
+   */
+  synchronized long version() {
+    return version;
+  }
+
+  /**
+   * Returns the tables the query reads, analysing it on first use.
+   *
+   * @param connection connection to analyse the query on
+   * @return the tables, or {@code null} if the query's result must not be cached
+   * @throws SQLException if the query or the schema cannot be analysed
+   */
+  String[] tablesOf(Connection connection, String sql) throws SQLException {
+    String[] tables;
+    synchronized (this) {
+      tables = schemaCheckPending ? null : analyses.get(sql);
+    }
+    if (tables == null) {
+      try (Statement statement = connection.createStatement()) {
+        tables = analyse(statement, sql);
+      }
+    }
+    return tables == UNCACHEABLE ? null : tables;
+  }
+
+  /**
+   * Buffers the result of a cacheable query and stores it, unless a table it reads was written
+   * since {@code startVersion}.
+   *
+   * @param tables tables the query reads, see {@link #tablesOf(Connection, String)}
+   * @param startVersion {@link #version()} before the query started
+   * @return the buffered result, stored or not
+   * @throws SQLException if reading the result fails
+   */
+  Entry load(Object key, String[] tables, ResultSet result, long startVersion)
+      throws SQLException {
+    ColumnarRowStore rows = new ColumnarRowStore();
+    rows.load(result, result.getMetaData(), false);
+    rows.trim(0);
+    Entry entry = new Entry(key, rows, ColumnNameIndex.labels(result.getMetaData()), tables);
+    put(entry, startVersion);
+    return entry;
+  }
+
+  /** Called by the update hook for every row written to a table of the main database. */
+  synchronized void written(String table) {
+    // a new write on the writer connection means the previous commit has completed
+    settle();
+    String name = table.toLowerCase(Locale.ROOT);
+    if (written.add(name)) {
+      invalidate(name);
+    }
+  }
+
+  /**
+   * Called before a statement runs on the writer that may empty a table without reporting its rows
+   * to the update hook, a {@code DELETE} without {@code WHERE}. Drops every result, and stores none
+   * until the transaction ended.
+   */
+  synchronized void truncating() {
+    settle();
+    truncated = true;
+    invalidations += entries.size();
+    removeAll();
+    version++;
+  }
+
+  /** Called by the commit hook. */
+  synchronized void committed() {
+    if (written.isEmpty() || truncated) {
+      // a write the update hook does not report, e.g. a schema change or a truncating DELETE
+      invalidations += entries.size();
+      removeAll();
+    }
+    schemaCheckPending = true;
+    if (deferSettle) {
+      settling.addAll(written);
+      settlingTruncate |= truncated;
+    }
+    written.clear();
+    truncated = false;
+    version++;
+  }
+
+  /** Called by the rollback hook. */
+  synchronized void rolledBack() {
+    written.clear();
+    truncated = false;
+    version++;
+  }
+
+  /**
+   * Makes the tables of committed transactions cacheable again. Call once every commit whose hook
+   * ran is visible to all connections.
+   */
+  synchronized void settle() {
+    if (!settling.isEmpty() || settlingTruncate) {
+      settling.clear();
+      settlingTruncate = false;
+      version++;
+    }
+  }
+
+  /** Drops every result and analysis, e.g. after writes the hooks cannot see. */
+  synchronized void clear() {
+    removeAll();
+    analyses.clear();
+    tablesByRootPage = null;
+    schemaCheckPending = true;
+    version++;
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  synchronized long getEvictions() {
+    return evictions;
+  }
+
+  synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  synchronized long getBytes() {
+    return bytes;
+  }
+
+  private synchronized void put(Entry entry, long startVersion) {
+    misses++;
+    if (version != startVersion || truncated || settlingTruncate || entry.bytes > maxBytes) {
+      return;
+    }
+    for (String table : entry.tables) {
+      if (written.contains(table) || settling.contains(table)) {
+        return;
+      }
+    }
+    Entry previous = entries.put(entry.key, entry);
+    if (previous != null) {
+      unindex(previous);
+    }
+    bytes += entry.bytes;
+    for (String table : entry.tables) {
+      entriesByTable.computeIfAbsent(table, name -> new HashSet<>()).add(entry);
+    }
+    evict();
+  }
+
+  private String[] analyse(Statement statement, String sql) throws SQLException {
+    boolean checkSchema;
+    synchronized (this) {
+      checkSchema = schemaCheckPending;
+    }
+    if (checkSchema) {
+      int current;
+      try (ResultSet result = statement.executeQuery("PRAGMA schema_version")) {
+        current = result.next() ? result.getInt(1) : -1;
+      }
+      schemaChecked(current);
+      synchronized (this) {
+        String[] tables = analyses.get(sql);
+        if (tables != null) {
+          return tables;
+        }
+      }
+    }
+    HashMap<Long, String> rootPages;
+    synchronized (this) {
+      rootPages = tablesByRootPage;
+    }
+    if (rootPages == null) {
+      rootPages = readRootPages(statement);
+      synchronized (this) {
+        tablesByRootPage = rootPages;
+      }
+    }
+    String[] tables = SqlKind.isPlainRead(sql) ? explain(statement, sql, rootPages) : UNCACHEABLE;
+    synchronized (this) {
+      if (tablesByRootPage == rootPages) {
+        analyses.put(sql, tables);
+      }
+    }
+    return tables;
+  }
+
+  private synchronized void schemaChecked(int current) {
+    schemaCheckPending = false;
+    // readers on an older snapshot may still report an older version
+    if (current > schemaVersion) {
+      if (schemaVersion >= 0) {
+        invalidations += entries.size();
+        removeAll();
+        analyses.clear();
+        tablesByRootPage = null;
+        version++;
+      }
+      schemaVersion = current;
+    }
+  }
+
+  private static HashMap<Long, String> readRootPages(Statement statement) throws SQLException {
+    HashMap<Long, String> rootPages = new HashMap<>();
+    HashSet<String> withoutRowid = new HashSet<>();
+    try (ResultSet result =
+        statement.executeQuery(
+            "SELECT type, tbl_name, rootpage, sql FROM main.sqlite_master WHERE rootpage > 0")) {
+      while (result.next()) {
+        String table = result.getString(2).toLowerCase(Locale.ROOT);
+        if ("table".equals(result.getString(1)) && SqlKind.isWithoutRowid(result.getString(4))) {
+          withoutRowid.add(table);
+        }
+        rootPages.put(result.getLong(3), table);
+      }
+    }
+    for (Map.Entry<Long, String> page : rootPages.entrySet()) {
+      if (withoutRowid.contains(page.getValue())) {
+        page.setValue(null);
+      }
+    }
+    return rootPages;
+  }
+
+  private static String[] explain(Statement statement, String sql, HashMap<Long, String> rootPages)
+      throws SQLException {
+    HashSet<String> tables = new HashSet<>();
+    try (ResultSet program = statement.executeQuery("EXPLAIN " + sql)) {
+      while (program.next()) {
+        String opcode = program.getString(2);
+        switch (opcode) {
+          case "OpenRead":
+          case "ReopenIdx":
+            // p3 is the database, 0 for main; p5 flag 0x10 means p2 is a register, not a page
+            if (program.getInt(5) != 0 || (program.getInt(7) & 0x10) != 0) {
+              return UNCACHEABLE;
+            }
+            String table = rootPages.get(program.getLong(4));
+            if (table == null) {
+              return UNCACHEABLE;
+            }
+            tables.add(table);
+            break;
+          case "OpenWrite":
+          case "VOpen":
+            return UNCACHEABLE;
+          case "Function":
+          case "PureFunc":
+            String function = program.getString(6);
+            int paren = function != null ? function.indexOf('(') : -1;
+            String name = paren >= 0 ? function.substring(0, paren) : function;
+            if (name == null || VOLATILE_FUNCTIONS.contains(name.toLowerCase(Locale.ROOT))) {
+              return UNCACHEABLE;
+            }
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    return tables.toArray(new String[0]);
+  }
+
+  private void invalidate(String table) {
+    HashSet<Entry> stale = entriesByTable.remove(table);
+    if (stale != null) {
+      for (Entry entry : stale) {
+        // the entry's other tables still reference it; this table's set is already gone
+        if (entries.remove(entry.key) == entry) {
+          unindex(entry);
+          invalidations++;
+        }
+      }
+    }
+    version++;
+  }
+
+  private void evict() {
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (bytes > maxBytes && eldest.hasNext()) {
+      Entry entry = eldest.next();
+      eldest.remove();
+      unindex(entry);
+      evictions++;
+    }
+  }
+
+  /** Forgets the size and the table references of an entry removed from {@link #entries}. */
+  private void unindex(Entry entry) {
+    bytes -= entry.bytes;
+    for (String table : entry.tables) {
+      HashSet<Entry> byTable = entriesByTable.get(table);
+      if (byTable != null && byTable.remove(entry) && byTable.isEmpty()) {
+        entriesByTable.remove(table);
+      }
+    }
+  }
+
+  private void removeAll() {
+    entries.clear();
+    entriesByTable.clear();
+    bytes = 0;
+  }
+
+  private static long sizeOf(Object key) {
+    if (key instanceof StatementKey) {
+      StatementKey statementKey = (StatementKey) key;
+      long size = ColumnarRowStore.sizeOf(statementKey.sql) + 32;
+      for (Object parameter : statementKey.parameters) {
+        size += 8 + ColumnarRowStore.sizeOf(parameter);
+      }
+      return size;
+    }
+    return ColumnarRowStore.sizeOf(key);
+  }
+}
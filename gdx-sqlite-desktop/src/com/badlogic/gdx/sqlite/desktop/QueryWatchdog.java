@@ -0,0 +1,175 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.CancellationToken;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import com.badlogic.gdx.sqlite.QueryCancelledException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stops queries that run past their deadline or whose {@link CancellationToken} is cancelled, by
+ * calling {@link Statement#cancel()}, which interrupts the statement's connection with {@code
+ * sqlite3_interrupt}. Deadlines are timed by one daemon thread shared by all databases, so unlike
+ * {@link Statement#setQueryTimeout(int)} they have millisecond precision.
+ *
+ * <p>Because an interrupt affects the whole connection, a guard only interrupts while its query is
+ * running: once {@link Guard#finish()} returned, a late deadline can no longer hit the next query
+ * on the same connection.
+ */
+final class QueryWatchdog {
+
+  private static ScheduledThreadPoolExecutor timer = null;
+
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong cancellations = new AtomicLong();
+
+  private static synchronized ScheduledThreadPoolExecutor timer() {
+    if (timer == null) {
+      timer =
+          new ScheduledThreadPoolExecutor(
+              1,
+              task -> {
+                Thread thread = new Thread(task, "gdx-sqlite-watchdog");
+                thread.setDaemon(true);
+                return thread;
+              });
+      timer.setRemoveOnCancelPolicy(true);
+    }
+    return timer;
+  }
+
+  /**
+   * Starts guarding a query that is about to run on {@code statement}.
+   *
+   * @param timeoutMillis time the query may run, 0 for no deadline
+   * @param token token that cancels the query, may be {@code null}
+   * @param sql query text for error messages, may be {@code null}
+   * @return the guard to {@link Guard#finish() finish} when the query ends, or {@code null} if
+   *     there is neither a deadline nor a token
+   * @throws QueryCancelledException if the token is already cancelled
+   */
+  Guard start(Statement statement, long timeoutMillis, CancellationToken token, String sql)
+      throws QueryCancelledException {
+    if (timeoutMillis < 0) {
+      throw new IllegalArgumentException("Timeout must not be negative: " + timeoutMillis);
+    }
+    if (timeoutMillis == 0 && token == null) {
+      return null;
+    }
+    Guard guard = new Guard(statement, timeoutMillis, token, sql);
+    if (token != null && !token.register(guard.cancel)) {
+      cancellations.incrementAndGet();
+      throw new QueryCancelledException(
+          describe("Query cancelled before it started", sql), false, null);
+    }
+    if (timeoutMillis > 0) {
+      guard.deadline = timer().schedule(guard.timeout, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    return guard;
+  }
+
+  /**
+   * Throws the cancellation if the guard interrupted the failed query; otherwise returns so the
+   * caller rethrows {@code cause}.
+   */
+  static void throwIfInterrupted(Guard guard, Throwable cause) throws QueryCancelledException {
+    QueryCancelledException cancelled = guard != null ? guard.failure(cause) : null;
+    if (cancelled != null) {
+      throw cancelled;
+    }
+  }
+
+  /** Null-safe {@link Guard#finish()}. */
+  static void finish(Guard guard) {
+    if (guard != null) {
+      guard.finish();
+    }
+  }
+
+  long getTimeouts() {
+    return timeouts.get();
+  }
+
+  long getCancellations() {
+    return cancellations.get();
+  }
+
+  private static String describe(String message, String sql) {
+    return sql != null ? message + ": " + sql : message;
+  }
+
+  /** Interrupt state of one query. */
+  final class Guard {
+    private static final int NONE = 0;
+    private static final int TIMED_OUT = 1;
+    private static final int CANCELLED = 2;
+
+    private final Statement statement;
+    private final long timeoutMillis;
+    private final CancellationToken token;
+    private final String sql;
+    private final Runnable timeout = () -> interrupt(TIMED_OUT);
+    private final Runnable cancel = () -> interrupt(CANCELLED);
+    private ScheduledFuture<?> deadline = null;
+
+    private boolean running = true;
+    private int reason = NONE;
+
+    private Guard(Statement statement, long timeoutMillis, CancellationToken token, String sql) {
+      this.statement = statement;
+      this.timeoutMillis = timeoutMillis;
+      this.token = token;
+      this.sql = sql;
+    }
+
+    private synchronized void interrupt(int why) {
+      if (!running || reason != NONE) {
+        return;
+      }
+      reason = why;
+      try {
+        statement.cancel();
+      } catch (SQLException e) {
+        if (Gdx.app != null) {
+          Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error in interrupting a query", e);
+        }
+      }
+    }
+
+    /** Ends guarding; must be called when the query ended, whether it failed or not. */
+    void finish() {
+      synchronized (this) {
+        running = false;
+      }
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+      if (token != null) {
+        token.unregister(cancel);
+      }
+    }
+
+    /**
+     * @param cause failure of the query
+     * @return the exception to throw instead of {@code cause} if the guard interrupted the query,
+     *     otherwise {@code null}
+     */
+    synchronized QueryCancelledException failure(Throwable cause) {
+      if (reason == TIMED_OUT) {
+        timeouts.incrementAndGet();
+        return new QueryCancelledException(
+            describe("Query ran past its deadline of " + timeoutMillis + " ms", sql), true, cause);
+      }
+      if (reason == CANCELLED) {
+        cancellations.incrementAndGet();
+        return new QueryCancelledException(describe("Query cancelled", sql), false, cause);
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed pool of read-only connections to a database in WAL mode. Each connection is opened with
+ * {@code PRAGMA query_only}, so a write routed to it by mistake fails instead of competing with the
+ * writer connection. A reader is taken for the duration of one query and handed back afterwards;
+ * when every reader is in use the caller waits, and the time spent waiting is recorded. Each reader
+ * keeps the statements of the prepared queries run on it most recently.
+ *
+ * <p>Thread-safety: {@link #acquire()} and {@link #release(Reader)} may be called from any thread.
+ */
+final class ReaderPool {
+
+  /** A pooled connection with the statement used to run queries on it. */
+  static final class Reader {
+    final Connection connection;
+    final Statement statement;
+    // prepared statements by SQL text, least recently used first; only used by the holder
+    private final LinkedHashMap<String, PreparedStatement> prepared =
+        new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= PREPARED_PER_READER) {
+              return false;
+            }
+            try {
+              eldest.getValue().close();
+            } catch (SQLException e) {
+              // the statement is dropped either way
+            }
+            return true;
+          }
+        };
+
+    private Reader(Connection connection, Statement statement) {
+      this.connection = connection;
+      this.statement = statement;
+    }
+
+    /**
+     * @param sql SQL text of a query
+     * @return the statement prepared for the SQL on this reader, prepared again only after it was
+     *     evicted by other statements; its parameters are cleared
+     * @throws SQLException if the SQL cannot be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+      PreparedStatement statement = prepared.get(sql);
+      if (statement == null) {
+        statement = connection.prepareStatement(sql);
+        prepared.put(sql, statement);
+      } else {
+        statement.clearParameters();
+      }
+      return statement;
+    }
+  }
+
+  // Prepared statements kept open on each reader connection.
+  private static final int PREPARED_PER_READER = 16;
+
+  // How often a waiting caller checks whether the pool was closed in the meantime.
+  private static final long CLOSED_CHECK_MILLIS = 100;
+
+  private final Reader[] readers;
+  private final ArrayBlockingQueue<Reader> idle;
+  private volatile boolean closed = false;
+  // set once the writer connection has TEMP tables or attached databases, which queries may read
+  private volatile boolean writerOnly = false;
+
+  private final AtomicLong acquisitions = new AtomicLong();
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  /**
+   * Opens {@code size} reader connections.
+   *
+   * @param url JDBC URL of the database
+   * @param size number of connections
+   * @throws SQLException if a connection cannot be opened; connections opened so far are closed
+   */
+  ReaderPool(String url, int size) throws SQLException {
+    readers = new Reader[size];
+    idle = new ArrayBlockingQueue<>(size);
+    try {
+      for (int i = 0; i < size; i++) {
+        Connection connection = DriverManager.getConnection(url);
+        readers[i] = new Reader(connection, connection.createStatement());
+        readers[i].statement.execute("PRAGMA query_only = ON");
+        idle.add(readers[i]);
+      }
+    } catch (SQLException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Takes an idle reader, waiting for one if all are in use.
+   *
+   * @throws SQLiteGdxException if the pool is closed or the thread is interrupted while waiting
+   */
+  Reader acquire() throws SQLiteGdxException {
+    acquisitions.incrementAndGet();
+    Reader reader = idle.poll();
+    if (reader != null) {
+      return reader;
+    }
+    long start = System.nanoTime();
+    try {
+      while (reader == null) {
+        if (closed) {
+          throw new SQLiteGdxException("The reader pool is closed");
+        }
+        reader = idle.poll(CLOSED_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLiteGdxException("Interrupted while waiting for a reader connection", e);
+    } finally {
+      long waited = System.nanoTime() - start;
+      waitNanos.addAndGet(waited);
+      maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+    return reader;
+  }
+
+  /** Hands a reader taken with {@link #acquire()} back to the pool. */
+  void release(Reader reader) {
+    if (!closed) {
+      idle.offer(reader);
+    }
+  }
+
+  /**
+   * Executes a statement, such as a PRAGMA, on every reader. Waits for readers in use.
+   *
+   * @throws SQLException if the statement fails on a reader
+   * @throws SQLiteGdxException if the pool is closed or the thread is interrupted while waiting
+   */
+  void executeOnEach(String sql) throws SQLException, SQLiteGdxException {
+    Reader[] taken = new Reader[readers.length];
+    try {
+      for (int i = 0; i < taken.length; i++) {
+        taken[i] = acquire();
+        taken[i].statement.execute(sql);
+      }
+    } finally {
+      for (Reader reader : taken) {
+        if (reader != null) {
+          release(reader);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sets the busy timeout of every reader. Waits for readers in use.
+   *
+   * @throws SQLException if the timeout cannot be set on a reader
+   * @throws SQLiteGdxException if the pool is closed or the thread is interrupted while waiting
+   * @see DesktopDatabaseManager#setBusyTimeout(Connection, int)
+   */
+  void setBusyTimeout(int millis) throws SQLException, SQLiteGdxException {
+    Reader[] taken = new Reader[readers.length];
+    try {
+      for (int i = 0; i < taken.length; i++) {
+        taken[i] = acquire();
+        DesktopDatabaseManager.setBusyTimeout(taken[i].connection, millis);
+      }
+    } finally {
+      for (Reader reader : taken) {
+        if (reader != null) {
+          release(reader);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends every further query to the writer connection, because it created tables the readers
+   * cannot see.
+   */
+  void setWriterOnly() {
+    writerOnly = true;
+  }
+
+  boolean isWriterOnly() {
+    return writerOnly;
+  }
+
+  long getAcquisitions() {
+    return acquisitions.get();
+  }
+
+  long getWaitNanos() {
+    return waitNanos.get();
+  }
+
+  long getMaxWaitNanos() {
+    return maxWaitNanos.get();
+  }
+
+  /** Closes every connection, including those in use; their running queries fail. */
+  void close() {
+    closed = true;
+    idle.clear();
+    for (Reader reader : readers) {
+      if (reader == null) {
+        continue;
+      }
+      try {
+        reader.connection.close();
+      } catch (SQLException e) {
+        Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error closing a reader connection", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Buffer holding the rows of a result for {@link DesktopCursor}. Rows and columns are zero-based;
+ * getters apply SQLite's conversion rules between storage classes and return 0 or {@code null} for
+ * NULL cells.
+ */
+interface RowStore {
+
+  byte KIND_LONG = 0;
+  byte KIND_DOUBLE = 1;
+  byte KIND_TEXT = 2;
+  byte KIND_BLOB = 3;
+  byte KIND_VALUE = 4;
+
+  int DEFAULT_HIGH_WATER_MARK = 4096;
+  int DEFAULT_TRIM_AFTER_LOADS = 8;
+
+  /**
+   * Replaces the contents of this store with all remaining rows of the given result set.
+   *
+   * @param resultSet result set positioned before the first row
+   * @param meta metadata of the result set
+   * @param sameLayout {@code true} if the result has the same columns as the previous one, which
+   *     skips reading the column types again
+   * @throws SQLException if reading the result set fails
+   */
+  void load(ResultSet resultSet, ResultSetMetaData meta, boolean sameLayout) throws SQLException;
+
+  /**
+   * Sets how much storage is kept between loads.
+   *
+   * @param highWaterMark number of rows worth of storage that is always kept
+   * @param trimAfterLoads number of consecutive loads that fit below the high-water mark after
+   *     which any larger storage is released
+   */
+  void setRecyclePolicy(int highWaterMark, int trimAfterLoads);
+
+  /**
+   * Shrinks the storage to the given number of rows, never below the rows currently held.
+   *
+   * @param rows number of rows worth of storage to keep
+   */
+  void trim(int rows);
+
+  /** Drops every buffered row, keeping the column layout. */
+  void clear();
+
+  /**
+   * Frees storage held outside the Java heap right away, dropping every buffered row. Heap storage
+   * is left to the garbage collector. The store stays usable and allocates again on the next load.
+   */
+  void release();
+
+  int getRowCount();
+
+  int getColumnCount();
+
+  boolean isNull(int row, int column);
+
+  long getLong(int row, int column);
+
+  double getDouble(int row, int column);
+
+  String getString(int row, int column);
+
+  byte[] getBlob(int row, int column);
+
+  /** Copies {@code count} values of a column, starting at {@code row}, into {@code dst}. */
+  default void readInts(int column, int row, int count, int[] dst, int offset) {
+    for (int i = 0; i < count; i++) {
+      dst[offset + i] = (int) getLong(row + i, column);
+    }
+  }
+
+  /** Copies {@code count} values of a column, starting at {@code row}, into {@code dst}. */
+  default void readLongs(int column, int row, int count, long[] dst, int offset) {
+    for (int i = 0; i < count; i++) {
+      dst[offset + i] = getLong(row + i, column);
+    }
+  }
+
+  /** Copies {@code count} values of a column, starting at {@code row}, into {@code dst}. */
+  default void readFloats(int column, int row, int count, float[] dst, int offset) {
+    for (int i = 0; i < count; i++) {
+      dst[offset + i] = (float) getDouble(row + i, column);
+    }
+  }
+
+  /** Copies {@code count} values of a column, starting at {@code row}, into {@code dst}. */
+  default void readDoubles(int column, int row, int count, double[] dst, int offset) {
+    for (int i = 0; i < count; i++) {
+      dst[offset + i] = getDouble(row + i, column);
+    }
+  }
+
+  /**
+   * Picks the storage kind a result column starts with. The declared type is only a hint: stores
+   * check the storage class of every cell as they load it.
+   *
+   * @param meta metadata of the result
+   * @param jdbcColumn one-based column index
+   * @return one of the {@code KIND_*} constants
+   * @throws SQLException if the metadata cannot be read
+   */
+  static byte kindOf(ResultSetMetaData meta, int jdbcColumn) throws SQLException {
+    // Expressions have no declared type; the driver reports the type of the first value only, and
+    // later rows may hold a different storage class.
+    String table = meta.getTableName(jdbcColumn);
+    if (table == null || table.isEmpty()) return KIND_VALUE;
+    return kindOf(meta.getColumnTypeName(jdbcColumn));
+  }
+
+  /**
+   * Maps a declared column type to a storage kind using SQLite's type affinity rules.
+   *
+   * @param declaredType declared column type, may be {@code null}
+   * @return one of the {@code KIND_*} constants
+   */
+  static byte kindOf(String declaredType) {
+    if (declaredType == null || declaredType.isEmpty()) return KIND_VALUE;
+    String type = declaredType.toUpperCase(Locale.ROOT);
+    if (type.contains("INT")) return KIND_LONG;
+    if (type.contains("CHAR") || type.contains("CLOB") || type.contains("TEXT")) return KIND_TEXT;
+    if (type.contains("BLOB")) return KIND_BLOB;
+    if (type.contains("REAL") || type.contains("FLOA") || type.contains("DOUB")) return KIND_DOUBLE;
+    return KIND_VALUE;
+  }
+
+  static long parseLong(String text) {
+    try {
+      return Long.parseLong(text.trim());
+    } catch (NumberFormatException e) {
+      return (long) parseDouble(text);
+    }
+  }
+
+  static double parseDouble(String text) {
+    try {
+      return Double.parseDouble(text.trim());
+    } catch (NumberFormatException e) {
+      return 0d;
+    }
+  }
+
+  static long toLong(Object value) {
+    if (value instanceof Number) return ((Number) value).longValue();
+    if (value instanceof String) return parseLong((String) value);
+    return 0L;
+  }
+
+  static double toDouble(Object value) {
+    if (value instanceof Number) return ((Number) value).doubleValue();
+    if (value instanceof String) return parseDouble((String) value);
+    return 0d;
+  }
+}
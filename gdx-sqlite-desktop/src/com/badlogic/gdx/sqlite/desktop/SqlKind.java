@@ -0,0 +1,171 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import java.util.Locale;
+
+/**
+ * Tells from the SQL text where a statement may run when the database has a reader pool. Only
+ * plain queries can run on a read-only reader connection: {@code PRAGMA}s read and set the state
+ * of the connection they run on, and a {@code WITH} clause may also start an {@code INSERT},
+ * {@code UPDATE} or {@code DELETE}. It also tells which writes the update hook may not report.
+ * Literals, quoted identifiers and comments are skipped.
+ */
+final class SqlKind {
+
+  private SqlKind() {}
+
+  /**
+   * @param sql SQL text of a single statement
+   * @return whether the statement is a {@code SELECT}, {@code VALUES} or a {@code WITH} clause
+   *     followed by one of them
+   */
+  static boolean isPlainRead(String sql) {
+    int start = skipSpace(sql, 0);
+    int end = wordEnd(sql, start);
+    if (isRead(sql, start, end)) {
+      return true;
+    }
+    if (!is(sql, start, end, "WITH")) {
+      return false;
+    }
+    // the statement after the common table expressions, which are all in parentheses
+    int depth = 0;
+    int i = end;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '(') {
+        depth++;
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (c == '\'' || c == '"' || c == '`' || c == '[' || c == '-' || c == '/') {
+        int next = skipSpace(sql, i);
+        i = next > i ? next : i + 1;
+      } else if (Character.isLetter(c) || c == '_') {
+        int wordEnd = wordEnd(sql, i);
+        if (depth == 0) {
+          if (isRead(sql, i, wordEnd)) {
+            return true;
+          }
+          if (isWrite(sql, i, wordEnd)) {
+            return false;
+          }
+        }
+        i = wordEnd;
+      } else {
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param sql SQL text of a single statement
+   * @return whether the statement creates a schema only the connection it runs on can see: a
+   *     {@code TEMP} table, view, index or trigger, or an {@code ATTACH}ed database
+   */
+  static boolean isConnectionSchema(String sql) {
+    int start = skipSpace(sql, 0);
+    int end = wordEnd(sql, start);
+    if (is(sql, start, end, "ATTACH")) {
+      return true;
+    }
+    if (!is(sql, start, end, "CREATE")) {
+      return false;
+    }
+    start = skipSpace(sql, end);
+    end = wordEnd(sql, start);
+    return is(sql, start, end, "TEMP") || is(sql, start, end, "TEMPORARY");
+  }
+
+  /**
+   * @param sql SQL text of a {@code CREATE TABLE} statement, as stored in {@code sqlite_master}
+   * @return whether the table is a {@code WITHOUT ROWID} table, whose writes SQLite's update hook
+   *     does not report
+   */
+  static boolean isWithoutRowid(String sql) {
+    return sql != null
+        && sql.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ").contains("WITHOUT ROWID");
+  }
+
+  /**
+   * @param sql SQL text of one or more statements
+   * @return whether a statement is a {@code DELETE} without {@code WHERE}, which SQLite may run by
+   *     emptying the table without reporting its rows to the update hook
+   */
+  static boolean isTruncatingDelete(String sql) {
+    boolean delete = false;
+    int depth = 0;
+    int i = skipSpace(sql, 0);
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (Character.isLetter(c) || c == '_') {
+        int end = wordEnd(sql, i);
+        if (depth == 0 && is(sql, i, end, "DELETE")) {
+          delete = true;
+        } else if (depth == 0 && is(sql, i, end, "WHERE")) {
+          delete = false;
+        }
+        i = end;
+      } else {
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == ';' && depth == 0 && delete) {
+          return true;
+        }
+        i++;
+      }
+      i = skipSpace(sql, i);
+    }
+    return delete;
+  }
+
+  private static boolean isRead(String sql, int start, int end) {
+    return is(sql, start, end, "SELECT") || is(sql, start, end, "VALUES");
+  }
+
+  private static boolean isWrite(String sql, int start, int end) {
+    return is(sql, start, end, "INSERT")
+        || is(sql, start, end, "REPLACE")
+        || is(sql, start, end, "UPDATE")
+        || is(sql, start, end, "DELETE");
+  }
+
+  private static boolean is(String sql, int start, int end, String keyword) {
+    return end - start == keyword.length()
+        && sql.regionMatches(true, start, keyword, 0, keyword.length());
+  }
+
+  /** @return position of the next token, skipping whitespace, comments, literals and quotes */
+  private static int skipSpace(String sql, int pos) {
+    int length = sql.length();
+    while (pos < length) {
+      char c = sql.charAt(pos);
+      if (Character.isWhitespace(c)) {
+        pos++;
+      } else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+        int end = sql.indexOf('\n', pos + 2);
+        pos = end < 0 ? length : end + 1;
+      } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*') {
+        int end = sql.indexOf("*/", pos + 2);
+        pos = end < 0 ? length : end + 2;
+      } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+        int end = sql.indexOf(c == '[' ? ']' : c, pos + 1);
+        pos = end < 0 ? length : end + 1;
+      } else {
+        return pos;
+      }
+    }
+    return pos;
+  }
+
+  private static int wordEnd(String sql, int pos) {
+    while (pos < sql.length()
+        && (Character.isLetterOrDigit(sql.charAt(pos)) || sql.charAt(pos) == '_')) {
+      pos++;
+    }
+    return pos;
+  }
+}
@@ -0,0 +1,120 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.sqlite.DatabaseFactory;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of idle prepared statements keyed by SQL text. A statement is taken out of the
+ * cache while it is in use and offered back when its user closes it, so two users of the same SQL
+ * never share a statement. Offering a statement back resets it; statements that do not fit are
+ * closed, least recently used first.
+ *
+ * <p>{@link #clear()} closes every idle statement and starts a new generation: statements handed
+ * out before are closed instead of cached when they come back, because they belong to a connection
+ * that has been closed.
+ *
+ * <p>Thread-safety: All methods are synchronized, so statements may be taken and closed on any
+ * thread of a database in WAL mode.
+ */
+final class StatementCache {
+
+  static final int DEFAULT_CAPACITY = 32;
+
+  private final LinkedHashMap<String, PreparedStatement> idle =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private int capacity;
+  private int generation = 0;
+  private long hits = 0;
+  private long misses = 0;
+
+  StatementCache(int capacity) {
+    setCapacity(capacity);
+  }
+
+  /**
+   * Takes the idle statement for the given SQL out of the cache.
+   *
+   * @return the statement, or {@code null} if none is cached and a new one has to be prepared
+   */
+  synchronized PreparedStatement take(String sql) {
+    PreparedStatement statement = idle.remove(sql);
+    if (statement != null) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return statement;
+  }
+
+  synchronized int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Resets the given statement and keeps it for the next {@link #take(String)} of its SQL.
+   *
+   * @return {@code false} if the statement was not cached and has to be closed by the caller
+   */
+  synchronized boolean offer(String sql, int generation, PreparedStatement statement) {
+    if (capacity == 0 || generation != this.generation) {
+      return false;
+    }
+    try {
+      statement.reset();
+    } catch (SQLiteGdxException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error resetting a cached statement", e);
+      return false;
+    }
+    PreparedStatement previous = idle.put(sql, statement);
+    if (previous != null && previous != statement) {
+      closeQuietly(previous);
+    }
+    trimToCapacity();
+    return true;
+  }
+
+  synchronized void setCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+    }
+    this.capacity = capacity;
+    trimToCapacity();
+  }
+
+  synchronized long getHits() {
+    return hits;
+  }
+
+  synchronized long getMisses() {
+    return misses;
+  }
+
+  /** Closes every idle statement. Statements currently in use are closed when they come back. */
+  synchronized void clear() {
+    for (PreparedStatement statement : idle.values()) {
+      closeQuietly(statement);
+    }
+    idle.clear();
+    generation++;
+  }
+
+  private void trimToCapacity() {
+    Iterator<Map.Entry<String, PreparedStatement>> eldest = idle.entrySet().iterator();
+    while (idle.size() > capacity) {
+      closeQuietly(eldest.next().getValue());
+      eldest.remove();
+    }
+  }
+
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.closeStatement();
+    } catch (SQLiteGdxException e) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, "There was an error closing a cached statement", e);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.PreparedStatement;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BusyTimeoutTest {
+
+  private File file;
+  private Database database;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("gdx-sqlite-busy", ".db");
+    file.delete();
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(
+                file.getPath(), 1, "CREATE TABLE item (id INTEGER PRIMARY KEY)", null);
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+    file.delete();
+  }
+
+  @Test
+  public void configuredTimeoutOutlivesPreparedStatements() throws SQLiteGdxException {
+    database.configure(new DatabaseConfig().setBusyTimeout(1500));
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    insert(1);
+    assertEquals(1500, busyTimeout());
+  }
+
+  @Test
+  public void timeoutSetWhileOpenOutlivesPreparedStatements() throws SQLiteGdxException {
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.setBusyTimeout(2500);
+    insert(1);
+    insert(2);
+    assertEquals(2500, busyTimeout());
+  }
+
+  private void insert(long id) throws SQLiteGdxException {
+    PreparedStatement statement = database.getPreparedStatement("INSERT INTO item VALUES (?)");
+    try {
+      statement.setLong(1, id);
+      statement.executeUpdateDelete();
+    } finally {
+      statement.close();
+    }
+  }
+
+  private long busyTimeout() throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery("PRAGMA busy_timeout");
+    try {
+      assertTrue(cursor.next());
+      return cursor.getLong(0);
+    } finally {
+      cursor.close();
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.badlogic.gdx.sqlite.ChunkedBlobStore;
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseBlob;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedBlobStoreTest {
+
+  private File file;
+  private Database database;
+  private ChunkedBlobStore store;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-chunks", ".db");
+    file.delete();
+    database = new DesktopDatabaseManager().getNewDatabase(file.getPath(), 1, null, null);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    // ten bytes make two full chunks and a partial last one
+    store = new ChunkedBlobStore(database, "chunk", 4);
+    store.createTable();
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+    file.delete();
+  }
+
+  @Test
+  public void rangedReadSpansChunks() throws SQLiteGdxException {
+    assertEquals(10, store.write(1, new ByteArrayInputStream(bytes(0, 10))));
+    DatabaseBlob blob = store.open(1);
+    try {
+      ByteBuffer range = ByteBuffer.allocate(5);
+      assertEquals(5, blob.read(3, range));
+      assertArrayEquals(bytes(3, 5), range.array());
+    } finally {
+      blob.close();
+    }
+  }
+
+  @Test
+  public void partialLastChunk() throws SQLiteGdxException {
+    store.write(1, new ByteArrayInputStream(bytes(0, 10)));
+    DatabaseBlob blob = store.open(1);
+    try {
+      assertEquals(10, blob.length());
+      ByteBuffer tail = ByteBuffer.allocate(4);
+      assertEquals(2, blob.read(8, tail));
+      assertArrayEquals(bytes(8, 2), Arrays.copyOf(tail.array(), 2));
+      assertEquals(-1, blob.read(10, ByteBuffer.allocate(1)));
+    } finally {
+      blob.close();
+    }
+  }
+
+  @Test
+  public void writeSpansChunks() throws SQLiteGdxException {
+    DatabaseBlob blob = store.create(1, 10);
+    try {
+      blob.write(2, ByteBuffer.wrap(bytes(100, 7)));
+      ByteBuffer all = ByteBuffer.allocate(10);
+      assertEquals(10, blob.read(0, all));
+      byte[] expected = new byte[10];
+      System.arraycopy(bytes(100, 7), 0, expected, 2, 7);
+      assertArrayEquals(expected, all.array());
+    } finally {
+      blob.close();
+    }
+  }
+
+  @Test
+  public void writePastTheEndFails() throws SQLiteGdxException {
+    DatabaseBlob blob = store.create(1, 10);
+    try {
+      blob.write(8, ByteBuffer.wrap(bytes(0, 3)));
+      fail("wrote past the end of the value");
+    } catch (SQLiteGdxException expected) {
+      ByteBuffer tail = ByteBuffer.allocate(2);
+      assertEquals(2, blob.read(8, tail));
+      assertArrayEquals(new byte[2], tail.array());
+    } finally {
+      blob.close();
+    }
+  }
+
+  private static byte[] bytes(int first, int count) {
+    byte[] bytes = new byte[count];
+    for (int i = 0; i < count; i++) {
+      bytes[i] = (byte) (first + i);
+    }
+    return bytes;
+  }
+}
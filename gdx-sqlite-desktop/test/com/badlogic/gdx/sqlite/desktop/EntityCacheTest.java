@@ -0,0 +1,72 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.EntityCache;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityCacheTest {
+
+  private File file;
+  private Database database;
+  private EntityCache<String> names;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-entities", ".db");
+    file.delete();
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(
+                file.getPath(), 1, "CREATE TABLE item (id INTEGER PRIMARY KEY, name TEXT)", null);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.execSQL("CREATE TABLE other (id INTEGER PRIMARY KEY)");
+    database.execSQL("INSERT INTO item VALUES (1, 'one'), (2, 'two')");
+    names =
+        new EntityCache<>(
+            database,
+            "item",
+            100,
+            rowid -> {
+              DatabaseCursor cursor =
+                  database.rawQuery("SELECT name FROM item WHERE id = " + rowid);
+              try {
+                return cursor.next() ? cursor.getString(0) : null;
+              } finally {
+                cursor.close();
+              }
+            });
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    names.dispose();
+    database.closeDatabase();
+    file.delete();
+  }
+
+  @Test
+  public void deleteWithoutWhereNextToReportedWritesDropsTheCache() throws SQLiteGdxException {
+    assertEquals("one", names.get(1));
+    assertEquals("two", names.get(2));
+    database.beginTransaction();
+    try {
+      database.execSQL("DELETE FROM item");
+      database.execSQL("INSERT INTO other VALUES (1)");
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(0, names.size());
+    assertNull(names.get(1));
+  }
+}
@@ -0,0 +1,58 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MemoryPersistenceTest {
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = File.createTempFile("gdx-sqlite-memory", ".db");
+    file.delete();
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+    new File(file.getPath() + ".tmp").delete();
+  }
+
+  @Test(timeout = 10000)
+  public void reopeningRightAfterCloseRestoresTheLastCommit() throws SQLiteGdxException {
+    // a long window keeps the last commits unsaved until the database closes
+    Database database = open();
+    for (int i = 0; i < 3; i++) {
+      database.execSQL("INSERT INTO item (id) VALUES (" + i + ")");
+      database.closeDatabase();
+
+      database = open();
+      DatabaseCursor cursor = database.rawQuery("SELECT id FROM item");
+      try {
+        assertEquals(i + 1, cursor.getCount());
+      } finally {
+        cursor.close();
+      }
+    }
+    database.closeDatabase();
+  }
+
+  private Database open() throws SQLiteGdxException {
+    Database database =
+        new DesktopDatabaseManager()
+            .getNewInMemoryDatabase(
+                file.getPath(), 1, "CREATE TABLE IF NOT EXISTS item (id INTEGER)", null, 60000);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    return database;
+  }
+}
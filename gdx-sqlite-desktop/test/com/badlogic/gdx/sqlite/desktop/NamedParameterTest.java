@@ -0,0 +1,22 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class NamedParameterTest {
+
+  @Test
+  public void wrappedStatementReadsNamesFromItsSql() {
+    PreparedStatement statement =
+        new PreparedStatement(null, "SELECT * FROM item WHERE id = :id AND name = @name");
+    assertEquals(1, statement.getParameterIndex(":id"));
+    assertEquals(2, statement.getParameterIndex("name"));
+    assertEquals(-1, statement.getParameterIndex("missing"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void wrappedStatementWithoutSqlHasNoNames() {
+    new PreparedStatement(null).getParameterIndex("id");
+  }
+}
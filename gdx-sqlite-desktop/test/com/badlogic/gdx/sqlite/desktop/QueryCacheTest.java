@@ -0,0 +1,86 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.PreparedStatement;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryCacheTest {
+
+  private File file;
+  private Database database;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-cache", ".db");
+    file.delete();
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(file.getPath(), 1, "CREATE TABLE a (id INTEGER PRIMARY KEY)", null);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.execSQL("CREATE TABLE b (id INTEGER PRIMARY KEY)");
+    database.execSQL("INSERT INTO a VALUES (1), (2), (3)");
+    database.setQueryCacheSize(1 << 20);
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+    file.delete();
+  }
+
+  @Test
+  public void deleteWithoutWhereNextToReportedWrites() throws SQLiteGdxException {
+    assertEquals(3, count("a"));
+    assertEquals(3, count("a"));
+    assertTrue(database.getQueryCacheHits() > 0);
+    database.beginTransaction();
+    try {
+      database.execSQL("DELETE FROM a");
+      database.execSQL("INSERT INTO b VALUES (1)");
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(0, count("a"));
+  }
+
+  @Test
+  public void preparedDeleteWithoutWhereNextToReportedWrites() throws SQLiteGdxException {
+    assertEquals(3, count("a"));
+    assertEquals(3, count("a"));
+    PreparedStatement truncate = database.getPreparedStatement("DELETE FROM a");
+    PreparedStatement insert = database.getPreparedStatement("INSERT INTO b VALUES (?)");
+    database.beginTransaction();
+    try {
+      truncate.executeUpdateDelete();
+      insert.setLong(1, 1);
+      insert.executeUpdateDelete();
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+      truncate.close();
+      insert.close();
+    }
+    assertEquals(0, count("a"));
+  }
+
+  private long count(String table) throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery("SELECT count(*) FROM " + table);
+    try {
+      assertTrue(cursor.next());
+      return cursor.getLong(0);
+    } finally {
+      cursor.close();
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.IncrementalQuery;
+import com.badlogic.gdx.sqlite.PreparedStatement;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReaderPoolTest {
+
+  private File file;
+  private Database database;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-readers", ".db");
+    file.delete();
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(
+                file.getPath(), 1, "CREATE TABLE item (id INTEGER PRIMARY KEY)", null);
+    database.enableWriteAheadLogging(2);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.execSQL("INSERT INTO item VALUES (1)");
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    executor.shutdownNow();
+    database.closeDatabase();
+    for (String suffix : new String[] {"", "-wal", "-shm"}) {
+      new File(file.getPath() + suffix).delete();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void preparedQueryDoesNotWaitForATransaction() throws Exception {
+    CountDownLatch inTransaction = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> writer = holdTransaction(inTransaction, release);
+    assertTrue(inTransaction.await(5, TimeUnit.SECONDS));
+
+    long acquisitions = database.getReaderAcquisitions();
+    PreparedStatement statement = database.getPreparedStatement("SELECT id FROM item WHERE id > ?");
+    try {
+      statement.setLong(1, 0);
+      // sees the last commit, not the row of the open transaction
+      assertEquals(1, count(statement.executeQuery()));
+    } finally {
+      statement.close();
+    }
+    assertEquals(1, release.getCount());
+    assertTrue(database.getReaderAcquisitions() > acquisitions);
+
+    release.countDown();
+    writer.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test(timeout = 10000)
+  public void rawQueryDoesNotWaitForATransaction() throws Exception {
+    CountDownLatch inTransaction = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> writer = holdTransaction(inTransaction, release);
+    assertTrue(inTransaction.await(5, TimeUnit.SECONDS));
+
+    assertEquals(1, count(database.rawQuery("SELECT id FROM item")));
+    assertEquals(1, release.getCount());
+
+    release.countDown();
+    writer.get(5, TimeUnit.SECONDS);
+    assertEquals(2, count(database.rawQuery("SELECT id FROM item")));
+  }
+
+  @Test(timeout = 10000)
+  public void writesDoNotWaitForAPausedIncrementalQuery() throws Exception {
+    database.execSQL("INSERT INTO item VALUES (2), (3), (4)");
+    int[] rows = {0};
+    IncrementalQuery query =
+        new IncrementalQuery(database, "SELECT id FROM item ORDER BY id", cursor -> rows[0]++);
+    try {
+      assertFalse(query.step(2, 0));
+      // another thread writes between the slices
+      executor
+          .submit(
+              () -> {
+                database.execSQL("INSERT INTO item VALUES (5)");
+                return null;
+              })
+          .get(5, TimeUnit.SECONDS);
+      assertTrue(query.step(0, 0));
+    } finally {
+      query.close();
+    }
+    // the query kept its snapshot
+    assertEquals(4, rows[0]);
+    assertEquals(5, count(database.rawQuery("SELECT id FROM item")));
+  }
+
+  @Test
+  public void pragmaRunsOnTheWriter() throws SQLiteGdxException {
+    database.execSQL("PRAGMA cache_size = -1234");
+    DatabaseCursor cursor = database.rawQuery("PRAGMA cache_size");
+    try {
+      assertTrue(cursor.next());
+      assertEquals(-1234, cursor.getInt(0));
+    } finally {
+      cursor.close();
+    }
+  }
+
+  @Test
+  public void tempTablesAreQueriedOnTheWriter() throws SQLiteGdxException {
+    database.execSQL("CREATE TEMP TABLE scratch (x)");
+    database.execSQL("INSERT INTO scratch VALUES (7)");
+    assertEquals(1, count(database.rawQuery("SELECT x FROM scratch")));
+    PreparedStatement statement = database.getPreparedStatement("SELECT x FROM scratch");
+    try {
+      assertEquals(1, count(statement.executeQuery()));
+    } finally {
+      statement.close();
+    }
+  }
+
+  private Future<?> holdTransaction(CountDownLatch inTransaction, CountDownLatch release) {
+    return executor.submit(
+        () -> {
+          database.beginTransaction();
+          try {
+            database.execSQL("INSERT INTO item VALUES (2)");
+            inTransaction.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            database.setTransactionSuccessful();
+          } finally {
+            database.endTransaction();
+          }
+          return null;
+        });
+  }
+
+  private static int count(DatabaseCursor cursor) {
+    try {
+      return cursor.getCount();
+    } finally {
+      cursor.close();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.SQLiteResultCodes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCodeTest {
+
+  // extended result codes, see https://www.sqlite.org/rescode.html
+  private static final int SQLITE_CONSTRAINT_NOTNULL = 1299;
+  private static final int SQLITE_CONSTRAINT_PRIMARYKEY = 1555;
+
+  private Database database;
+
+  @Before
+  public void setUp() throws SQLiteGdxException {
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(
+                ":memory:", 1, "CREATE TABLE item (id INTEGER PRIMARY KEY, name NOT NULL)", null);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.execSQL("INSERT INTO item VALUES (1, 'one')");
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+  }
+
+  @Test
+  public void reportsExtendedCodeOfTheDriver() {
+    assertFailsWith(SQLITE_CONSTRAINT_PRIMARYKEY, "INSERT INTO item VALUES (1, 'again')");
+    assertFailsWith(SQLITE_CONSTRAINT_NOTNULL, "INSERT INTO item VALUES (2, NULL)");
+  }
+
+  @Test
+  public void reportsPrimaryCodeWithoutExtendedOne() {
+    try {
+      database.execSQL("SELECT * FROM missing");
+      fail();
+    } catch (SQLiteGdxException e) {
+      assertEquals(SQLiteResultCodes.SQLITE_ERROR, e.getExtendedResultCode());
+      assertEquals(SQLiteResultCodes.SQLITE_ERROR, e.getResultCode());
+    }
+  }
+
+  private void assertFailsWith(int extendedCode, String sql) {
+    try {
+      database.execSQL(sql);
+      fail(sql);
+    } catch (SQLiteGdxException e) {
+      assertEquals(sql, extendedCode, e.getExtendedResultCode());
+      assertEquals(sql, SQLiteResultCodes.SQLITE_CONSTRAINT, e.getResultCode());
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowStoreTest {
+
+  private Connection connection;
+  private Statement statement;
+  // read by the allocation test, so that the driver reads are not optimized away
+  private double sink = 0;
+
+  @Before
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    statement = connection.createStatement();
+    statement.executeUpdate("CREATE TABLE mixed (i INTEGER, r REAL, t TEXT, b BLOB)");
+    // the first row matches the declared types, the others do not
+    statement.executeUpdate("INSERT INTO mixed VALUES (1, 1.5, 'one', x'01')");
+    statement.executeUpdate("INSERT INTO mixed VALUES (3.5, 'abc', x'ff00', 42)");
+    statement.executeUpdate("INSERT INTO mixed VALUES ('abc', NULL, NULL, 2.25)");
+    statement.executeUpdate("INSERT INTO mixed VALUES (NULL, 7, 'seven', 'text')");
+  }
+
+  @After
+  public void tearDown() throws SQLException {
+    connection.close();
+  }
+
+  @Test
+  public void heapStoreKeepsCellsThatDoNotMatchTheDeclaredType() throws SQLException {
+    assertMixedRows(new ColumnarRowStore());
+  }
+
+  @Test
+  public void directStoreKeepsCellsThatDoNotMatchTheDeclaredType() throws SQLException {
+    OffHeapRowStore store = new OffHeapRowStore(false);
+    try {
+      assertMixedRows(store);
+    } finally {
+      store.release();
+    }
+  }
+
+  @Test
+  public void reloadWithSameLayoutChecksCellsAgain() throws SQLException {
+    ColumnarRowStore store = new ColumnarRowStore();
+    load(store, "SELECT i, r, t, b FROM mixed WHERE rowid = 1", false);
+    assertEquals(RowStore.KIND_LONG, store.getKind(0));
+    assertMixedRows(store, true);
+    assertEquals(RowStore.KIND_VALUE, store.getKind(0));
+
+    // the next result starts from the declared types again
+    load(store, "SELECT i, r, t, b FROM mixed WHERE rowid = 1", true);
+    assertEquals(RowStore.KIND_LONG, store.getKind(0));
+    assertEquals(RowStore.KIND_DOUBLE, store.getKind(1));
+    assertEquals(RowStore.KIND_TEXT, store.getKind(2));
+    assertEquals(RowStore.KIND_BLOB, store.getKind(3));
+    assertEquals(1L, store.getLong(0, 0));
+  }
+
+  @Test
+  public void numericLoadAllocatesNoMoreThanTheDriver() throws SQLException {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+    Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported());
+    allocations.setThreadAllocatedMemoryEnabled(true);
+    long thread = Thread.currentThread().getId();
+
+    statement.executeUpdate("CREATE TABLE numbers (i INTEGER, r REAL)");
+    // outside the range of cached Long boxes
+    statement.executeUpdate(
+        "WITH RECURSIVE n(x) AS (SELECT 1000 UNION ALL SELECT x + 1 FROM n WHERE x < 2999)"
+            + " INSERT INTO numbers SELECT x, x + 0.5 FROM n");
+    ColumnarRowStore store = new ColumnarRowStore();
+    long driver = Long.MAX_VALUE;
+    long loaded = Long.MAX_VALUE;
+    try (PreparedStatement query = connection.prepareStatement("SELECT i, r FROM numbers")) {
+      // the smallest of many rounds, once the JIT has warmed up and the store has grown
+      for (int round = 0; round < 50; round++) {
+        long start = allocations.getThreadAllocatedBytes(thread);
+        try (ResultSet result = query.executeQuery()) {
+          while (result.next()) {
+            sink += result.getLong(1) + result.getDouble(2);
+          }
+        }
+        driver = Math.min(driver, allocations.getThreadAllocatedBytes(thread) - start);
+
+        start = allocations.getThreadAllocatedBytes(thread);
+        try (ResultSet result = query.executeQuery()) {
+          store.load(result, result.getMetaData(), round > 0);
+        }
+        loaded = Math.min(loaded, allocations.getThreadAllocatedBytes(thread) - start);
+      }
+    }
+    assertEquals(2000, store.getRowCount());
+    assertEquals(RowStore.KIND_LONG, store.getKind(0));
+    assertEquals(RowStore.KIND_DOUBLE, store.getKind(1));
+    // boxing the 4000 cells would take at least 64 KB
+    assertTrue(
+        "load allocated " + loaded + " bytes, reading the cells " + driver,
+        loaded < driver + 16 * 1024);
+  }
+
+  @Test
+  public void matchingCellsStayInPrimitiveColumns() throws SQLException {
+    ColumnarRowStore store = new ColumnarRowStore();
+    load(store, "SELECT i, r FROM mixed WHERE rowid = 1", false);
+    assertEquals(RowStore.KIND_LONG, store.getKind(0));
+    assertEquals(RowStore.KIND_DOUBLE, store.getKind(1));
+    assertEquals(1L, store.getLong(0, 0));
+    assertEquals(1.5, store.getDouble(0, 1), 0);
+  }
+
+  @Test
+  public void cursorReadsMixedCells() {
+    DesktopCursor cursor = new DesktopCursor();
+    try (ResultSet result = statement.executeQuery("SELECT i, t FROM mixed ORDER BY rowid")) {
+      cursor.setNativeCursor(result);
+    } catch (SQLException e) {
+      throw new AssertionError(e);
+    }
+    assertTrue(cursor.next());
+    assertEquals(1, cursor.getInt(0));
+    assertTrue(cursor.next());
+    assertEquals(3.5, cursor.getDouble(0), 0);
+    assertArrayEquals(new byte[] {(byte) 0xff, 0}, cursor.getBlob(1));
+    assertTrue(cursor.next());
+    assertEquals("abc", cursor.getString(0));
+    assertNull(cursor.getString(1));
+    cursor.close();
+  }
+
+  private void assertMixedRows(RowStore store) throws SQLException {
+    assertMixedRows(store, false);
+  }
+
+  private void assertMixedRows(RowStore store, boolean sameLayout) throws SQLException {
+    load(store, "SELECT i, r, t, b FROM mixed ORDER BY rowid", sameLayout);
+    assertEquals(4, store.getRowCount());
+
+    assertEquals(1L, store.getLong(0, 0));
+    assertEquals(1.5, store.getDouble(0, 1), 0);
+    assertEquals("one", store.getString(0, 2));
+    assertArrayEquals(new byte[] {1}, store.getBlob(0, 3));
+
+    assertEquals(3.5, store.getDouble(1, 0), 0);
+    assertEquals("3.5", store.getString(1, 0));
+    assertEquals("abc", store.getString(1, 1));
+    assertArrayEquals(new byte[] {(byte) 0xff, 0}, store.getBlob(1, 2));
+    assertEquals(42L, store.getLong(1, 3));
+
+    assertEquals("abc", store.getString(2, 0));
+    assertTrue(store.isNull(2, 1));
+    assertEquals(0d, store.getDouble(2, 1), 0);
+    assertNull(store.getString(2, 2));
+    assertEquals(2.25, store.getDouble(2, 3), 0);
+
+    assertTrue(store.isNull(3, 0));
+    assertEquals(0L, store.getLong(3, 0));
+    assertNull(store.getString(3, 0));
+    assertEquals(7d, store.getDouble(3, 1), 0);
+    assertEquals("seven", store.getString(3, 2));
+    assertArrayEquals("text".getBytes(StandardCharsets.UTF_8), store.getBlob(3, 3));
+  }
+
+  private void load(RowStore store, String sql, boolean sameLayout) throws SQLException {
+    try (ResultSet result = statement.executeQuery(sql)) {
+      store.load(result, result.getMetaData(), sameLayout);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class SqlKindTest {
+
+  @Test
+  public void queriesAreReads() {
+    assertTrue(SqlKind.isPlainRead("SELECT * FROM item"));
+    assertTrue(SqlKind.isPlainRead("  select 1"));
+    assertTrue(SqlKind.isPlainRead("VALUES (1), (2)"));
+    assertTrue(SqlKind.isPlainRead("-- comment\n/* block */ SELECT 1"));
+  }
+
+  @Test
+  public void withClauseFollowedByAQuery() {
+    assertTrue(SqlKind.isPlainRead("WITH n AS (SELECT 1) SELECT * FROM n"));
+    assertTrue(
+        SqlKind.isPlainRead(
+            "WITH RECURSIVE a(x) AS (VALUES (1) UNION ALL SELECT x + 1 FROM a WHERE x < 9),"
+                + " b AS MATERIALIZED (SELECT 'insert') SELECT * FROM a, b"));
+  }
+
+  @Test
+  public void withClauseFollowedByAWrite() {
+    assertFalse(SqlKind.isPlainRead("WITH n AS (SELECT 1) INSERT INTO item SELECT * FROM n"));
+    assertFalse(SqlKind.isPlainRead("with n as (select 1) delete from item"));
+    assertFalse(SqlKind.isPlainRead("WITH \"select\" AS (SELECT 1) UPDATE item SET x = 1"));
+  }
+
+  @Test
+  public void everythingElseIsNotARead() {
+    assertFalse(SqlKind.isPlainRead("PRAGMA synchronous"));
+    assertFalse(SqlKind.isPlainRead("PRAGMA user_version = 3"));
+    assertFalse(SqlKind.isPlainRead("INSERT INTO item VALUES (1)"));
+    assertFalse(SqlKind.isPlainRead("EXPLAIN QUERY PLAN SELECT 1"));
+    assertFalse(SqlKind.isPlainRead("SELECTED"));
+    assertFalse(SqlKind.isPlainRead(""));
+  }
+
+  @Test
+  public void connectionSchema() {
+    assertTrue(SqlKind.isConnectionSchema("CREATE TEMP TABLE t (x)"));
+    assertTrue(SqlKind.isConnectionSchema("create temporary view v as select 1"));
+    assertTrue(SqlKind.isConnectionSchema("ATTACH 'other.db' AS other"));
+    assertFalse(SqlKind.isConnectionSchema("CREATE TABLE t (x)"));
+    assertFalse(SqlKind.isConnectionSchema("SELECT * FROM temp.t"));
+  }
+
+  @Test
+  public void deleteWithoutWhereTruncates() {
+    assertTrue(SqlKind.isTruncatingDelete("DELETE FROM item"));
+    assertTrue(SqlKind.isTruncatingDelete("delete from main.\"where\""));
+    assertTrue(SqlKind.isTruncatingDelete("WITH n AS (SELECT 1 WHERE 1) DELETE FROM item"));
+    assertTrue(SqlKind.isTruncatingDelete("DELETE FROM a; DELETE FROM b WHERE x = 1"));
+    assertFalse(SqlKind.isTruncatingDelete("DELETE FROM item WHERE id = 1"));
+    assertFalse(SqlKind.isTruncatingDelete("DELETE FROM item -- all rows\nWHERE 1"));
+    assertFalse(SqlKind.isTruncatingDelete("UPDATE item SET deleted = 1"));
+    assertFalse(SqlKind.isTruncatingDelete("SELECT 'DELETE FROM item'"));
+  }
+}
@@ -0,0 +1,137 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.PreparedStatement;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.utils.ObjectSet;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableChangeTest {
+
+  private File file;
+  private Database database;
+  private ObjectSet<String> reported;
+  private int reports;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-changes", ".db");
+    file.delete();
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(
+                file.getPath(), 1, "CREATE TABLE item (id INTEGER PRIMARY KEY)", null);
+    database.enableWriteAheadLogging(1);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    database.execSQL("CREATE TABLE pair (a, b, PRIMARY KEY (a, b)) WITHOUT ROWID");
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+    for (String suffix : new String[] {"", "-wal", "-shm"}) {
+      new File(file.getPath() + suffix).delete();
+    }
+  }
+
+  @Test
+  public void commitIsVisibleToOtherConnectionsWhenReported() throws Exception {
+    try (Connection other = DriverManager.getConnection("jdbc:sqlite:" + file.getPath())) {
+      int[] seen = {-1};
+      database.addTableChangeListener(tables -> seen[0] = count(other, "item"));
+      database.execSQL("INSERT INTO item VALUES (1)");
+      assertEquals(1, seen[0]);
+    }
+  }
+
+  @Test
+  public void withoutRowidTablesAreReported() throws SQLiteGdxException {
+    listen();
+    database.beginTransaction();
+    try {
+      database.execSQL("INSERT INTO item VALUES (1)");
+      database.execSQL("INSERT INTO pair VALUES (1, 2)");
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(1, reports);
+    assertTrue(reported.contains("item"));
+    assertTrue(reported.contains("pair"));
+  }
+
+  @Test
+  public void rolledBackTransactionIsNotReported() throws SQLiteGdxException {
+    listen();
+    database.beginTransaction();
+    try {
+      database.execSQL("INSERT INTO item VALUES (1)");
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(0, reports);
+  }
+
+  @Test
+  public void preparedStatementCommitIsReported() throws SQLiteGdxException {
+    listen();
+    PreparedStatement statement = database.getPreparedStatement("INSERT INTO item VALUES (?)");
+    try {
+      statement.setLong(1, 1);
+      statement.executeUpdateDelete();
+    } finally {
+      statement.close();
+    }
+    assertEquals(1, reports);
+    assertNotNull(reported);
+    assertTrue(reported.contains("item"));
+  }
+
+  @Test
+  public void deleteWithoutWhereNextToReportedWritesChangesEveryTable() throws SQLiteGdxException {
+    database.execSQL("CREATE TABLE other (id INTEGER PRIMARY KEY)");
+    database.execSQL("INSERT INTO item VALUES (1)");
+    listen();
+    database.beginTransaction();
+    try {
+      database.execSQL("DELETE FROM item");
+      database.execSQL("INSERT INTO other VALUES (1)");
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(1, reports);
+    assertEquals(0, reported.size);
+  }
+
+  private void listen() {
+    database.addTableChangeListener(
+        tables -> {
+          reported = new ObjectSet<>(tables);
+          reports++;
+        });
+  }
+
+  private static int count(Connection connection, String table) {
+    try (Statement statement = connection.createStatement();
+        ResultSet result = statement.executeQuery("SELECT count(*) FROM " + table)) {
+      return result.next() ? result.getInt(1) : -1;
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
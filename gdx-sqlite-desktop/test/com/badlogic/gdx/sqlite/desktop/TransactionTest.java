@@ -0,0 +1,77 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransactionTest {
+
+  private Database database;
+
+  @Before
+  public void setUp() throws SQLiteGdxException {
+    database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(":memory:", 1, "CREATE TABLE item (id INTEGER PRIMARY KEY)", null);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+  }
+
+  @Test
+  public void successfulTransactionIsCommitted() throws SQLiteGdxException {
+    database.beginTransaction();
+    try {
+      database.execSQL("INSERT INTO item VALUES (1)");
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(1, count());
+  }
+
+  @Test
+  public void unsuccessfulTransactionIsRolledBack() throws SQLiteGdxException {
+    database.beginTransaction();
+    try {
+      database.execSQL("INSERT INTO item VALUES (1)");
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(0, count());
+  }
+
+  @Test
+  public void writesAfterATransactionCommitOnTheirOwn() throws SQLiteGdxException {
+    database.beginTransaction();
+    database.endTransaction();
+    database.execSQL("INSERT INTO item VALUES (1)");
+
+    // rolling back a later transaction must not take the write above with it
+    database.beginTransaction();
+    try {
+      database.execSQL("INSERT INTO item VALUES (2)");
+    } finally {
+      database.endTransaction();
+    }
+    assertEquals(1, count());
+  }
+
+  private int count() throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery("SELECT id FROM item");
+    try {
+      return cursor.getCount();
+    } finally {
+      cursor.close();
+    }
+  }
+}
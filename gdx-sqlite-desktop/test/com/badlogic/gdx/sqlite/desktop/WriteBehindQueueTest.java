@@ -0,0 +1,129 @@
+package com.badlogic.gdx.sqlite.desktop;
+
+import static org.junit.Assert.assertEquals;
+
+import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCursor;
+import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.WriteBehindQueue;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WriteBehindQueueTest {
+
+  private File file;
+  private Database database;
+
+  @Before
+  public void setUp() throws IOException, SQLiteGdxException {
+    file = File.createTempFile("gdx-sqlite-write-behind", ".db");
+    file.delete();
+    database = open();
+  }
+
+  @After
+  public void tearDown() throws SQLiteGdxException {
+    database.closeDatabase();
+    for (String suffix : new String[] {"", "-wal", "-shm"}) {
+      new File(file.getPath() + suffix).delete();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void closingTheDatabaseCommitsQueuedWrites() throws SQLiteGdxException {
+    // a long delay keeps the writes queued until the database closes
+    WriteBehindQueue queue = new WriteBehindQueue(database, 1000, 1000, 60000);
+    for (int i = 0; i < 100; i++) {
+      queue.enqueue("INSERT INTO event (id) VALUES (?)", i);
+    }
+    database.closeDatabase();
+
+    database = open();
+    DatabaseCursor cursor = database.rawQuery("SELECT id FROM event");
+    try {
+      assertEquals(100, cursor.getCount());
+    } finally {
+      cursor.close();
+    }
+    assertEquals(100, queue.getCommitted());
+  }
+
+  @Test(expected = IllegalStateException.class, timeout = 10000)
+  public void closingTheDatabaseClosesTheQueue() throws SQLiteGdxException {
+    WriteBehindQueue queue = new WriteBehindQueue(database);
+    database.closeDatabase();
+    database = open();
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 1);
+  }
+
+  @Test(timeout = 10000)
+  public void writeThatThrowsDoesNotStopTheQueue() throws SQLiteGdxException {
+    WriteBehindQueue queue = new WriteBehindQueue(database);
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 1);
+    queue.enqueue(
+        db -> {
+          throw new IllegalStateException("broken write");
+        });
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 2);
+    queue.flush();
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 3);
+    queue.close();
+
+    assertEquals(3, count());
+    assertEquals(3, queue.getCommitted());
+    assertEquals(1, queue.getFailed());
+  }
+
+  @Test(timeout = 10000)
+  public void failedBeginDoesNotStopTheQueue() throws SQLiteGdxException {
+    AtomicBoolean failBegin = new AtomicBoolean(true);
+    Database failing =
+        (Database)
+            Proxy.newProxyInstance(
+                Database.class.getClassLoader(),
+                new Class<?>[] {Database.class},
+                (proxy, method, args) -> {
+                  if (method.getName().equals("beginTransaction") && failBegin.getAndSet(false)) {
+                    throw new IllegalStateException("broken begin");
+                  }
+                  try {
+                    return method.invoke(database, args);
+                  } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                  }
+                });
+    WriteBehindQueue queue = new WriteBehindQueue(failing);
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 1);
+    queue.flush();
+    queue.enqueue("INSERT INTO event (id) VALUES (?)", 2);
+    queue.close();
+
+    assertEquals(1, count());
+    assertEquals(1, queue.getFailed());
+  }
+
+  private int count() throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery("SELECT id FROM event");
+    try {
+      return cursor.getCount();
+    } finally {
+      cursor.close();
+    }
+  }
+
+  private Database open() throws SQLiteGdxException {
+    Database database =
+        new DesktopDatabaseManager()
+            .getNewDatabase(file.getPath(), 1, "CREATE TABLE event (id INTEGER)", null);
+    database.enableWriteAheadLogging(1);
+    database.setupDatabase();
+    database.openOrCreateDatabase();
+    return database;
+  }
+}
@@ -9,6 +9,7 @@ import java.sql.SQLException;
 public class RobovmCursor implements DatabaseCursor {
 
   private ResultSet nativeCursor;
+  private int columnLayout = 0;
 
   public RobovmCursor(ResultSet resultSet) {
     setNativeCursor(resultSet);
@@ -107,6 +108,21 @@ public class RobovmCursor implements DatabaseCursor {
 
   public void setNativeCursor(ResultSet resultSet) {
     this.nativeCursor = resultSet;
+    columnLayout++; // columns are not compared, handles resolve again after every query
+  }
+
+  @Override
+  public int getColumnIndex(String columnName) {
+    try {
+      return nativeCursor.findColumn(columnName) - 1;
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public int getColumnLayout() {
+    return columnLayout;
   }
 
   @Override
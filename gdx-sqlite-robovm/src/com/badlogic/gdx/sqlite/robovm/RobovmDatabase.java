@@ -1,9 +1,14 @@
 package com.badlogic.gdx.sqlite.robovm;
 
 import SQLite.JDBCDriver;
+import com.badlogic.gdx.sqlite.CloseNotifier;
 import com.badlogic.gdx.sqlite.Database;
+import com.badlogic.gdx.sqlite.DatabaseCloseListener;
+import com.badlogic.gdx.sqlite.DatabaseConfig;
 import com.badlogic.gdx.sqlite.DatabaseCursor;
 import com.badlogic.gdx.sqlite.SQLiteGdxException;
+import com.badlogic.gdx.sqlite.TableChangeListener;
+import com.badlogic.gdx.sqlite.TableChangeTracker;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.ResultSet;
@@ -24,9 +29,13 @@ public class RobovmDatabase implements Database {
   private final int dbVersion;
   private final String dbOnCreateQuery;
   private final String dbOnUpgradeQuery;
+  private DatabaseConfig config = null;
 
   Connection connection;
   Statement statement;
+  // tables written through execSQL() and the transaction methods, for table change listeners
+  private final TableChangeTracker changes = new TableChangeTracker();
+  private final CloseNotifier closeListeners = new CloseNotifier();
 
   public RobovmDatabase(
       String dbName, int dbVersion, String dbOnCreateQuery, String dbOnUpgradeQuery) {
@@ -47,13 +56,27 @@ public class RobovmDatabase implements Database {
           "sqlite:/" + (new File(System.getenv("HOME"), "Library/" + dbName)).getAbsolutePath();
       connection = jdbcDriver.connect(DB_URL, null);
       statement = connection.createStatement();
+      if (config != null) {
+        for (String pragma : config.toPragmas(false)) {
+          statement.execute(pragma);
+        }
+        if (config.isQueryOnly()) {
+          statement.execute("PRAGMA query_only = ON");
+        }
+      }
     } catch (Exception e) {
       throw new SQLiteGdxException(e.getMessage(), e.getCause());
     }
   }
 
+  @Override
+  public void configure(DatabaseConfig config) {
+    this.config = config != null ? config.copy() : null;
+  }
+
   @Override
   public void closeDatabase() throws SQLiteGdxException {
+    closeListeners.closing(this);
     try {
       if (!connection.isClosed()) {
         connection.close();
@@ -70,6 +93,29 @@ public class RobovmDatabase implements Database {
     } catch (SQLException e) {
       throw new SQLiteGdxException(e.getMessage(), e.getCause());
     }
+    if (changes.hasListeners()) {
+      changes.executed(sql);
+    }
+  }
+
+  @Override
+  public void addTableChangeListener(TableChangeListener listener) {
+    changes.addListener(listener);
+  }
+
+  @Override
+  public void removeTableChangeListener(TableChangeListener listener) {
+    changes.removeListener(listener);
+  }
+
+  @Override
+  public void addCloseListener(DatabaseCloseListener listener) {
+    closeListeners.addListener(listener);
+  }
+
+  @Override
+  public void removeCloseListener(DatabaseCloseListener listener) {
+    closeListeners.removeListener(listener);
   }
 
   @Override
@@ -101,12 +147,14 @@ public class RobovmDatabase implements Database {
     } catch (SQLException e) {
       e.printStackTrace();
     }
+    changes.begin();
   }
 
   @Override
   public void setTransactionSuccessful() {
     try {
       connection.commit();
+      changes.setSuccessful();
     } catch (SQLException e) {
       e.printStackTrace();
     }
@@ -119,6 +167,8 @@ public class RobovmDatabase implements Database {
     } catch (SQLException e) {
       e.printStackTrace();
     }
+    // setTransactionSuccessful() already committed, so the writes before it are reported
+    changes.end();
   }
 
   @Override
@@ -0,0 +1,69 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Encodes arrays of numbers as JSON text so that a whole array can be bound to a single statement
+ * parameter and expanded by SQLite's {@code json_each} table-valued function. This keeps the SQL
+ * text of an {@code IN} list constant, so the statement can be prepared once and cached instead of
+ * being built and parsed again for every set of values:
+ *
+ * <pre>
+ * SELECT * FROM entity WHERE id IN (SELECT value FROM json_each(?))
+ * </pre>
+ *
+ * See {@link PreparedStatement#setLongArray(int, long[], int, int)}. Requires the JSON functions,
+ * which are built into SQLite since 3.38.0 and into the SQLite versions bundled by the desktop
+ * driver.
+ */
+public final class ArrayBinding {
+
+  /** Subquery expanding a JSON array bound to a single parameter, for use in {@code IN (...)}. */
+  public static final String IN_LIST = "SELECT value FROM json_each(?)";
+
+  private ArrayBinding() {}
+
+  /**
+   * Appends {@code count} values starting at {@code offset} as a JSON array.
+   *
+   * @param out builder to append to
+   * @return {@code out}
+   */
+  public static StringBuilder appendJson(StringBuilder out, long[] values, int offset, int count) {
+    checkRange(values.length, offset, count);
+    out.append('[');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) out.append(',');
+      out.append(values[offset + i]);
+    }
+    return out.append(']');
+  }
+
+  /**
+   * Appends {@code count} values starting at {@code offset} as a JSON array.
+   *
+   * @param out builder to append to
+   * @return {@code out}
+   */
+  public static StringBuilder appendJson(StringBuilder out, int[] values, int offset, int count) {
+    checkRange(values.length, offset, count);
+    out.append('[');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) out.append(',');
+      out.append(values[offset + i]);
+    }
+    return out.append(']');
+  }
+
+  /**
+   * @return a builder sized for {@code count} typical ids
+   */
+  static StringBuilder newBuilder(int count) {
+    return new StringBuilder(2 + count * 8);
+  }
+
+  private static void checkRange(int length, int offset, int count) {
+    if (offset < 0 || count < 0 || offset + count > length) {
+      throw new IndexOutOfBoundsException(
+          "offset=" + offset + " count=" + count + " length=" + length);
+    }
+  }
+}
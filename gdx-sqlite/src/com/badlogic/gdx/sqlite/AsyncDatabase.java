@@ -0,0 +1,225 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+
+/**
+ * Runs the work on a {@link Database} on a dedicated database thread, so loading and saving do not
+ * block the render thread. Every call queues a task and returns an {@link AsyncResult} right away;
+ * tasks run one at a time in the order they were submitted. Results are completely read on the
+ * database thread, so the render thread never touches the database.
+ *
+ * <p>Optional callbacks receive the result or the failure. By default they are posted to the render
+ * thread with {@link com.badlogic.gdx.Application#postRunnable(Runnable)} and run before the next
+ * frame, which makes it safe to update game state from them:
+ *
+ * <pre>
+ * AsyncDatabase async = new AsyncDatabase(db);
+ * async.query(monsterReader, "SELECT * FROM monster",
+ *     new AsyncDatabase.Callback&lt;Array&lt;Monster&gt;&gt;() {
+ *       public void onResult(Array&lt;Monster&gt; monsters) {
+ *         world.spawn(monsters);
+ *       }
+ *
+ *       public void onError(Throwable error) {
+ *         Gdx.app.error("db", "Loading monsters failed", error);
+ *       }
+ *     });
+ * </pre>
+ *
+ * <p>Once wrapped, use the database only through this facade (or from inside a {@link Task}), as
+ * database implementations are generally not thread-safe.
+ *
+ * <p>Thread-safety: The methods of this class may be called from any thread.
+ */
+public final class AsyncDatabase implements Disposable {
+
+  /**
+   * Work to run on the database thread.
+   *
+   * @param <T> type of the result
+   */
+  @FunctionalInterface
+  public interface Task<T> {
+
+    /**
+     * @param database the wrapped database
+     * @return the result delivered to the callback and the {@link AsyncResult}
+     * @throws SQLiteGdxException if a database call fails
+     */
+    T run(Database database) throws SQLiteGdxException;
+  }
+
+  /**
+   * Receives the outcome of a task, on the render thread unless posting is disabled.
+   *
+   * @param <T> type of the result
+   */
+  public interface Callback<T> {
+
+    void onResult(T result);
+
+    void onError(Throwable error);
+  }
+
+  private final Database database;
+  private final AsyncExecutor executor;
+  private final boolean postToRenderThread;
+
+  /**
+   * Wraps the database with a new database thread, posting callbacks to the render thread.
+   *
+   * @param database database to run the tasks on; open it with {@link #submit(Task)} or before
+   *     wrapping it
+   */
+  public AsyncDatabase(Database database) {
+    this(database, true);
+  }
+
+  /**
+   * @param database database to run the tasks on
+   * @param postToRenderThread whether callbacks run on the render thread through {@link
+   *     com.badlogic.gdx.Application#postRunnable(Runnable)}; otherwise they run on the database
+   *     thread right after the task
+   */
+  public AsyncDatabase(Database database, boolean postToRenderThread) {
+    if (database == null) {
+      throw new IllegalArgumentException("database is null");
+    }
+    this.database = database;
+    this.postToRenderThread = postToRenderThread;
+    this.executor = new AsyncExecutor(1, "gdx-sqlite");
+  }
+
+  /**
+   * @return the wrapped database; only use it from inside a {@link Task}
+   */
+  public Database getDatabase() {
+    return database;
+  }
+
+  /**
+   * Queues a task.
+   *
+   * @return the pending result; {@link AsyncResult#get()} blocks until the task has run and throws
+   *     a {@link com.badlogic.gdx.utils.GdxRuntimeException} wrapping the failure if it failed
+   */
+  public <T> AsyncResult<T> submit(Task<T> task) {
+    return submit(task, null);
+  }
+
+  /**
+   * Queues a task and delivers its outcome to the callback.
+   *
+   * @param callback receives the result or the failure, may be {@code null}; failures without a
+   *     callback are logged
+   * @return the pending result
+   */
+  public <T> AsyncResult<T> submit(final Task<T> task, final Callback<? super T> callback) {
+    return executor.submit(
+        () -> {
+          T result;
+          try {
+            result = task.run(database);
+          } catch (Throwable error) {
+            fail(callback, error);
+            throw error;
+          }
+          succeed(callback, result);
+          return result;
+        });
+  }
+
+  /** Queues {@link Database#execSQL(String)}. */
+  public AsyncResult<Void> execSQL(String sql) {
+    return execSQL(sql, null);
+  }
+
+  /** Queues {@link Database#execSQL(String)}, calling back with {@code null} once it has run. */
+  public AsyncResult<Void> execSQL(final String sql, Callback<? super Void> callback) {
+    return submit(
+        database -> {
+          database.execSQL(sql);
+          return null;
+        },
+        callback);
+  }
+
+  /**
+   * Queues a query whose rows are mapped into pooled objects by the given reader. The rows are
+   * read on the database thread; the callback receives {@link PooledRowReader#getRows()}. Do not
+   * use the reader or its pool elsewhere until the result has been delivered.
+   */
+  public <T> AsyncResult<Array<T>> query(
+      final PooledRowReader<T> reader, final String sql, Callback<? super Array<T>> callback) {
+    return submit(database -> reader.read(database, sql), callback);
+  }
+
+  /**
+   * Queues a transaction: the task runs between {@link Database#beginTransaction()} and {@link
+   * Database#endTransaction()} and is committed if it returns normally.
+   */
+  public <T> AsyncResult<T> transaction(final Task<T> task, Callback<? super T> callback) {
+    return submit(
+        database -> {
+          database.beginTransaction();
+          try {
+            T result = task.run(database);
+            database.setTransactionSuccessful();
+            return result;
+          } finally {
+            database.endTransaction();
+          }
+        },
+        callback);
+  }
+
+  /**
+   * Queues {@link Database#closeDatabase()}. Tasks queued before still run; the database must not
+   * be used by tasks queued afterwards.
+   */
+  public AsyncResult<Void> closeDatabase() {
+    return submit(
+        database -> {
+          database.closeDatabase();
+          return null;
+        });
+  }
+
+  /**
+   * Waits for every queued task to finish and stops the database thread. Does not close the
+   * database; queue {@link #closeDatabase()} first to do so.
+   */
+  @Override
+  public void dispose() {
+    executor.dispose();
+  }
+
+  private <T> void succeed(final Callback<? super T> callback, final T result) {
+    if (callback == null) {
+      return;
+    }
+    if (postToRenderThread && Gdx.app != null) {
+      Gdx.app.postRunnable(() -> callback.onResult(result));
+    } else {
+      callback.onResult(result);
+    }
+  }
+
+  private void fail(final Callback<?> callback, final Throwable error) {
+    if (callback == null) {
+      if (Gdx.app != null) {
+        Gdx.app.log(DatabaseFactory.ERROR_TAG, "Asynchronous database task failed", error);
+      }
+      return;
+    }
+    if (postToRenderThread && Gdx.app != null) {
+      Gdx.app.postRunnable(() -> callback.onError(error));
+    } else {
+      callback.onError(error);
+    }
+  }
+}
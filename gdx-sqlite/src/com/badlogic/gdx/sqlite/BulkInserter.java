@@ -0,0 +1,411 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.IntMap;
+import java.util.Arrays;
+
+/**
+ * Inserts large numbers of rows into one table with multi-row {@code INSERT ... VALUES (...),
+ * (...)} statements. Each statement carries as many rows as fit into SQLite's limit on host
+ * parameters, so one statement execution replaces many. The prepared statement for each chunk size
+ * is kept for the whole load, the rows are committed every {@link #setCommitInterval(int) N rows},
+ * and bulk-load PRAGMAs are applied for the duration of the load.
+ *
+ * <pre>
+ * BulkInserter inserter = new BulkInserter(db, "item", "id", "name", "weight");
+ * inserter.begin();
+ * try {
+ *   for (Item item : items) {
+ *     inserter.setLong(0, item.id).setString(1, item.name).setDouble(2, item.weight).addRow();
+ *   }
+ *   inserter.finish();
+ * } catch (SQLiteGdxException e) {
+ *   inserter.abort();
+ *   throw e;
+ * }
+ * </pre>
+ *
+ * <p>The bulk-load PRAGMAs ({@code synchronous = OFF}, {@code journal_mode = MEMORY} unless the
+ * database uses WAL, and a larger page cache) trade crash safety for speed. A crash or power loss
+ * during the load can corrupt the database, so disable them with {@link #setBulkPragmas(boolean)}
+ * when loading into a database that must survive that. The previous settings are restored by
+ * {@link #finish()} and {@link #abort()}.
+ *
+ * <p>Thread-safety: Not thread-safe. Use only from the thread that created it.
+ */
+public final class BulkInserter {
+
+  /** Host parameter limit of SQLite versions before 3.32.0, the safe default on every platform. */
+  public static final int DEFAULT_MAX_PARAMETERS = 999;
+
+  public static final int DEFAULT_COMMIT_INTERVAL = 10000;
+
+  private static final byte NULL = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte STRING = 3;
+  private static final byte BYTES = 4;
+
+  private final Database database;
+  private final String table;
+  private final String columnList;
+  private final int columnCount;
+
+  private int maxParameters = DEFAULT_MAX_PARAMETERS;
+  private int commitInterval = DEFAULT_COMMIT_INTERVAL;
+  private boolean bulkPragmas = true;
+
+  // Rows not yet inserted, row r and column c at index r * columnCount + c.
+  private int chunkRows = 0;
+  private byte[] types = new byte[0];
+  private long[] longs = new long[0];
+  private double[] doubles = new double[0];
+  private Object[] objects = new Object[0];
+  private int bufferedRows = 0;
+
+  // Insert statement for every chunk size used, keyed by number of rows.
+  private final IntMap<PreparedStatement> statements = new IntMap<>();
+
+  private boolean active = false;
+  private int rowsSinceCommit = 0;
+  private long rowCount = 0;
+  private int previousSynchronous = -1;
+  private int previousCacheSize = 0;
+  private String previousJournalMode = null;
+
+  /**
+   * @param database open database to insert into
+   * @param table name of the target table
+   * @param columns names of the columns set for every row, in the order of the column indices used
+   *     by the setters
+   */
+  public BulkInserter(Database database, String table, String... columns) {
+    if (database == null || table == null || columns == null || columns.length == 0) {
+      throw new IllegalArgumentException("database, table and at least one column are required");
+    }
+    this.database = database;
+    this.table = quote(table);
+    StringBuilder list = new StringBuilder();
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0) list.append(", ");
+      list.append(quote(columns[i]));
+    }
+    this.columnList = list.toString();
+    this.columnCount = columns.length;
+  }
+
+  /**
+   * Sets the maximum number of host parameters per statement, which determines how many rows one
+   * statement inserts. SQLite 3.32.0 and later accept up to 32766.
+   *
+   * @param maxParameters parameter limit of the SQLite library in use
+   * @return this inserter
+   */
+  public BulkInserter setMaxParameters(int maxParameters) {
+    checkIdle();
+    if (maxParameters < columnCount) {
+      throw new IllegalArgumentException(
+          "maxParameters must hold at least one row of " + columnCount + ": " + maxParameters);
+    }
+    this.maxParameters = maxParameters;
+    return this;
+  }
+
+  /**
+   * @param rows number of rows after which the current transaction is committed and a new one is
+   *     started
+   * @return this inserter
+   */
+  public BulkInserter setCommitInterval(int rows) {
+    if (rows < 1) {
+      throw new IllegalArgumentException("Commit interval must be positive: " + rows);
+    }
+    this.commitInterval = rows;
+    return this;
+  }
+
+  /**
+   * @param bulkPragmas whether to relax durability settings for the duration of the load, see the
+   *     class documentation
+   * @return this inserter
+   */
+  public BulkInserter setBulkPragmas(boolean bulkPragmas) {
+    checkIdle();
+    this.bulkPragmas = bulkPragmas;
+    return this;
+  }
+
+  /**
+   * Starts a load: applies the bulk-load PRAGMAs and opens the first transaction.
+   *
+   * @throws SQLiteGdxException if the settings cannot be applied or the transaction cannot start
+   */
+  public void begin() throws SQLiteGdxException {
+    checkIdle();
+    chunkRows = Math.max(1, maxParameters / columnCount);
+    int size = chunkRows * columnCount;
+    if (types.length != size) {
+      types = new byte[size];
+      longs = new long[size];
+      doubles = new double[size];
+      objects = new Object[size];
+    }
+    Arrays.fill(types, NULL);
+    bufferedRows = 0;
+    rowsSinceCommit = 0;
+    rowCount = 0;
+    if (bulkPragmas) {
+      applyBulkPragmas();
+    }
+    try {
+      database.beginTransaction();
+    } catch (SQLiteGdxException e) {
+      restorePragmas();
+      throw e;
+    }
+    active = true;
+  }
+
+  public BulkInserter setNull(int column) {
+    types[cell(column)] = NULL;
+    return this;
+  }
+
+  public BulkInserter setLong(int column, long value) {
+    int cell = cell(column);
+    types[cell] = LONG;
+    longs[cell] = value;
+    return this;
+  }
+
+  public BulkInserter setDouble(int column, double value) {
+    int cell = cell(column);
+    types[cell] = DOUBLE;
+    doubles[cell] = value;
+    return this;
+  }
+
+  public BulkInserter setString(int column, String value) {
+    int cell = cell(column);
+    types[cell] = value == null ? NULL : STRING;
+    objects[cell] = value;
+    return this;
+  }
+
+  public BulkInserter setBytes(int column, byte[] value) {
+    int cell = cell(column);
+    types[cell] = value == null ? NULL : BYTES;
+    objects[cell] = value;
+    return this;
+  }
+
+  /**
+   * Adds the values set since the previous row as a new row. Columns that were not set are
+   * inserted as NULL. Rows are written in chunks, so a failing row may be reported by a later call.
+   *
+   * @throws SQLiteGdxException if writing a chunk fails
+   */
+  public void addRow() throws SQLiteGdxException {
+    checkActive();
+    bufferedRows++;
+    rowCount++;
+    if (bufferedRows == chunkRows) {
+      flush();
+    } else {
+      // start the next row with NULLs
+      Arrays.fill(types, bufferedRows * columnCount, (bufferedRows + 1) * columnCount, NULL);
+    }
+  }
+
+  /**
+   * @return number of rows added since {@link #begin()}
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Writes the remaining rows, commits and restores the settings changed by {@link #begin()}.
+   *
+   * @return number of rows inserted
+   * @throws SQLiteGdxException if writing or committing fails; the uncommitted rows are rolled back
+   */
+  public long finish() throws SQLiteGdxException {
+    checkActive();
+    boolean committed = false;
+    try {
+      flush();
+      database.setTransactionSuccessful();
+      committed = true;
+    } finally {
+      end(committed);
+    }
+    return rowCount;
+  }
+
+  /**
+   * Rolls back the rows not yet committed and restores the settings changed by {@link #begin()}.
+   * Does nothing if no load is in progress.
+   *
+   * @throws SQLiteGdxException if ending the transaction fails
+   */
+  public void abort() throws SQLiteGdxException {
+    if (active) {
+      end(false);
+    }
+  }
+
+  private void flush() throws SQLiteGdxException {
+    if (bufferedRows == 0) {
+      return;
+    }
+    PreparedStatement statement = statement(bufferedRows);
+    int parameters = bufferedRows * columnCount;
+    for (int i = 0; i < parameters; i++) {
+      int index = i + 1;
+      switch (types[i]) {
+        case LONG:
+          statement.setLong(index, longs[i]);
+          break;
+        case DOUBLE:
+          statement.setDouble(index, doubles[i]);
+          break;
+        case STRING:
+          statement.setString(index, (String) objects[i]);
+          break;
+        case BYTES:
+          statement.setBytes(index, (byte[]) objects[i]);
+          break;
+        default:
+          statement.setNull(index, java.sql.Types.NULL);
+          break;
+      }
+    }
+    statement.execute();
+    Arrays.fill(objects, 0, parameters, null);
+    Arrays.fill(types, 0, columnCount, NULL);
+    rowsSinceCommit += bufferedRows;
+    bufferedRows = 0;
+    if (rowsSinceCommit >= commitInterval) {
+      database.setTransactionSuccessful();
+      database.endTransaction();
+      database.beginTransaction();
+      rowsSinceCommit = 0;
+    }
+  }
+
+  private PreparedStatement statement(int rows) throws SQLiteGdxException {
+    PreparedStatement statement = statements.get(rows);
+    if (statement == null) {
+      StringBuilder row = new StringBuilder("(");
+      for (int c = 0; c < columnCount; c++) {
+        row.append(c == 0 ? "?" : ", ?");
+      }
+      row.append(')');
+      StringBuilder sql = new StringBuilder("INSERT INTO ");
+      sql.append(table).append(" (").append(columnList).append(") VALUES ");
+      for (int r = 0; r < rows; r++) {
+        if (r > 0) sql.append(", ");
+        sql.append(row);
+      }
+      statement = database.getPreparedStatement(sql.toString());
+      if (statement == null) {
+        throw new SQLiteGdxException("Prepared statements are not supported by this backend");
+      }
+      statements.put(rows, statement);
+    }
+    return statement;
+  }
+
+  private void end(boolean committed) throws SQLiteGdxException {
+    if (!committed) {
+      rowCount -= rowsSinceCommit + bufferedRows;
+    }
+    active = false;
+    bufferedRows = 0;
+    Arrays.fill(objects, null);
+    try {
+      try {
+        for (PreparedStatement statement : statements.values()) {
+          statement.close();
+        }
+      } finally {
+        statements.clear();
+        database.endTransaction();
+      }
+    } finally {
+      restorePragmas();
+    }
+  }
+
+  private void applyBulkPragmas() throws SQLiteGdxException {
+    previousSynchronous = queryInt("PRAGMA synchronous");
+    previousCacheSize = queryInt("PRAGMA cache_size");
+    database.execSQL("PRAGMA synchronous = OFF");
+    database.execSQL("PRAGMA cache_size = -65536");
+    String journalMode = queryString("PRAGMA journal_mode");
+    if (journalMode != null && !"wal".equalsIgnoreCase(journalMode)) {
+      // the journal mode PRAGMA returns the new mode as a row
+      queryString("PRAGMA journal_mode = MEMORY");
+      previousJournalMode = journalMode;
+    }
+  }
+
+  private void restorePragmas() throws SQLiteGdxException {
+    if (previousSynchronous < 0) {
+      return;
+    }
+    try {
+      database.execSQL("PRAGMA synchronous = " + previousSynchronous);
+      database.execSQL("PRAGMA cache_size = " + previousCacheSize);
+      if (previousJournalMode != null) {
+        queryString("PRAGMA journal_mode = " + previousJournalMode);
+      }
+    } finally {
+      previousSynchronous = -1;
+      previousJournalMode = null;
+    }
+  }
+
+  private int queryInt(String sql) throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery(sql);
+    try {
+      return cursor.next() ? cursor.getInt(0) : 0;
+    } finally {
+      cursor.close();
+    }
+  }
+
+  private String queryString(String sql) throws SQLiteGdxException {
+    DatabaseCursor cursor = database.rawQuery(sql);
+    try {
+      return cursor.next() ? cursor.getString(0) : null;
+    } finally {
+      cursor.close();
+    }
+  }
+
+  private int cell(int column) {
+    if (column < 0 || column >= columnCount) {
+      throw new IndexOutOfBoundsException(
+          "Column index out of bounds: " + column + " count=" + columnCount);
+    }
+    checkActive();
+    return bufferedRows * columnCount + column;
+  }
+
+  private void checkActive() {
+    if (!active) {
+      throw new IllegalStateException("No load in progress, call begin() first");
+    }
+  }
+
+  private void checkIdle() {
+    if (active) {
+      throw new IllegalStateException("Not allowed while a load is in progress");
+    }
+  }
+
+  private static String quote(String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,66 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Lets one thread stop queries started by another. Pass the token to {@link
+ * Database#rawQuery(String, long, CancellationToken)} or {@link
+ * PreparedStatement#executeQuery(DatabaseCursor, long, CancellationToken)}; calling {@link
+ * #cancel()} then interrupts the query if it is running and makes it fail with a {@link
+ * QueryCancelledException}. A query started with a token that is already cancelled fails right
+ * away.
+ *
+ * <p>A token stays cancelled until {@link #reset()}, so one token can stop a whole sequence of
+ * queries, e.g. all loading for a screen the player has left.
+ *
+ * <p>Thread-safety: All methods may be called from any thread.
+ */
+public final class CancellationToken {
+
+  private volatile boolean cancelled = false;
+  // Interrupts the query currently running with this token, registered by the backend.
+  private Runnable interrupt = null;
+
+  /** Cancels the token and interrupts the query running with it, if any. */
+  public void cancel() {
+    Runnable running;
+    synchronized (this) {
+      cancelled = true;
+      running = interrupt;
+    }
+    if (running != null) {
+      running.run();
+    }
+  }
+
+  /**
+   * @return whether {@link #cancel()} was called since the token was created or last reset
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /** Makes the token usable for new queries again. */
+  public void reset() {
+    cancelled = false;
+  }
+
+  /**
+   * Called by backends when a query starts with this token.
+   *
+   * @param interrupt interrupts the query; run on the thread calling {@link #cancel()}
+   * @return {@code false} if the token is already cancelled and the query must not start
+   */
+  public synchronized boolean register(Runnable interrupt) {
+    if (cancelled) {
+      return false;
+    }
+    this.interrupt = interrupt;
+    return true;
+  }
+
+  /** Called by backends when the query registered with {@link #register(Runnable)} ends. */
+  public synchronized void unregister(Runnable interrupt) {
+    if (this.interrupt == interrupt) {
+      this.interrupt = null;
+    }
+  }
+}
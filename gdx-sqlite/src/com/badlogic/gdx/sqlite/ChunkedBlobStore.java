@@ -0,0 +1,411 @@
+package com.badlogic.gdx.sqlite;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores large binary values, such as replays or textures, as rows of fixed-size chunks so that
+ * they can be read and written in ranges through a {@link DatabaseBlob}. SQLite reads and writes a
+ * cell as a whole: reading a range of a single 100 MB cell loads all of it, and changing a range
+ * rewrites it, so streaming through one cell costs quadratic I/O. A chunk row is read and written
+ * on its own, so a range only costs the chunks it covers.
+ *
+ * <pre>
+ * ChunkedBlobStore replays = new ChunkedBlobStore(db, "replay_chunk");
+ * replays.createTable();
+ * replays.write(replayId, new FileInputStream(file));
+ *
+ * DatabaseBlob blob = replays.open(replayId);
+ * InputStream in = blob.getInputStream(ChunkedBlobStore.DEFAULT_CHUNK_SIZE);
+ * ...
+ * blob.close();
+ * </pre>
+ *
+ * <p>Values are identified by a {@code long} id, usually the rowid of the row that owns the value.
+ * The chunk size is part of the stored format; a table must always be used with the chunk size it
+ * was written with. {@link #create(long, long)}, {@link #write(long, InputStream)} and {@link
+ * #delete(long)} run in a transaction of their own and must not be called inside another one.
+ *
+ * <p>Thread-safety: Not thread-safe. Use only from the thread that created it.
+ */
+public final class ChunkedBlobStore {
+
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+  private final Database database;
+  private final String table;
+  private final int chunkSize;
+
+  /**
+   * @param database open database holding the table
+   * @param table name of the chunk table, see {@link #createTable()}
+   */
+  public ChunkedBlobStore(Database database, String table) {
+    this(database, table, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * @param database open database holding the table
+   * @param table name of the chunk table, see {@link #createTable()}
+   * @param chunkSize bytes per chunk row. Larger chunks mean fewer rows, smaller ones less I/O per
+   *     small range.
+   */
+  public ChunkedBlobStore(Database database, String table, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.database = database;
+    this.table = '"' + table.replace("\"", "\"\"") + '"';
+    this.chunkSize = chunkSize;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Creates the chunk table unless it exists.
+   *
+   * @throws SQLiteGdxException if the table cannot be created
+   */
+  public void createTable() throws SQLiteGdxException {
+    database.execSQL(
+        "CREATE TABLE IF NOT EXISTS "
+            + table
+            + " (id INTEGER NOT NULL, chunk INTEGER NOT NULL, data BLOB NOT NULL,"
+            + " PRIMARY KEY (id, chunk))");
+  }
+
+  /**
+   * Replaces the value with {@code length} zero bytes, to be filled range by range through the
+   * returned handle. The zeros are written by SQLite; no buffer of that size is allocated.
+   *
+   * @param id id of the value
+   * @param length size of the value in bytes
+   * @return a new handle on the value that must be closed when no longer needed
+   * @throws SQLiteGdxException if writing fails
+   */
+  public DatabaseBlob create(long id, long length) throws SQLiteGdxException {
+    if (length < 0) {
+      throw new IllegalArgumentException("length must not be negative: " + length);
+    }
+    PreparedStatement insert = null;
+    database.beginTransaction();
+    try {
+      insert = prepare("INSERT INTO " + table + " (id, chunk, data) VALUES (?, ?, zeroblob(?))");
+      deleteChunks(id);
+      for (long chunk = 0; chunk * chunkSize < length; chunk++) {
+        insert.setLong(1, id);
+        insert.setLong(2, chunk);
+        insert.setInt(3, (int) Math.min(chunkSize, length - chunk * chunkSize));
+        insert.executeInsert();
+      }
+      database.setTransactionSuccessful();
+    } finally {
+      try {
+        database.endTransaction();
+      } finally {
+        if (insert != null) {
+          insert.close();
+        }
+      }
+    }
+    return open(id);
+  }
+
+  /**
+   * Replaces the value with the remaining bytes of the stream, reading one chunk at a time. The
+   * stream is not closed.
+   *
+   * @param id id of the value
+   * @param in bytes of the new value
+   * @return size of the new value in bytes
+   * @throws SQLiteGdxException if reading the stream or writing fails; the previous value is kept
+   */
+  public long write(long id, InputStream in) throws SQLiteGdxException {
+    PreparedStatement insert = null;
+    byte[] buffer = new byte[chunkSize];
+    long length = 0;
+    database.beginTransaction();
+    try {
+      insert = prepare("INSERT INTO " + table + " (id, chunk, data) VALUES (?, ?, ?)");
+      deleteChunks(id);
+      for (long chunk = 0; ; chunk++) {
+        int count = readFully(in, buffer);
+        if (count == 0) {
+          break;
+        }
+        insert.setLong(1, id);
+        insert.setLong(2, chunk);
+        insert.setBytes(3, count == chunkSize ? buffer : Arrays.copyOf(buffer, count));
+        insert.executeInsert();
+        length += count;
+        if (count < chunkSize) {
+          break;
+        }
+      }
+      database.setTransactionSuccessful();
+    } catch (IOException e) {
+      throw new SQLiteGdxException("There was an error in reading the value of " + id, e);
+    } finally {
+      try {
+        database.endTransaction();
+      } finally {
+        if (insert != null) {
+          insert.close();
+        }
+      }
+    }
+    return length;
+  }
+
+  /**
+   * Opens a handle for reading and writing the value in ranges. A value that was never written
+   * reads as empty.
+   *
+   * @param id id of the value
+   * @return a new handle that must be closed when no longer needed
+   */
+  public DatabaseBlob open(long id) {
+    return new ChunkedBlob(id);
+  }
+
+  /**
+   * Deletes the value.
+   *
+   * @param id id of the value
+   * @throws SQLiteGdxException if deleting fails
+   */
+  public void delete(long id) throws SQLiteGdxException {
+    database.beginTransaction();
+    try {
+      deleteChunks(id);
+      database.setTransactionSuccessful();
+    } finally {
+      database.endTransaction();
+    }
+  }
+
+  private void deleteChunks(long id) throws SQLiteGdxException {
+    PreparedStatement delete = prepare("DELETE FROM " + table + " WHERE id = ?");
+    try {
+      delete.setLong(1, id);
+      delete.executeUpdateDelete();
+    } finally {
+      delete.close();
+    }
+  }
+
+  private PreparedStatement prepare(String sql) throws SQLiteGdxException {
+    PreparedStatement statement = database.getPreparedStatement(sql);
+    if (statement == null) {
+      throw new SQLiteGdxException("Prepared statements are not supported by this backend");
+    }
+    return statement;
+  }
+
+  private static int readFully(InputStream in, byte[] buffer) throws IOException {
+    int count = 0;
+    while (count < buffer.length) {
+      int read = in.read(buffer, count, buffer.length - count);
+      if (read < 0) {
+        break;
+      }
+      count += read;
+    }
+    return count;
+  }
+
+  /** Handle on one value; every range touches only the chunk rows it covers. */
+  private final class ChunkedBlob implements DatabaseBlob {
+
+    private final long id;
+
+    private PreparedStatement lengthStatement = null;
+    private PreparedStatement readStatement = null;
+    private PreparedStatement writeStatement = null;
+    private DatabaseCursor cursor = null;
+    private long length = -1;
+
+    ChunkedBlob(long id) {
+      this.id = id;
+    }
+
+    @Override
+    public long length() throws SQLiteGdxException {
+      if (length < 0) {
+        if (lengthStatement == null) {
+          lengthStatement =
+              prepare(
+                  "SELECT chunk, length(data) FROM "
+                      + table
+                      + " WHERE id = ? ORDER BY chunk DESC LIMIT 1");
+        }
+        lengthStatement.setLong(1, id);
+        cursor = query(lengthStatement);
+        length = cursor.next() ? cursor.getLong(0) * chunkSize + cursor.getLong(1) : 0;
+      }
+      return length;
+    }
+
+    @Override
+    public int read(long offset, ByteBuffer dst) throws SQLiteGdxException {
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset must not be negative: " + offset);
+      }
+      if (offset >= length()) {
+        return -1;
+      }
+      int total = 0;
+      while (dst.hasRemaining() && offset < length) {
+        int within = (int) (offset % chunkSize);
+        int count = (int) Math.min(Math.min(dst.remaining(), chunkSize - within), length - offset);
+        byte[] bytes = readChunk(offset / chunkSize, within, count);
+        dst.put(bytes);
+        total += bytes.length;
+        offset += bytes.length;
+        if (bytes.length < count) {
+          break; // the value was shortened by someone else
+        }
+      }
+      return total;
+    }
+
+    @Override
+    public void write(long offset, ByteBuffer src) throws SQLiteGdxException {
+      if (offset < 0) {
+        throw new IllegalArgumentException("offset must not be negative: " + offset);
+      }
+      int remaining = src.remaining();
+      if (offset + remaining > length()) {
+        throw new SQLiteGdxException(
+            "Blob write out of range: offset="
+                + offset
+                + " size="
+                + remaining
+                + " length="
+                + length);
+      }
+      if (writeStatement == null) {
+        writeStatement = prepare("UPDATE " + table + " SET data = ? WHERE id = ? AND chunk = ?");
+      }
+      while (src.hasRemaining()) {
+        long chunk = offset / chunkSize;
+        int within = (int) (offset % chunkSize);
+        int chunkLength = (int) Math.min(chunkSize, length - chunk * chunkSize);
+        int count = Math.min(src.remaining(), chunkLength - within);
+        byte[] bytes;
+        if (count == chunkLength) {
+          bytes = new byte[count];
+        } else {
+          // only this chunk is read back and rewritten
+          bytes = readChunk(chunk, 0, chunkLength);
+        }
+        src.get(bytes, within, count);
+        writeStatement.setBytes(1, bytes);
+        writeStatement.setLong(2, id);
+        writeStatement.setLong(3, chunk);
+        writeStatement.executeUpdateDelete();
+        offset += count;
+      }
+    }
+
+    @Override
+    public InputStream getInputStream(final int chunkSize) {
+      if (chunkSize <= 0) {
+        throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+      }
+      return new InputStream() {
+        private final ByteBuffer chunk = ByteBuffer.allocate(chunkSize);
+        private long position = 0;
+
+        {
+          // start empty so the first read fetches a chunk (Buffer casts keep Java 8 compatibility)
+          ((Buffer) chunk).limit(0);
+        }
+
+        @Override
+        public int read() throws IOException {
+          return fill() ? chunk.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          if (len == 0) {
+            return 0;
+          }
+          if (!fill()) {
+            return -1;
+          }
+          int count = Math.min(len, chunk.remaining());
+          chunk.get(b, off, count);
+          return count;
+        }
+
+        private boolean fill() throws IOException {
+          if (chunk.hasRemaining()) {
+            return true;
+          }
+          ((Buffer) chunk).clear();
+          try {
+            int count = ChunkedBlob.this.read(position, chunk);
+            ((Buffer) chunk).flip();
+            if (count <= 0) {
+              return false;
+            }
+            position += count;
+            return true;
+          } catch (SQLiteGdxException e) {
+            throw new IOException(e);
+          }
+        }
+      };
+    }
+
+    @Override
+    public void close() throws SQLiteGdxException {
+      try {
+        if (cursor != null) {
+          cursor.close();
+        }
+        if (lengthStatement != null) {
+          lengthStatement.close();
+        }
+        if (readStatement != null) {
+          readStatement.close();
+        }
+        if (writeStatement != null) {
+          writeStatement.close();
+        }
+      } finally {
+        cursor = null;
+        lengthStatement = null;
+        readStatement = null;
+        writeStatement = null;
+      }
+    }
+
+    private byte[] readChunk(long chunk, int offset, int count) throws SQLiteGdxException {
+      if (readStatement == null) {
+        readStatement =
+            prepare("SELECT substr(data, ?, ?) FROM " + table + " WHERE id = ? AND chunk = ?");
+      }
+      readStatement.setInt(1, offset + 1);
+      readStatement.setInt(2, count);
+      readStatement.setLong(3, id);
+      readStatement.setLong(4, chunk);
+      cursor = query(readStatement);
+      if (!cursor.next()) {
+        throw new SQLiteGdxException("No chunk " + chunk + " of value " + id + " in " + table);
+      }
+      return cursor.getBlob(0);
+    }
+
+    private DatabaseCursor query(PreparedStatement statement) throws SQLiteGdxException {
+      return cursor == null ? statement.executeQuery() : statement.executeQuery(cursor);
+    }
+  }
+}
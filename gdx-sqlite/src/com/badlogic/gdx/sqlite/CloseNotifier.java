@@ -0,0 +1,48 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.Gdx;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the {@link DatabaseCloseListener}s of a database and calls them when it closes. Used by the
+ * backends to implement {@link Database#addCloseListener(DatabaseCloseListener)}.
+ *
+ * <p>Thread-safety: The methods of this class may be called from any thread.
+ */
+public final class CloseNotifier {
+
+  private final CopyOnWriteArrayList<DatabaseCloseListener> listeners =
+      new CopyOnWriteArrayList<>();
+
+  /**
+   * @param listener listener to add; adding it twice has no effect
+   */
+  public void addListener(DatabaseCloseListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener is null");
+    }
+    listeners.addIfAbsent(listener);
+  }
+
+  public void removeListener(DatabaseCloseListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Calls every listener; called by {@link Database#closeDatabase()} before it closes anything. A
+   * listener that fails is logged, so that the database still closes.
+   *
+   * @param database the database that is closing
+   */
+  public void closing(Database database) {
+    for (DatabaseCloseListener listener : listeners) {
+      try {
+        listener.closing(database);
+      } catch (RuntimeException e) {
+        if (Gdx.app != null) {
+          Gdx.app.log(DatabaseFactory.ERROR_TAG, "A close listener failed", e);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Reusable reference to a result column by name. The column index is resolved the first time the
+ * handle is used with a cursor and cached afterwards, so reading a column through a handle costs no
+ * more than reading it by index. The cached index is resolved again only when the cursor reports a
+ * different column layout (see {@link DatabaseCursor#getColumnLayout()}), which keeps a handle
+ * valid when a cursor is reused through {@link Database#rawQuery(DatabaseCursor, String)}.
+ *
+ * <p>Typical usage is to keep handles in fields and read through the handle based getters:
+ *
+ * <pre>
+ * private final ColumnHandle score = new ColumnHandle("score");
+ *
+ * while (cursor.next()) {
+ *   total += cursor.getInt(score);
+ * }
+ * </pre>
+ *
+ * <p>Thread-safety: Not thread-safe. Use a handle from one thread at a time.
+ */
+public final class ColumnHandle {
+
+  private final String name;
+  private DatabaseCursor cursor = null;
+  private int layout = DatabaseCursor.UNKNOWN_LAYOUT;
+  private int index = -1;
+
+  /**
+   * @param name column name (or alias) as used in the query, compared ignoring case
+   */
+  public ColumnHandle(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Column name is null");
+    }
+    this.name = name;
+  }
+
+  /**
+   * @return the column name this handle refers to
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the zero-based index of this column in the given cursor, resolving it only if the
+   * cursor or its column layout changed since the last call.
+   *
+   * @param cursor cursor to look the column up in
+   * @return zero-based column index, or -1 if the cursor has no such column
+   */
+  public int indexIn(DatabaseCursor cursor) {
+    int current = cursor.getColumnLayout();
+    if (cursor != this.cursor || current != layout || current == DatabaseCursor.UNKNOWN_LAYOUT) {
+      index = cursor.getColumnIndex(name);
+      this.cursor = cursor;
+      layout = current;
+    }
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -48,7 +48,9 @@ public interface Database {
    *
    * <p>The returned prepared statement must be closed by the caller when no longer needed to free
    * native resources. Use the various {@code setXxx(...)} methods on the resulting {@link
-   * com.badlogic.gdx.sqlite.PreparedStatement} to bind parameters before execution.
+   * com.badlogic.gdx.sqlite.PreparedStatement} to bind parameters before execution. Backends with a
+   * statement cache (see {@link #setStatementCacheSize(int)}) keep a closed statement for reuse, so
+   * do not use a statement after closing it.
    *
    * @param query SQL statement to compile (may contain {@code ?} placeholders for bound parameters)
    * @return a compiled prepared statement ready for parameter binding and execution
@@ -58,6 +60,201 @@ public interface Database {
   com.badlogic.gdx.sqlite.PreparedStatement getPreparedStatement(String query)
       throws com.badlogic.gdx.sqlite.SQLiteGdxException;
 
+  /**
+   * Sets how many idle prepared statements are kept for reuse. Backends with a statement cache
+   * return a closed statement to the cache instead of finalizing it, and hand it out again, reset
+   * and with cleared parameters, when {@link #getPreparedStatement(String)} is called with the same
+   * SQL text. This skips parsing and planning the query again. When the cache is full the least
+   * recently used statement is closed. A size of 0 disables the cache.
+   *
+   * <p>Backends without a statement cache ignore this setting.
+   *
+   * @param size maximum number of idle statements kept
+   */
+  default void setStatementCacheSize(int size) {}
+
+  /**
+   * @return number of {@link #getPreparedStatement(String)} calls served from the statement cache,
+   *     or 0 if the backend has no statement cache
+   */
+  default long getStatementCacheHits() {
+    return 0;
+  }
+
+  /**
+   * @return number of {@link #getPreparedStatement(String)} calls that had to prepare a new
+   *     statement, or 0 if the backend has no statement cache
+   */
+  default long getStatementCacheMisses() {
+    return 0;
+  }
+
+  /**
+   * Sets how much memory the query result cache may use. Backends with a result cache keep the
+   * buffered results of {@link #rawQuery(String)} and of prepared statement queries, keyed by SQL
+   * text and bound parameters, and serve repeated identical queries from memory until a table the
+   * query reads is written through this database. When the cache is full the least recently used
+   * results are evicted. A size of 0, the default, disables the cache.
+   *
+   * <p>Cached results are shared between cursors: do not modify arrays returned by {@link
+   * DatabaseCursor#getBlob(int)}. Writes made by other processes or other connections to the same
+   * file are not noticed; call {@link #clearQueryCache()} after them. Backends without a result
+   * cache ignore this setting.
+   *
+   * @param maxBytes estimated heap size the cached results may take, 0 to disable the cache
+   */
+  default void setQueryCacheSize(long maxBytes) {}
+
+  /** Drops every cached query result, see {@link #setQueryCacheSize(long)}. */
+  default void clearQueryCache() {}
+
+  /**
+   * @return number of queries served from the query result cache
+   */
+  default long getQueryCacheHits() {
+    return 0;
+  }
+
+  /**
+   * @return number of cacheable queries that had to run because their result was not cached
+   */
+  default long getQueryCacheMisses() {
+    return 0;
+  }
+
+  /**
+   * @return number of results evicted from the query result cache to stay within its size
+   */
+  default long getQueryCacheEvictions() {
+    return 0;
+  }
+
+  /**
+   * @return number of cached results dropped because a table they read was written
+   */
+  default long getQueryCacheInvalidations() {
+    return 0;
+  }
+
+  /**
+   * @return estimated heap size, in bytes, of the results held by the query result cache
+   */
+  default long getQueryCacheBytes() {
+    return 0;
+  }
+
+  /**
+   * Registers a listener that is told which tables each committed transaction wrote, so that
+   * results can be refreshed when they change instead of polling; see {@link LiveQueries}.
+   * Transactions that roll back are not reported.
+   *
+   * <p>The desktop backend learns about writes from SQLite's update and commit hooks and sees
+   * every write on the connection. The update hook does not report rows of {@code WITHOUT ROWID}
+   * tables, so every commit is reported as a change to those tables as well. Other backends track
+   * the statements run through this interface: {@link #execSQL(String)} and the transaction
+   * methods. Writes they cannot attribute to a table, such as schema changes, are reported as a
+   * change to every table.
+   *
+   * @param listener listener to add
+   * @throws UnsupportedOperationException if the backend cannot report writes
+   */
+  default void addTableChangeListener(TableChangeListener listener) {
+    throw new UnsupportedOperationException("Table change notifications are not supported");
+  }
+
+  /**
+   * @param listener listener to remove; does nothing if it was not added
+   */
+  default void removeTableChangeListener(TableChangeListener listener) {}
+
+  /**
+   * Registers a listener that is called when {@link #closeDatabase()} starts, while the database
+   * can still be used, e.g. to commit writes that are still buffered; see {@link
+   * WriteBehindQueue}. Listeners stay registered when the database is opened again.
+   *
+   * @param listener listener to add
+   * @throws UnsupportedOperationException if the backend does not report closing
+   */
+  default void addCloseListener(DatabaseCloseListener listener) {
+    throw new UnsupportedOperationException("Close listeners are not supported");
+  }
+
+  /**
+   * @param listener listener to remove; does nothing if it was not added
+   */
+  default void removeCloseListener(DatabaseCloseListener listener) {}
+
+  /**
+   * Switches the database to write-ahead logging (WAL) and serves reads from a pool of read-only
+   * connections, so that reads do not wait for writes. With WAL a reader sees the last committed
+   * state of the database while a write transaction is in progress on another thread.
+   *
+   * <p>Writes keep a single connection: {@link #execSQL(String)}, prepared statements that write
+   * and transactions run on the writer connection and are serialized, a transaction holding the
+   * writer from {@link #beginTransaction()} until {@link #endTransaction()}. Plain {@code SELECT}
+   * and {@code WITH} queries, through {@link #rawQuery(String)} or {@link
+   * PreparedStatement#executeQuery()}, take a connection from the reader pool, except on the thread
+   * holding a transaction, which reads on the writer connection and sees its own uncommitted
+   * changes. Other statements, such as {@code PRAGMA}s, which read and set the state of the
+   * connection they run on, go to the writer. Once the writer has {@code TEMP} tables or attached
+   * databases, which the readers cannot see, every query runs on it. Streaming and windowed cursors
+   * stay on the writer connection.
+   *
+   * <p>Call before {@link #openOrCreateDatabase()}. In-memory databases cannot use WAL and keep a
+   * single connection. Backends without a connection pool ignore this setting or enable the
+   * platform's own write-ahead logging.
+   *
+   * @param readerConnections number of read-only connections to keep, 0 to disable
+   */
+  default void enableWriteAheadLogging(int readerConnections) {}
+
+  /**
+   * Sets the connection settings applied each time the database is opened, before the create and
+   * upgrade queries run ({@link DatabaseConfig#setQueryOnly(boolean) query-only} mode after them).
+   * Call before {@link #openOrCreateDatabase()}; the configuration is copied. Settings made through
+   * other methods, such as {@link #setBusyTimeout(int)}, are applied after it and take precedence.
+   *
+   * <p>Backends that cannot apply {@code PRAGMA} statements ignore this setting.
+   *
+   * @param config the settings, or {@code null} to keep every default
+   */
+  default void configure(DatabaseConfig config) {}
+
+  /**
+   * @return number of reader connections handed out by the reader pool, or 0 if the backend has no
+   *     reader pool (see {@link #enableWriteAheadLogging(int)})
+   */
+  default long getReaderAcquisitions() {
+    return 0;
+  }
+
+  /**
+   * @return total time, in nanoseconds, spent waiting for a free reader connection
+   */
+  default long getReaderWaitNanos() {
+    return 0;
+  }
+
+  /**
+   * @return longest single wait, in nanoseconds, for a free reader connection
+   */
+  default long getMaxReaderWaitNanos() {
+    return 0;
+  }
+
+  /**
+   * Sets how long SQLite waits for a lock held by another connection before an operation fails
+   * with {@link SQLiteResultCodes#SQLITE_BUSY} ({@code PRAGMA busy_timeout}). This is separate from
+   * any driver level query timeout. Failures that waiting cannot resolve can be retried with a
+   * {@link Retrier}.
+   *
+   * <p>Backends that manage lock waits themselves ignore this setting.
+   *
+   * @param millis maximum wait in milliseconds, 0 to fail immediately
+   * @throws SQLiteGdxException if the setting cannot be applied to an open database
+   */
+  default void setBusyTimeout(int millis) throws SQLiteGdxException {}
+
   /**
    * Begin a database transaction. Nested transactions are not supported; attempting to begin a
    * second transaction before ending the first may result in an exception. After finishing the
@@ -117,6 +314,9 @@ public interface Database {
    * method. Creating your own {@link com.badlogic.gdx.sqlite.DatabaseCursor} and then passing it as
    * an object will not work.
    *
+   * <p>Backends that buffer results keep the cursor's row storage between calls, so polling the
+   * same query repeatedly does not allocate new buffers once they have grown to the result size.
+   *
    * @param cursor existing {@link com.badlogic.gdx.sqlite.DatabaseCursor} object
    * @param sql the SQL query. The SQL string must not be ; terminated
    * @return the passed {@link com.badlogic.gdx.sqlite.DatabaseCursor}.
@@ -126,6 +326,119 @@ public interface Database {
       com.badlogic.gdx.sqlite.DatabaseCursor cursor, String sql)
       throws com.badlogic.gdx.sqlite.SQLiteGdxException;
 
+  /**
+   * Runs the provided SQL like {@link #rawQuery(String)}, but stops it when it runs longer than
+   * {@code timeoutMillis} or when {@code token} is cancelled. Use it to keep queries issued from
+   * the render thread within the frame budget: a query that would take too long fails instead of
+   * stalling the frame.
+   *
+   * <p>The deadline covers executing the query and buffering its rows. It is enforced in
+   * milliseconds. Queries run without it have no time limit.
+   *
+   * <p>Backends that cannot interrupt a running query check the token before starting it and
+   * otherwise run the query to completion.
+   *
+   * @param sql the SQL query. The SQL string must not be ; terminated
+   * @param timeoutMillis time the query may run, 0 for no deadline
+   * @param token token that cancels the query, may be {@code null}
+   * @return {@link com.badlogic.gdx.sqlite.DatabaseCursor}
+   * @throws QueryCancelledException if the deadline passed or the token was cancelled
+   * @throws com.badlogic.gdx.sqlite.SQLiteGdxException if the query fails
+   */
+  default com.badlogic.gdx.sqlite.DatabaseCursor rawQuery(
+      String sql, long timeoutMillis, CancellationToken token)
+      throws com.badlogic.gdx.sqlite.SQLiteGdxException {
+    if (token != null && token.isCancelled()) {
+      throw new QueryCancelledException("Query cancelled before it started: " + sql, false, null);
+    }
+    return rawQuery(sql);
+  }
+
+  /**
+   * Reuses {@code cursor} like {@link #rawQuery(DatabaseCursor, String)} and bounds the query like
+   * {@link #rawQuery(String, long, CancellationToken)}.
+   *
+   * @param cursor existing {@link com.badlogic.gdx.sqlite.DatabaseCursor} object
+   * @param sql the SQL query. The SQL string must not be ; terminated
+   * @param timeoutMillis time the query may run, 0 for no deadline
+   * @param token token that cancels the query, may be {@code null}
+   * @return the passed {@link com.badlogic.gdx.sqlite.DatabaseCursor}.
+   * @throws QueryCancelledException if the deadline passed or the token was cancelled
+   * @throws com.badlogic.gdx.sqlite.SQLiteGdxException if the query fails
+   */
+  default com.badlogic.gdx.sqlite.DatabaseCursor rawQuery(
+      com.badlogic.gdx.sqlite.DatabaseCursor cursor,
+      String sql,
+      long timeoutMillis,
+      CancellationToken token)
+      throws com.badlogic.gdx.sqlite.SQLiteGdxException {
+    if (token != null && token.isCancelled()) {
+      throw new QueryCancelledException("Query cancelled before it started: " + sql, false, null);
+    }
+    return rawQuery(cursor, sql);
+  }
+
+  /**
+   * @return number of queries stopped because they ran past their deadline, or 0 if the backend
+   *     cannot interrupt queries
+   */
+  default long getQueryTimeouts() {
+    return 0;
+  }
+
+  /**
+   * @return number of queries stopped through a cancelled {@link CancellationToken}, including
+   *     queries that did not start because the token was already cancelled
+   */
+  default long getQueryCancellations() {
+    return 0;
+  }
+
+  /**
+   * Runs the provided SQL and returns a forward-only {@link com.badlogic.gdx.sqlite.DatabaseCursor}
+   * that reads rows lazily from the underlying result set instead of buffering the whole result up
+   * front. Use this for very large results where the latency to the first row and the memory needed
+   * to hold every row matter.
+   *
+   * <p>The returned cursor only supports moving forward: {@link DatabaseCursor#reposition(int)} may
+   * skip ahead but not go back, and {@link DatabaseCursor#getCount()} may be computed on demand by
+   * running an additional count query or be unsupported. The cursor holds database resources until
+   * it is exhausted or {@link DatabaseCursor#close() closed}, so always close it when done.
+   *
+   * <p>Backends without a dedicated streaming implementation return {@link #rawQuery(String)}.
+   *
+   * @param sql the SQL query. The SQL string must not be ; terminated
+   * @return a forward-only {@link com.badlogic.gdx.sqlite.DatabaseCursor}
+   * @throws com.badlogic.gdx.sqlite.SQLiteGdxException
+   */
+  default com.badlogic.gdx.sqlite.DatabaseCursor rawQueryStreaming(String sql)
+      throws com.badlogic.gdx.sqlite.SQLiteGdxException {
+    return rawQuery(sql);
+  }
+
+  /**
+   * Runs the provided SQL and returns a {@link com.badlogic.gdx.sqlite.DatabaseCursor} that keeps
+   * only a window of {@code windowSize} rows in memory. {@link DatabaseCursor#reposition(int)} and
+   * {@link DatabaseCursor#getCount()} keep working; rows outside the current window are fetched on
+   * demand by re-running the query for the window that holds them. Use this to scroll through very
+   * large results with bounded memory.
+   *
+   * <p>Because windows are fetched at different times, the query should have a deterministic
+   * {@code ORDER BY} and writes made while the cursor is open may shift rows between windows. The
+   * cursor holds database resources until it is {@link DatabaseCursor#close() closed}.
+   *
+   * <p>Backends whose native cursors are already windowed return {@link #rawQuery(String)}.
+   *
+   * @param sql the SQL query. The SQL string must not be ; terminated
+   * @param windowSize number of rows kept in memory at a time
+   * @return {@link com.badlogic.gdx.sqlite.DatabaseCursor}
+   * @throws com.badlogic.gdx.sqlite.SQLiteGdxException
+   */
+  default com.badlogic.gdx.sqlite.DatabaseCursor rawQueryWindowed(String sql, int windowSize)
+      throws com.badlogic.gdx.sqlite.SQLiteGdxException {
+    return rawQuery(sql);
+  }
+
   /**
    * Return the row id of the last successful {@code INSERT} operation executed on this database
    * connection.
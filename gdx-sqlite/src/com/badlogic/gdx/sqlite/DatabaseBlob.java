@@ -0,0 +1,61 @@
+package com.badlogic.gdx.sqlite;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Handle to a large binary value that is read and written in ranges instead of being materialized
+ * as one {@code byte[]}. Obtain a handle from a {@link ChunkedBlobStore} and {@link #close() close}
+ * it when done.
+ *
+ * <p>Like SQLite's incremental blob I/O, a handle cannot change the size of the value: writes must
+ * fall within the current {@link #length()}. To fill a large value range by range, create it with
+ * its final size first, see {@link ChunkedBlobStore#create(long, long)}.
+ *
+ * <p>Thread-safety: Not thread-safe. Use only from the thread that opened it.
+ */
+public interface DatabaseBlob {
+
+  /**
+   * @return size of the BLOB in bytes
+   * @throws SQLiteGdxException if the size cannot be read
+   */
+  long length() throws SQLiteGdxException;
+
+  /**
+   * Reads bytes starting at the given offset into the remaining space of {@code dst}.
+   *
+   * @param offset zero-based byte offset within the BLOB
+   * @param dst buffer receiving the bytes; its position is advanced by the number of bytes read
+   * @return number of bytes read, or -1 if {@code offset} is at or past the end of the BLOB
+   * @throws IllegalArgumentException if {@code offset} is negative
+   * @throws SQLiteGdxException if reading fails
+   */
+  int read(long offset, ByteBuffer dst) throws SQLiteGdxException;
+
+  /**
+   * Writes the remaining bytes of {@code src} at the given offset.
+   *
+   * @param offset zero-based byte offset within the BLOB
+   * @param src bytes to write; its position is advanced to its limit
+   * @throws IllegalArgumentException if {@code offset} is negative
+   * @throws SQLiteGdxException if the range exceeds {@link #length()} or writing fails
+   */
+  void write(long offset, ByteBuffer src) throws SQLiteGdxException;
+
+  /**
+   * Returns a stream over the whole BLOB that reads it {@code chunkSize} bytes at a time, so at
+   * most one chunk is held in memory.
+   *
+   * @param chunkSize number of bytes fetched per read from the database
+   * @return a new input stream positioned at the start of the BLOB
+   */
+  InputStream getInputStream(int chunkSize);
+
+  /**
+   * Releases the resources of this handle.
+   *
+   * @throws SQLiteGdxException if closing fails
+   */
+  void close() throws SQLiteGdxException;
+}
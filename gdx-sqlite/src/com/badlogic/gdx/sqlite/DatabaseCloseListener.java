@@ -0,0 +1,17 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Called when a database is about to close, see {@link
+ * Database#addCloseListener(DatabaseCloseListener)}.
+ */
+@FunctionalInterface
+public interface DatabaseCloseListener {
+
+  /**
+   * Called on the thread that runs {@link Database#closeDatabase()}, before the connection closes.
+   * The database can still be used, e.g. to write out buffered changes.
+   *
+   * @param database the database that is closing
+   */
+  void closing(Database database);
+}
@@ -0,0 +1,274 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.Array;
+import java.util.Locale;
+
+/**
+ * Connection settings applied with {@code PRAGMA} statements each time a database is opened, see
+ * {@link DatabaseFactory#getNewDatabase(String, int, String, String, DatabaseConfig)}. Settings
+ * that are not set keep SQLite's defaults (or the platform's, on Android).
+ *
+ * <p>Named presets cover the common cases and can be adjusted further:
+ *
+ * <ul>
+ *   <li>{@value #DURABLE}: write-ahead log with a sync on every commit; no committed transaction is
+ *       lost on power failure.
+ *   <li>{@value #GAME_SAVE}: write-ahead log synced at checkpoints only, a larger page cache and
+ *       memory-mapped reads. The last commits before a power failure may be lost, but the file is
+ *       never corrupted.
+ *   <li>{@value #BULK_LOAD}: journal in memory, no syncs, a large page cache and an exclusive lock,
+ *       for filling a database that can be rebuilt if the process dies midway.
+ *   <li>{@value #READ_ONLY_ASSET}: rejects writes, reads through memory mapping and a large page
+ *       cache, for databases shipped with the game.
+ * </ul>
+ *
+ * <pre>
+ * Database db = DatabaseFactory.getNewDatabase("save.db", 1, CREATE, null,
+ *     DatabaseConfig.preset(DatabaseConfig.GAME_SAVE).setBusyTimeout(1000));
+ * </pre>
+ *
+ * <p>Thread-safety: Not thread-safe. Configure before passing it on; databases keep a copy.
+ */
+public final class DatabaseConfig {
+
+  public static final String DURABLE = "durable";
+  public static final String GAME_SAVE = "game-save";
+  public static final String BULK_LOAD = "bulk-load";
+  public static final String READ_ONLY_ASSET = "read-only-asset";
+
+  /** Names of the presets, in the order of the class documentation. */
+  public static final String[] PRESETS = {DURABLE, GAME_SAVE, BULK_LOAD, READ_ONLY_ASSET};
+
+  /** Values of {@code PRAGMA journal_mode}. */
+  public enum JournalMode {
+    DELETE,
+    TRUNCATE,
+    PERSIST,
+    MEMORY,
+    WAL,
+    OFF
+  }
+
+  /** Values of {@code PRAGMA synchronous}. */
+  public enum Synchronous {
+    OFF,
+    NORMAL,
+    FULL,
+    EXTRA
+  }
+
+  /** Values of {@code PRAGMA temp_store}. */
+  public enum TempStore {
+    DEFAULT,
+    FILE,
+    MEMORY
+  }
+
+  /** Values of {@code PRAGMA locking_mode}. */
+  public enum LockingMode {
+    NORMAL,
+    EXCLUSIVE
+  }
+
+  private JournalMode journalMode = null;
+  private Synchronous synchronous = null;
+  private Integer cacheSize = null;
+  private Long mmapSize = null;
+  private TempStore tempStore = null;
+  private Integer pageSize = null;
+  private Integer busyTimeout = null;
+  private LockingMode lockingMode = null;
+  private boolean queryOnly = false;
+
+  /** Creates a configuration that keeps every default. */
+  public DatabaseConfig() {}
+
+  /**
+   * @param name one of {@link #PRESETS}
+   * @return a new configuration holding the preset's settings
+   * @throws IllegalArgumentException if there is no such preset
+   */
+  public static DatabaseConfig preset(String name) {
+    DatabaseConfig config = new DatabaseConfig();
+    switch (name) {
+      case DURABLE:
+        return config
+            .setJournalMode(JournalMode.WAL)
+            .setSynchronous(Synchronous.FULL)
+            .setBusyTimeout(5000);
+      case GAME_SAVE:
+        return config
+            .setJournalMode(JournalMode.WAL)
+            .setSynchronous(Synchronous.NORMAL)
+            .setCacheSize(-8 * 1024)
+            .setMmapSize(64L * 1024 * 1024)
+            .setTempStore(TempStore.MEMORY)
+            .setBusyTimeout(2000);
+      case BULK_LOAD:
+        return config
+            .setJournalMode(JournalMode.MEMORY)
+            .setSynchronous(Synchronous.OFF)
+            .setCacheSize(-64 * 1024)
+            .setTempStore(TempStore.MEMORY)
+            .setLockingMode(LockingMode.EXCLUSIVE);
+      case READ_ONLY_ASSET:
+        return config
+            .setQueryOnly(true)
+            .setCacheSize(-16 * 1024)
+            .setMmapSize(256L * 1024 * 1024)
+            .setTempStore(TempStore.MEMORY);
+      default:
+        throw new IllegalArgumentException("Unknown database preset: " + name);
+    }
+  }
+
+  /**
+   * @return a copy of this configuration
+   */
+  public DatabaseConfig copy() {
+    DatabaseConfig copy = new DatabaseConfig();
+    copy.journalMode = journalMode;
+    copy.synchronous = synchronous;
+    copy.cacheSize = cacheSize;
+    copy.mmapSize = mmapSize;
+    copy.tempStore = tempStore;
+    copy.pageSize = pageSize;
+    copy.busyTimeout = busyTimeout;
+    copy.lockingMode = lockingMode;
+    copy.queryOnly = queryOnly;
+    return copy;
+  }
+
+  /**
+   * Sets the journal mode. {@link JournalMode#WAL} is kept by the database file; the other modes
+   * apply to the connection. On Android the platform manages the journal and only {@link
+   * JournalMode#WAL} (write-ahead logging) is honoured.
+   */
+  public DatabaseConfig setJournalMode(JournalMode journalMode) {
+    this.journalMode = journalMode;
+    return this;
+  }
+
+  public DatabaseConfig setSynchronous(Synchronous synchronous) {
+    this.synchronous = synchronous;
+    return this;
+  }
+
+  /**
+   * @param cacheSize page cache size in pages if positive, or in KiB if negative, as with {@code
+   *     PRAGMA cache_size}
+   */
+  public DatabaseConfig setCacheSize(int cacheSize) {
+    this.cacheSize = cacheSize;
+    return this;
+  }
+
+  /**
+   * @param mmapSize bytes of the file to read through memory mapping, 0 to disable
+   */
+  public DatabaseConfig setMmapSize(long mmapSize) {
+    if (mmapSize < 0) {
+      throw new IllegalArgumentException("mmap size must not be negative: " + mmapSize);
+    }
+    this.mmapSize = mmapSize;
+    return this;
+  }
+
+  public DatabaseConfig setTempStore(TempStore tempStore) {
+    this.tempStore = tempStore;
+    return this;
+  }
+
+  /**
+   * @param pageSize page size in bytes, a power of two between 512 and 65536. Only takes effect
+   *     when the database file is created (or vacuumed), and not in write-ahead logging mode.
+   */
+  public DatabaseConfig setPageSize(int pageSize) {
+    if (pageSize < 512 || pageSize > 65536 || Integer.bitCount(pageSize) != 1) {
+      throw new IllegalArgumentException("Invalid page size: " + pageSize);
+    }
+    this.pageSize = pageSize;
+    return this;
+  }
+
+  /**
+   * @param millis how long to wait for a lock held by another connection, see {@link
+   *     Database#setBusyTimeout(int)}, which overrides this setting when called
+   */
+  public DatabaseConfig setBusyTimeout(int millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("Busy timeout must not be negative: " + millis);
+    }
+    this.busyTimeout = millis;
+    return this;
+  }
+
+  /**
+   * Sets the locking mode. {@link LockingMode#EXCLUSIVE} keeps the file locked by the connection
+   * after its first write, which saves lock traffic but keeps every other connection out,
+   * including the reader connections of {@link Database#enableWriteAheadLogging(int)}.
+   */
+  public DatabaseConfig setLockingMode(LockingMode lockingMode) {
+    this.lockingMode = lockingMode;
+    return this;
+  }
+
+  /**
+   * @param queryOnly whether statements that write fail with {@link
+   *     SQLiteResultCodes#SQLITE_READONLY} ({@code PRAGMA query_only}). Applied after the create
+   *     and upgrade queries, which may still write; not part of {@link #toPragmas(boolean)}.
+   */
+  public DatabaseConfig setQueryOnly(boolean queryOnly) {
+    this.queryOnly = queryOnly;
+    return this;
+  }
+
+  /**
+   * @return the journal mode, or {@code null} if not set
+   */
+  public JournalMode getJournalMode() {
+    return journalMode;
+  }
+
+  /**
+   * @return the busy timeout in milliseconds, or {@code null} if not set
+   */
+  public Integer getBusyTimeout() {
+    return busyTimeout;
+  }
+
+  public boolean isQueryOnly() {
+    return queryOnly;
+  }
+
+  /**
+   * Returns the statements that apply the configuration to a newly opened connection. The page
+   * size comes first and the journal mode before the other settings, so that a new file gets its
+   * page size before the journal mode can prevent it.
+   *
+   * @param readerConnection whether the connection only reads, e.g. a reader connection of a WAL
+   *     database; only settings that affect reads are returned then
+   * @return the {@code PRAGMA} statements, in the order they have to run
+   */
+  public Array<String> toPragmas(boolean readerConnection) {
+    Array<String> pragmas = new Array<>();
+    if (!readerConnection) {
+      add(pragmas, "page_size", pageSize);
+      add(pragmas, "locking_mode", lockingMode);
+      add(pragmas, "journal_mode", journalMode);
+      add(pragmas, "synchronous", synchronous);
+    }
+    add(pragmas, "cache_size", cacheSize);
+    add(pragmas, "mmap_size", mmapSize);
+    add(pragmas, "temp_store", tempStore);
+    add(pragmas, "busy_timeout", busyTimeout);
+    return pragmas;
+  }
+
+  private static void add(Array<String> pragmas, String name, Object value) {
+    if (value != null) {
+      String text = value instanceof Enum ? value.toString().toLowerCase(Locale.ROOT) : "" + value;
+      pragmas.add("PRAGMA " + name + " = " + text);
+    }
+  }
+}
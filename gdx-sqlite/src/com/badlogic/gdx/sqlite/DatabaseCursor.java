@@ -1,5 +1,14 @@
 package com.badlogic.gdx.sqlite;
 
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntFloatMap;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.Pool;
+
 /**
  * Abstraction over a forward (and optionally random) access result set returned from a database
  * query.
@@ -9,10 +18,18 @@ package com.badlogic.gdx.sqlite;
  *
  * <p>Extended by Angel Biedma to add lookup by column name.
  *
+ * <p>The bulk {@code read*} methods read a whole column of the remaining rows at once. They start
+ * with the row after the current one, leave the cursor on the last row they read and read NULL as
+ * 0. Backends that buffer results copy straight out of their buffers, which avoids the per-row
+ * {@link #next()} and getter calls of the default implementations.
+ *
  * @author M Rafay Aleem
  */
 public interface DatabaseCursor {
 
+  /** Value returned by {@link #getColumnLayout()} when a cursor cannot track its column layout. */
+  int UNKNOWN_LAYOUT = -1;
+
   /**
    * Returns the value of the requested column as a byte array.
    *
@@ -125,6 +142,97 @@ public interface DatabaseCursor {
    */
   String getString(String columnName);
 
+  /**
+   * Returns the zero-based index of the given column. The lookup ignores case on every backend and
+   * does not allocate on the desktop and Android backends, but resolving a column once and reading
+   * it by index (or through a {@link ColumnHandle}) is still cheaper than the name based getters.
+   *
+   * @param columnName name of column in database
+   * @return zero-based column index, or -1 if the result has no such column
+   */
+  int getColumnIndex(String columnName);
+
+  /**
+   * Returns a stamp identifying the column layout of the current result. The stamp stays the same
+   * as long as the cursor is reused for results with the same columns and changes otherwise, so
+   * column indices resolved for one result remain valid while the stamp does not change.
+   *
+   * @return layout stamp, or {@link #UNKNOWN_LAYOUT} if the cursor does not track its layout
+   */
+  default int getColumnLayout() {
+    return UNKNOWN_LAYOUT;
+  }
+
+  /**
+   * Returns the value of the requested column as a byte array.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a byte array.
+   */
+  default byte[] getBlob(ColumnHandle column) {
+    return getBlob(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a double.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a double.
+   */
+  default double getDouble(ColumnHandle column) {
+    return getDouble(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a float.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a float.
+   */
+  default float getFloat(ColumnHandle column) {
+    return getFloat(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a int.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a int.
+   */
+  default int getInt(ColumnHandle column) {
+    return getInt(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a long.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a long.
+   */
+  default long getLong(ColumnHandle column) {
+    return getLong(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a short.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a short.
+   */
+  default short getShort(ColumnHandle column) {
+    return getShort(column.indexIn(this));
+  }
+
+  /**
+   * Returns the value of the requested column as a string.
+   *
+   * @param column handle of the target column
+   * @return the value of that column as a string.
+   */
+  default String getString(ColumnHandle column) {
+    return getString(column.indexIn(this));
+  }
+
   /**
    * Move the cursor to the next row.
    *
@@ -135,6 +243,10 @@ public interface DatabaseCursor {
   /**
    * Returns the number of rows in the result set represented by this cursor.
    *
+   * <p>Streaming cursors (see {@link Database#rawQueryStreaming(String)}) may compute the count on
+   * demand with an additional query, or throw a {@link SQLiteGdxRuntimeException} when the count
+   * cannot be determined without consuming the result.
+   *
    * @return total row count
    */
   int getCount();
@@ -147,9 +259,202 @@ public interface DatabaseCursor {
    *
    * <p>After calling this method you may call the typed getters (e.g. {@link #getInt(int)}) to read
    * column values for that row. Behavior is undefined for an index &lt; 0 or &gt;= {@link
-   * #getCount()}.
+   * #getCount()}. Streaming cursors can only move forward and reject a row index before the current
+   * row.
    *
    * @param columnIndex zero-based row index to move to
    */
   void reposition(int columnIndex);
+
+  /**
+   * Reads the requested column of the following rows into {@code dst}, until the array is full or
+   * the result ends. Call again with a new offset to continue with the next rows.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array receiving the values
+   * @param offset index in {@code dst} of the first value
+   * @return number of rows read
+   */
+  default int readInts(int columnIndex, int[] dst, int offset) {
+    int count = 0;
+    while (offset + count < dst.length && next()) {
+      dst[offset + count++] = getInt(columnIndex);
+    }
+    return count;
+  }
+
+  /**
+   * Reads the requested column of the following rows into {@code dst}, until the array is full or
+   * the result ends. Call again with a new offset to continue with the next rows.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array receiving the values
+   * @param offset index in {@code dst} of the first value
+   * @return number of rows read
+   */
+  default int readLongs(int columnIndex, long[] dst, int offset) {
+    int count = 0;
+    while (offset + count < dst.length && next()) {
+      dst[offset + count++] = getLong(columnIndex);
+    }
+    return count;
+  }
+
+  /**
+   * Reads the requested column of the following rows into {@code dst}, until the array is full or
+   * the result ends. Call again with a new offset to continue with the next rows.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array receiving the values
+   * @param offset index in {@code dst} of the first value
+   * @return number of rows read
+   */
+  default int readFloats(int columnIndex, float[] dst, int offset) {
+    int count = 0;
+    while (offset + count < dst.length && next()) {
+      dst[offset + count++] = getFloat(columnIndex);
+    }
+    return count;
+  }
+
+  /**
+   * Reads the requested column of the following rows into {@code dst}, until the array is full or
+   * the result ends. Call again with a new offset to continue with the next rows.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array receiving the values
+   * @param offset index in {@code dst} of the first value
+   * @return number of rows read
+   */
+  default int readDoubles(int columnIndex, double[] dst, int offset) {
+    int count = 0;
+    while (offset + count < dst.length && next()) {
+      dst[offset + count++] = getDouble(columnIndex);
+    }
+    return count;
+  }
+
+  /**
+   * Appends the requested column of all following rows to {@code dst}.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array the values are added to
+   * @return {@code dst}
+   */
+  default IntArray readInts(int columnIndex, IntArray dst) {
+    while (next()) {
+      dst.add(getInt(columnIndex));
+    }
+    return dst;
+  }
+
+  /**
+   * Appends the requested column of all following rows to {@code dst}.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array the values are added to
+   * @return {@code dst}
+   */
+  default LongArray readLongs(int columnIndex, LongArray dst) {
+    while (next()) {
+      dst.add(getLong(columnIndex));
+    }
+    return dst;
+  }
+
+  /**
+   * Appends the requested column of all following rows to {@code dst}.
+   *
+   * @param columnIndex the zero-based index of the target column.
+   * @param dst array the values are added to
+   * @return {@code dst}
+   */
+  default FloatArray readFloats(int columnIndex, FloatArray dst) {
+    while (next()) {
+      dst.add(getFloat(columnIndex));
+    }
+    return dst;
+  }
+
+  /**
+   * Puts the value column of all following rows into {@code dst}, keyed by the key column. A later
+   * row replaces an earlier one with the same key.
+   *
+   * @param keyColumn the zero-based index of the key column.
+   * @param valueColumn the zero-based index of the value column.
+   * @param dst map receiving the entries
+   * @return {@code dst}
+   */
+  default IntIntMap readIntMap(int keyColumn, int valueColumn, IntIntMap dst) {
+    while (next()) {
+      dst.put(getInt(keyColumn), getInt(valueColumn));
+    }
+    return dst;
+  }
+
+  /**
+   * Puts the value column of all following rows into {@code dst}, keyed by the key column. A later
+   * row replaces an earlier one with the same key.
+   *
+   * @param keyColumn the zero-based index of the key column.
+   * @param valueColumn the zero-based index of the value column.
+   * @param dst map receiving the entries
+   * @return {@code dst}
+   */
+  default IntFloatMap readIntFloatMap(int keyColumn, int valueColumn, IntFloatMap dst) {
+    while (next()) {
+      dst.put(getInt(keyColumn), getFloat(valueColumn));
+    }
+    return dst;
+  }
+
+  /**
+   * Maps all following rows into objects obtained from {@code pool} and puts them into {@code dst},
+   * keyed by the key column. An object replaced by a later row with the same key is returned to the
+   * pool.
+   *
+   * @param keyColumn the zero-based index of the key column.
+   * @param dst map receiving the entries
+   * @param pool pool the mapped objects are obtained from
+   * @param mapper copies a row into a pooled object
+   * @param <T> type of the mapped objects
+   * @return {@code dst}
+   */
+  default <T> IntMap<T> readIntMap(
+      int keyColumn, IntMap<T> dst, Pool<T> pool, RowMapper<? super T> mapper) {
+    while (next()) {
+      T value = pool.obtain();
+      mapper.map(this, value);
+      T replaced = dst.put(getInt(keyColumn), value);
+      if (replaced != null) {
+        pool.free(replaced);
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Maps all following rows into objects obtained from {@code pool} and puts them into {@code dst},
+   * keyed by the key column. An object replaced by a later row with the same key is returned to the
+   * pool.
+   *
+   * @param keyColumn the zero-based index of the key column.
+   * @param dst map receiving the entries
+   * @param pool pool the mapped objects are obtained from
+   * @param mapper copies a row into a pooled object
+   * @param <T> type of the mapped objects
+   * @return {@code dst}
+   */
+  default <T> LongMap<T> readLongMap(
+      int keyColumn, LongMap<T> dst, Pool<T> pool, RowMapper<? super T> mapper) {
+    while (next()) {
+      T value = pool.obtain();
+      mapper.map(this, value);
+      T replaced = dst.put(getLong(keyColumn), value);
+      if (replaced != null) {
+        pool.free(replaced);
+      }
+    }
+    return dst;
+  }
 }
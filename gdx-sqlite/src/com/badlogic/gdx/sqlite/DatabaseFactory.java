@@ -41,6 +41,29 @@ public final class DatabaseFactory {
    */
   public static Database getNewDatabase(
       String dbName, int dbVersion, String dbOnCreateQuery, String dbOnUpgradeQuery) {
+    return getDatabaseManager()
+        .getNewDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
+  }
+
+  /**
+   * Like {@link #getNewDatabase(String, int, String, String)}, with connection settings applied
+   * each time the database is opened, e.g. one of the {@link DatabaseConfig#preset(String)
+   * presets}.
+   *
+   * @param config the settings, or {@code null} to keep every default
+   * @return Returns a {@link Database} object pointing to an existing or not-yet-created database.
+   */
+  public static Database getNewDatabase(
+      String dbName,
+      int dbVersion,
+      String dbOnCreateQuery,
+      String dbOnUpgradeQuery,
+      DatabaseConfig config) {
+    return getDatabaseManager()
+        .getNewDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery, config);
+  }
+
+  private static DatabaseManager getDatabaseManager() {
     if (databaseManager == null) {
       switch (Gdx.app.getType()) {
         case Android:
@@ -80,7 +103,7 @@ public final class DatabaseFactory {
           throw new GdxRuntimeException("Unknown platform: " + Gdx.app.getType());
       }
     }
-    return databaseManager.getNewDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
+    return databaseManager;
   }
 
   private DatabaseFactory() {}
@@ -25,4 +25,21 @@ public interface DatabaseManager {
    */
   Database getNewDatabase(
       String dbName, int dbVersion, String dbOnCreateQuery, String dbOnUpgradeQuery);
+
+  /**
+   * Like {@link #getNewDatabase(String, int, String, String)}, with connection settings applied
+   * each time the database is opened, see {@link Database#configure(DatabaseConfig)}.
+   *
+   * @param config the settings, or {@code null} to keep every default
+   */
+  default Database getNewDatabase(
+      String dbName,
+      int dbVersion,
+      String dbOnCreateQuery,
+      String dbOnUpgradeQuery,
+      DatabaseConfig config) {
+    Database database = getNewDatabase(dbName, dbVersion, dbOnCreateQuery, dbOnUpgradeQuery);
+    database.configure(config);
+    return database;
+  }
 }
@@ -0,0 +1,392 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.LongMap;
+import com.badlogic.gdx.utils.ObjectSet;
+import java.util.Locale;
+
+/**
+ * Mapped entities of one table, kept by rowid so that repeated lookups of the same rows skip the
+ * query and the cursor. Entities are loaded on a miss by a {@link Loader}, usually a prepared
+ * {@code SELECT ... WHERE rowid = ?}, and evicted least recently used first once the total weight
+ * of the cached entities exceeds a bound. Weights are entity counts unless a {@link Weigher}
+ * estimates sizes, e.g. in bytes.
+ *
+ * <pre>
+ * EntityCache&lt;Monster&gt; monsters = new EntityCache&lt;&gt;(db, "monster", 2000, rowid -&gt; {
+ *   byId.setLong(1, rowid);
+ *   DatabaseCursor cursor = byId.executeQuery();
+ *   try {
+ *     return cursor.next() ? Monster.from(cursor) : null;
+ *   } finally {
+ *     cursor.close();
+ *   }
+ * });
+ *
+ * Monster monster = monsters.get(id);
+ * </pre>
+ *
+ * <p>The cache stays consistent with writes made through the same {@link Database}, which it
+ * follows with a {@link TableChangeListener}. The desktop backend reports every written row, so
+ * only the written entities are dropped, as soon as they are written. The other backends only
+ * report written tables, so each committed write to the table drops the whole cache. Writes made
+ * by other processes or connections are not seen. SQLite may delete rows without reporting them: a
+ * {@code DELETE} without {@code WHERE} run through the {@link Database} is reported as a change to
+ * every table and drops the whole cache, while rows replaced by {@code INSERT OR REPLACE} for a
+ * conflict on a column other than the rowid stay cached until {@link #invalidate(long)}.
+ *
+ * <p>Cached entities are shared by all callers; treat them as read-only, or write changes back
+ * through SQL, which drops the entity.
+ *
+ * <p>Thread-safety: The methods of this class may be called from any thread; the loader runs on
+ * the calling thread, outside the cache's lock.
+ *
+ * @param <T> type of the entities
+ */
+public final class EntityCache<T> implements Disposable {
+
+  /**
+   * Loads an entity on a cache miss.
+   *
+   * @param <T> type of the entities
+   */
+  @FunctionalInterface
+  public interface Loader<T> {
+    /**
+     * @param rowid rowid of the row
+     * @return the entity, or {@code null} if there is no such row, which is not cached
+     * @throws SQLiteGdxException if the query fails
+     */
+    T load(long rowid) throws SQLiteGdxException;
+  }
+
+  /**
+   * Estimates the weight an entity counts against the bound of the cache.
+   *
+   * @param <T> type of the entities
+   */
+  @FunctionalInterface
+  public interface Weigher<T> {
+    /**
+     * @return weight of the entity, at least 1
+     */
+    long weigh(T entity);
+  }
+
+  private static final class Node<T> {
+    long rowid;
+    T entity;
+    long weight;
+    Node<T> newer;
+    Node<T> older;
+  }
+
+  private final Database database;
+  private final String table;
+  private final Weigher<? super T> weigher;
+  private final Loader<? extends T> loader;
+  private long maxWeight;
+
+  private final LongMap<Node<T>> nodes = new LongMap<>();
+  private Node<T> newest = null;
+  private Node<T> oldest = null;
+  private long weight = 0;
+  // changes with every reported write, so that a load that raced a write is not stored
+  private long version = 0;
+  // rows written by the open transaction, dropped again when it commits
+  private final LongArray writtenRows = new LongArray();
+  private boolean closed = false;
+
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+  private long invalidations = 0;
+
+  private final TableChangeListener listener =
+      new TableChangeListener() {
+        @Override
+        public void rowWritten(String table, long rowid) {
+          if (table.equals(EntityCache.this.table)) {
+            synchronized (EntityCache.this) {
+              writtenRows.add(rowid);
+              invalidateRow(rowid);
+            }
+          }
+        }
+
+        @Override
+        public void tablesChanged(ObjectSet<String> tables) {
+          synchronized (EntityCache.this) {
+            if (tables.size == 0 || (tables.contains(table) && writtenRows.size == 0)) {
+              // the backend did not report single rows
+              invalidateAll();
+            } else if (tables.contains(table)) {
+              // drops entities loaded from a reader that did not see the transaction yet
+              for (int i = 0; i < writtenRows.size; i++) {
+                invalidateRow(writtenRows.get(i));
+              }
+            }
+            writtenRows.clear();
+          }
+        }
+      };
+
+  /**
+   * Creates a cache bounded by the number of entities.
+   *
+   * @param database database the entities are loaded from; its writes are followed
+   * @param table table the entities are stored in
+   * @param maxEntities most entities to keep
+   * @param loader loads an entity on a miss
+   * @throws UnsupportedOperationException if the backend cannot report writes
+   */
+  public EntityCache(Database database, String table, int maxEntities, Loader<? extends T> loader) {
+    this(database, table, maxEntities, entity -> 1, loader);
+  }
+
+  /**
+   * Creates a cache bounded by the total weight of the entities.
+   *
+   * @param database database the entities are loaded from; its writes are followed
+   * @param table table the entities are stored in
+   * @param maxWeight most total weight to keep
+   * @param weigher estimates the weight of an entity, e.g. its size in bytes
+   * @param loader loads an entity on a miss
+   * @throws UnsupportedOperationException if the backend cannot report writes
+   */
+  public EntityCache(
+      Database database,
+      String table,
+      long maxWeight,
+      Weigher<? super T> weigher,
+      Loader<? extends T> loader) {
+    if (database == null || table == null || weigher == null || loader == null) {
+      throw new IllegalArgumentException("database, table, weigher and loader are required");
+    }
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative: " + maxWeight);
+    }
+    this.database = database;
+    this.table = table.toLowerCase(Locale.ROOT);
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+    this.loader = loader;
+    database.addTableChangeListener(listener);
+  }
+
+  /**
+   * Returns the cached entity or loads it.
+   *
+   * @param rowid rowid of the row
+   * @return the entity, or {@code null} if there is no such row
+   * @throws SQLiteGdxException if the loader failed
+   */
+  public T get(long rowid) throws SQLiteGdxException {
+    long startVersion;
+    synchronized (this) {
+      checkOpen();
+      Node<T> node = nodes.get(rowid);
+      if (node != null) {
+        hits++;
+        touch(node);
+        return node.entity;
+      }
+      misses++;
+      startVersion = version;
+    }
+    T entity = loader.load(rowid);
+    if (entity != null) {
+      synchronized (this) {
+        if (version == startVersion && !closed) {
+          store(rowid, entity);
+        }
+      }
+    }
+    return entity;
+  }
+
+  /**
+   * @return the cached entity, or {@code null} if it is not cached; never loads
+   */
+  public synchronized T getIfPresent(long rowid) {
+    Node<T> node = nodes.get(rowid);
+    if (node == null) {
+      return null;
+    }
+    touch(node);
+    return node.entity;
+  }
+
+  /**
+   * Caches an entity known to match its row, e.g. right after inserting it. Call after the write
+   * has committed, as the write itself drops the entity.
+   *
+   * @param rowid rowid of the row
+   * @param entity the entity
+   */
+  public synchronized void put(long rowid, T entity) {
+    checkOpen();
+    if (entity == null) {
+      throw new IllegalArgumentException("entity is null");
+    }
+    store(rowid, entity);
+  }
+
+  /** Drops one entity, e.g. after a write the database cannot report. */
+  public synchronized void invalidate(long rowid) {
+    invalidateRow(rowid);
+  }
+
+  /** Drops every entity. */
+  public synchronized void invalidateAll() {
+    invalidations += nodes.size;
+    nodes.clear();
+    newest = null;
+    oldest = null;
+    weight = 0;
+    version++;
+  }
+
+  /**
+   * @param maxWeight most total weight to keep; entities over it are evicted right away
+   */
+  public synchronized void setMaxWeight(long maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative: " + maxWeight);
+    }
+    this.maxWeight = maxWeight;
+    evict();
+  }
+
+  /**
+   * @return number of cached entities
+   */
+  public synchronized int size() {
+    return nodes.size;
+  }
+
+  /**
+   * @return total weight of the cached entities
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * @return number of entities dropped to stay within the bound
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * @return number of entities dropped because their row was written
+   */
+  public synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  /** Drops every entity and stops following the writes of the database. */
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      invalidateAll();
+    }
+    database.removeTableChangeListener(listener);
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The entity cache of " + table + " was disposed");
+    }
+  }
+
+  private void store(long rowid, T entity) {
+    long entityWeight = Math.max(1, weigher.weigh(entity));
+    Node<T> node = nodes.get(rowid);
+    if (node != null) {
+      weight -= node.weight;
+      unlink(node);
+    } else {
+      node = new Node<>();
+      node.rowid = rowid;
+      nodes.put(rowid, node);
+    }
+    node.entity = entity;
+    node.weight = entityWeight;
+    weight += entityWeight;
+    linkNewest(node);
+    evict();
+  }
+
+  private void invalidateRow(long rowid) {
+    version++;
+    Node<T> node = nodes.remove(rowid);
+    if (node != null) {
+      invalidations++;
+      remove(node);
+    }
+  }
+
+  private void evict() {
+    while (weight > maxWeight && oldest != null) {
+      Node<T> node = oldest;
+      nodes.remove(node.rowid);
+      remove(node);
+      evictions++;
+    }
+  }
+
+  private void touch(Node<T> node) {
+    if (node != newest) {
+      unlink(node);
+      linkNewest(node);
+    }
+  }
+
+  private void remove(Node<T> node) {
+    weight -= node.weight;
+    unlink(node);
+    node.entity = null;
+  }
+
+  private void linkNewest(Node<T> node) {
+    node.older = newest;
+    node.newer = null;
+    if (newest != null) {
+      newest.newer = node;
+    }
+    newest = node;
+    if (oldest == null) {
+      oldest = node;
+    }
+  }
+
+  private void unlink(Node<T> node) {
+    if (node.newer != null) {
+      node.newer.older = node.older;
+    } else {
+      newest = node.older;
+    }
+    if (node.older != null) {
+      node.older.newer = node.newer;
+    } else {
+      oldest = node.newer;
+    }
+    node.newer = null;
+    node.older = null;
+  }
+}
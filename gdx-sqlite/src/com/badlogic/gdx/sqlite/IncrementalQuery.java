@@ -0,0 +1,215 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Reads a large query result a slice at a time, so that loading can be spread over many frames
+ * while the game keeps rendering. Each call to {@link #step(int, long)} hands at most a given
+ * number of rows to the {@link RowHandler}, or as many as fit into a time budget, and then returns
+ * to the caller.
+ *
+ * <p>The query runs on a {@link Database#rawQueryStreaming(String) streaming cursor}, which keeps
+ * its statement and therefore its read transaction open between steps: every row comes from the
+ * same snapshot of the database, even if other connections write in the meantime. Writes on the
+ * same connection while the query is in progress may or may not be seen; in WAL mode the desktop
+ * backend runs the query on a reader connection, so writes do not wait for the job. The job holds
+ * database resources until it has read the last row or is {@link #close() closed}. Backends
+ * without streaming cursors buffer the whole result in the first step and only spread the row
+ * handling.
+ *
+ * <pre>
+ * IncrementalQuery load = new IncrementalQuery(db, "SELECT id, x, y FROM entity ORDER BY id",
+ *     cursor -&gt; world.spawn(cursor.getLong(0), cursor.getFloat(1), cursor.getFloat(2)));
+ *
+ * // in render()
+ * if (!load.isDone()) {
+ *   load.step(0, 4000); // at most 4 ms per frame
+ *   progressBar.setValue(load.getProgress());
+ * }
+ * </pre>
+ *
+ * <p>Thread-safety: Not thread-safe; call all methods from the thread that renders the frames.
+ */
+public final class IncrementalQuery implements Disposable {
+
+  /** Receives the rows of an {@link IncrementalQuery}. */
+  public interface RowHandler {
+    /**
+     * @param cursor cursor positioned on the row; only valid during the call
+     * @throws SQLiteGdxException to stop the query, which is then closed
+     */
+    void row(DatabaseCursor cursor) throws SQLiteGdxException;
+  }
+
+  private final Database database;
+  private final String sql;
+  private final RowHandler handler;
+
+  private DatabaseCursor cursor = null;
+  private boolean done = false;
+  private boolean closed = false;
+  private int rowsRead = 0;
+  private int totalRows = -1;
+  private boolean countable = true;
+  private int steps = 0;
+  private long busyNanos = 0;
+
+  /**
+   * Creates the job; the query starts with the first {@link #step(int, long)}.
+   *
+   * @param database database to read from
+   * @param sql the SQL query. The SQL string must not be ; terminated
+   * @param handler receives every row
+   */
+  public IncrementalQuery(Database database, String sql, RowHandler handler) {
+    if (database == null || sql == null || handler == null) {
+      throw new IllegalArgumentException("database, sql and handler are required");
+    }
+    this.database = database;
+    this.sql = sql;
+    this.handler = handler;
+  }
+
+  /**
+   * Reads rows until {@code maxRows} rows were read, {@code budgetMicros} microseconds have passed
+   * or the result is exhausted. The first step also starts the query, which counts against its
+   * budget. At least one row is read per step, so the job always makes progress.
+   *
+   * @param maxRows most rows to read in this step, 0 for no limit
+   * @param budgetMicros time this step may take, in microseconds, 0 for no limit
+   * @return {@code true} once the last row has been read
+   * @throws SQLiteGdxException if the query or the handler failed; the job is closed
+   * @throws IllegalStateException if the job was closed before it was done
+   */
+  public boolean step(int maxRows, long budgetMicros) throws SQLiteGdxException {
+    if (maxRows < 0 || budgetMicros < 0) {
+      throw new IllegalArgumentException(
+          "Limits must not be negative: maxRows=" + maxRows + " budgetMicros=" + budgetMicros);
+    }
+    if (done) {
+      return true;
+    }
+    if (closed) {
+      throw new IllegalStateException("The query was closed before it was done: " + sql);
+    }
+    long start = System.nanoTime();
+    long deadline = budgetMicros > 0 ? start + budgetMicros * 1000 : Long.MAX_VALUE;
+    steps++;
+    try {
+      if (cursor == null) {
+        cursor = database.rawQueryStreaming(sql);
+      }
+      int read = 0;
+      while (true) {
+        if (!cursor.next()) {
+          finish();
+          break;
+        }
+        handler.row(cursor);
+        rowsRead++;
+        read++;
+        if (read == maxRows || System.nanoTime() - deadline >= 0) {
+          break;
+        }
+      }
+    } catch (SQLiteGdxException | RuntimeException e) {
+      close();
+      throw e;
+    } finally {
+      busyNanos += System.nanoTime() - start;
+    }
+    return done;
+  }
+
+  /**
+   * @return whether the last row has been read
+   */
+  public boolean isDone() {
+    return done;
+  }
+
+  /**
+   * @return number of rows handed to the handler so far
+   */
+  public int getRowsRead() {
+    return rowsRead;
+  }
+
+  /**
+   * Sets the number of rows the query is expected to return, e.g. one stored along with a save
+   * file, so that {@link #getProgress()} does not have to count them.
+   *
+   * @param totalRows expected number of rows
+   */
+  public void setTotalRows(int totalRows) {
+    this.totalRows = totalRows;
+  }
+
+  /**
+   * Returns the number of rows of the whole result. Unless set with {@link #setTotalRows(int)},
+   * the first call after the query started asks the cursor, which may run an additional {@code
+   * COUNT} query over the same data.
+   *
+   * @return number of rows of the result, or -1 if it is not known
+   */
+  public int getTotalRows() {
+    if (totalRows < 0 && countable && cursor != null) {
+      try {
+        totalRows = cursor.getCount();
+      } catch (RuntimeException e) {
+        // the backend cannot count a streaming result; progress stays unknown until the end
+        countable = false;
+      }
+    }
+    return totalRows;
+  }
+
+  /**
+   * @return fraction of the rows read so far between 0 and 1, 1 once done, or -1 if the number of
+   *     rows is not known
+   */
+  public float getProgress() {
+    if (done) {
+      return 1;
+    }
+    int total = getTotalRows();
+    if (total < 0) {
+      return -1;
+    }
+    return total == 0 ? 0 : Math.min(1f, rowsRead / (float) total);
+  }
+
+  /**
+   * @return number of calls to {@link #step(int, long)} that did work
+   */
+  public int getSteps() {
+    return steps;
+  }
+
+  /**
+   * @return total time, in nanoseconds, spent in {@link #step(int, long)}
+   */
+  public long getBusyNanos() {
+    return busyNanos;
+  }
+
+  /** Stops the query and releases its cursor. Rows not read yet are skipped. */
+  public void close() {
+    closed = true;
+    if (cursor != null) {
+      cursor.close();
+      cursor = null;
+    }
+  }
+
+  @Override
+  public void dispose() {
+    close();
+  }
+
+  private void finish() {
+    done = true;
+    totalRows = rowsRead;
+    close();
+  }
+}
@@ -0,0 +1,298 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectSet;
+import java.util.Locale;
+
+/**
+ * Keeps query results up to date without polling: a registered query runs again, on the database
+ * thread of an {@link AsyncDatabase}, only after a committed write touched one of the tables it
+ * reads. The writes are reported by a {@link TableChangeListener} on the wrapped database.
+ *
+ * <p>Changes are collected as they commit and acted upon in {@link #update()}, called once per
+ * frame from the render thread. Any number of commits between two frames re-run each affected
+ * query at most once, and a query never runs twice at the same time: changes that arrive while it
+ * runs make it run once more after its result was delivered. Results are delivered like those of
+ * {@link AsyncDatabase}, on the render thread unless it was created otherwise.
+ *
+ * <pre>
+ * LiveQueries live = new LiveQueries(async);
+ * live.observe(monsterReader, "SELECT * FROM monster WHERE zone = 3",
+ *     new AsyncDatabase.Callback&lt;Array&lt;Monster&gt;&gt;() {
+ *       public void onResult(Array&lt;Monster&gt; monsters) {
+ *         monsterList.setItems(monsters);
+ *       }
+ *
+ *       public void onError(Throwable error) {
+ *         Gdx.app.error("db", "Loading monsters failed", error);
+ *       }
+ *     },
+ *     "monster");
+ *
+ * // in render()
+ * live.update();
+ * </pre>
+ *
+ * <p>Thread-safety: {@link #update()} should be called from the render thread; the other methods
+ * may be called from any thread.
+ */
+public final class LiveQueries implements Disposable {
+
+  /**
+   * A registered query; close it to stop the updates.
+   *
+   * @param <T> type of the result
+   */
+  public final class LiveQuery<T> implements Disposable {
+    private final AsyncDatabase.Task<T> task;
+    private final AsyncDatabase.Callback<? super T> callback;
+    private final String[] tables;
+    private final AsyncDatabase.Callback<T> delivery;
+
+    // guarded by the LiveQueries instance
+    private boolean dirty = true;
+    private boolean running = false;
+    private boolean closed = false;
+    private int runs = 0;
+
+    private LiveQuery(
+        AsyncDatabase.Task<T> task, AsyncDatabase.Callback<? super T> callback, String[] tables) {
+      this.task = task;
+      this.callback = callback;
+      this.tables = tables;
+      this.delivery =
+          new AsyncDatabase.Callback<T>() {
+            @Override
+            public void onResult(T result) {
+              if (finished()) {
+                callback.onResult(result);
+              }
+            }
+
+            @Override
+            public void onError(Throwable error) {
+              if (finished()) {
+                callback.onError(error);
+              }
+            }
+          };
+    }
+
+    /** Runs the query again with the next {@link LiveQueries#update()}, changed or not. */
+    public void refresh() {
+      synchronized (LiveQueries.this) {
+        dirty = true;
+        work = true;
+      }
+    }
+
+    /**
+     * @return how often the query has been started
+     */
+    public int getRuns() {
+      synchronized (LiveQueries.this) {
+        return runs;
+      }
+    }
+
+    /** Stops the updates; a result still being read is dropped. */
+    public void close() {
+      synchronized (LiveQueries.this) {
+        closed = true;
+        queries.removeValue(this, true);
+      }
+    }
+
+    @Override
+    public void dispose() {
+      close();
+    }
+
+    private boolean reads(ObjectSet<String> changed) {
+      if (tables.length == 0) {
+        return true;
+      }
+      for (String table : tables) {
+        if (changed.contains(table)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void start() {
+      dirty = false;
+      running = true;
+      runs++;
+      totalRuns++;
+      async.submit(task, delivery);
+    }
+
+    /**
+     * @return whether the result is to be delivered
+     */
+    private boolean finished() {
+      synchronized (LiveQueries.this) {
+        running = false;
+        if (dirty) {
+          work = true; // changed while it ran
+        }
+        return !closed;
+      }
+    }
+  }
+
+  private final AsyncDatabase async;
+  private final TableChangeListener listener = this::changed;
+  private final Array<LiveQuery<?>> queries = new Array<>();
+
+  // tables changed since the last update(), filled by the committing threads
+  private final ObjectSet<String> changed = new ObjectSet<>();
+  private boolean everyTableChanged = false;
+  // whether update() has anything to do, so that frames without changes only read this flag
+  private volatile boolean work = false;
+  private boolean disposed = false;
+  private long notifications = 0;
+  private long totalRuns = 0;
+
+  /**
+   * Registers a {@link TableChangeListener} on the database wrapped by {@code async}. The database
+   * must be open, or be opened by a task queued before.
+   *
+   * @param async database thread the queries run on
+   */
+  public LiveQueries(AsyncDatabase async) {
+    if (async == null) {
+      throw new IllegalArgumentException("async is null");
+    }
+    this.async = async;
+    async.submit(
+        database -> {
+          database.addTableChangeListener(listener);
+          return null;
+        });
+  }
+
+  /**
+   * Registers a query. It first runs with the next {@link #update()}, and again after every frame
+   * in which a write to one of {@code tables} committed.
+   *
+   * @param task reads the result on the database thread
+   * @param callback receives every result or failure
+   * @param tables tables the query reads, case-insensitive; if none are given, every write re-runs
+   *     the query
+   * @return the registered query
+   */
+  public <T> LiveQuery<T> observe(
+      AsyncDatabase.Task<T> task, AsyncDatabase.Callback<? super T> callback, String... tables) {
+    if (task == null || callback == null) {
+      throw new IllegalArgumentException("task and callback are required");
+    }
+    String[] names = new String[tables.length];
+    for (int i = 0; i < tables.length; i++) {
+      names[i] = tables[i].toLowerCase(Locale.ROOT);
+    }
+    LiveQuery<T> query = new LiveQuery<>(task, callback, names);
+    synchronized (this) {
+      if (disposed) {
+        throw new IllegalStateException("LiveQueries was disposed");
+      }
+      queries.add(query);
+      work = true;
+    }
+    return query;
+  }
+
+  /**
+   * Registers a query whose rows are mapped by the given reader, see {@link
+   * AsyncDatabase#query(PooledRowReader, String, AsyncDatabase.Callback)}. The delivered array is
+   * reused by the next run, which only starts after the callback returned.
+   */
+  public <T> LiveQuery<Array<T>> observe(
+      final PooledRowReader<T> reader,
+      final String sql,
+      AsyncDatabase.Callback<? super Array<T>> callback,
+      String... tables) {
+    return observe(database -> reader.read(database, sql), callback, tables);
+  }
+
+  /**
+   * Starts the queries affected by the writes committed since the last call. Call once per frame
+   * from the render thread; without changes it returns right away.
+   */
+  public void update() {
+    if (!work) {
+      return;
+    }
+    synchronized (this) {
+      work = false;
+      if (everyTableChanged || changed.size > 0) {
+        for (int i = 0; i < queries.size; i++) {
+          LiveQuery<?> query = queries.get(i);
+          if (everyTableChanged || query.reads(changed)) {
+            query.dirty = true;
+          }
+        }
+        changed.clear();
+        everyTableChanged = false;
+      }
+      for (int i = 0; i < queries.size; i++) {
+        LiveQuery<?> query = queries.get(i);
+        if (query.dirty && !query.running) {
+          query.start();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return number of committed transactions reported by the database
+   */
+  public synchronized long getNotifications() {
+    return notifications;
+  }
+
+  /**
+   * @return number of query runs started; lower than the notifications times the queries when
+   *     changes were coalesced or did not affect a query
+   */
+  public synchronized long getRuns() {
+    return totalRuns;
+  }
+
+  /**
+   * Closes every query and removes the listener from the database. Does not dispose the {@link
+   * AsyncDatabase}.
+   */
+  @Override
+  public void dispose() {
+    synchronized (this) {
+      if (disposed) {
+        return;
+      }
+      disposed = true;
+      for (int i = 0; i < queries.size; i++) {
+        queries.get(i).closed = true;
+      }
+      queries.clear();
+    }
+    async.submit(
+        database -> {
+          database.removeTableChangeListener(listener);
+          return null;
+        });
+  }
+
+  private void changed(ObjectSet<String> tables) {
+    synchronized (this) {
+      notifications++;
+      if (tables.size == 0) {
+        everyTableChanged = true;
+      } else {
+        changed.addAll(tables);
+      }
+      work = true;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Reusable reference to a named statement parameter. The parameter index is resolved the first
+ * time the handle is used with a statement and cached afterwards, so binding through a handle skips
+ * the name lookup and costs no more than binding by index. The index is resolved again only when
+ * the handle is used with a different statement.
+ *
+ * <p>Typical usage is to keep handles in fields next to the statement:
+ *
+ * <pre>
+ * private final ParameterHandle id = new ParameterHandle("id");
+ * private final ParameterHandle health = new ParameterHandle("health");
+ *
+ * update = db.getPreparedStatement("UPDATE unit SET health = :health WHERE id = :id");
+ * update.setInt(health, unit.health);
+ * update.setLong(id, unit.id);
+ * update.executeUpdateDelete();
+ * </pre>
+ *
+ * <p>Thread-safety: Not thread-safe. Use a handle from one thread at a time.
+ */
+public final class ParameterHandle {
+
+  private final String name;
+  private PreparedStatement statement = null;
+  private int index = -1;
+
+  /**
+   * @param name parameter name as used in the SQL, with or without its {@code :}, {@code @} or
+   *     {@code $} prefix
+   */
+  public ParameterHandle(String name) {
+    if (name == null) {
+      throw new IllegalArgumentException("Parameter name is null");
+    }
+    this.name = name;
+  }
+
+  /**
+   * @return the parameter name this handle refers to
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the 1-based index of this parameter in the given statement, resolving it only if the
+   * statement changed since the last call.
+   *
+   * @param statement statement to look the parameter up in
+   * @return 1-based parameter index
+   * @throws IllegalArgumentException if the statement has no parameter of this name
+   */
+  public int indexIn(PreparedStatement statement) {
+    if (statement != this.statement) {
+      index = require(statement, name);
+      this.statement = statement;
+    }
+    return index;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  static int require(PreparedStatement statement, String name) {
+    int index = statement.getParameterIndex(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Statement has no parameter named " + name);
+    }
+    return index;
+  }
+}
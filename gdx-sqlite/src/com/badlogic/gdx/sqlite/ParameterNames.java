@@ -0,0 +1,231 @@
+package com.badlogic.gdx.sqlite;
+
+import java.util.Arrays;
+
+/**
+ * Index table of the named parameters of one SQL statement. SQLite accepts {@code :name}, {@code
+ * @name} and {@code $name} placeholders besides {@code ?} and {@code ?NNN}; a name used several
+ * times is a single parameter. The table is built once by scanning the SQL text with SQLite's own
+ * numbering rules, after which {@link #indexOf(String)} is a hash lookup that does not allocate.
+ *
+ * <p>Names can be looked up with or without their prefix character. If a statement uses the same
+ * name with different prefixes (e.g. {@code :id} and {@code @id}), SQLite treats them as two
+ * parameters and a lookup without prefix returns the first of them.
+ *
+ * <p>Thread-safety: Immutable after {@link #parse(String)} returns.
+ */
+public final class ParameterNames {
+
+  private static final ParameterNames NONE = new ParameterNames(new String[0], new int[0], 0, 0);
+
+  // full names including the prefix, with the 1-based index of each
+  private final String[] names;
+  private final int[] indices;
+  private final int count;
+  private final int parameterCount;
+  // open addressing table keyed by the name without prefix, holding entry + 1, 0 marks empty slots
+  private final int[] slots;
+
+  private ParameterNames(String[] names, int[] indices, int count, int parameterCount) {
+    this.names = names;
+    this.indices = indices;
+    this.count = count;
+    this.parameterCount = parameterCount;
+    this.slots = new int[count == 0 ? 0 : Integer.highestOneBit(count * 2) << 1];
+    int mask = slots.length - 1;
+    for (int i = 0; i < count; i++) {
+      int slot = hash(names[i], 1) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i + 1;
+    }
+  }
+
+  /**
+   * Scans the given SQL for parameter placeholders, skipping string literals, quoted identifiers
+   * and comments.
+   *
+   * @param sql SQL text of a single statement
+   * @return the parameter table of the statement
+   * @throws IllegalArgumentException if a {@code ?NNN} placeholder is 0 or too large for an index
+   */
+  public static ParameterNames parse(String sql) {
+    String[] names = null;
+    int[] indices = null;
+    int count = 0;
+    int parameterCount = 0;
+    int length = sql.length();
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      switch (c) {
+        case '\'':
+        case '"':
+        case '`':
+          i = skipPast(sql, i + 1, c);
+          break;
+        case '[':
+          i = skipPast(sql, i + 1, ']');
+          break;
+        case '-':
+          if (i + 1 < length && sql.charAt(i + 1) == '-') {
+            i = skipPast(sql, i + 2, '\n');
+          } else {
+            i++;
+          }
+          break;
+        case '/':
+          if (i + 1 < length && sql.charAt(i + 1) == '*') {
+            int end = sql.indexOf("*/", i + 2);
+            i = end < 0 ? length : end + 2;
+          } else {
+            i++;
+          }
+          break;
+        case '?':
+          {
+            int end = i + 1;
+            while (end < length && sql.charAt(end) >= '0' && sql.charAt(end) <= '9') {
+              end++;
+            }
+            if (end == i + 1) {
+              parameterCount++;
+            } else {
+              parameterCount = Math.max(parameterCount, number(sql, i, end));
+            }
+            i = end;
+            break;
+          }
+        case ':':
+        case '@':
+        case '$':
+          {
+            int end = i + 1;
+            while (end < length && isNameChar(sql.charAt(end))) {
+              end++;
+            }
+            if (end > i + 1) {
+              String name = sql.substring(i, end);
+              if (find(names, count, name) < 0) {
+                if (names == null) {
+                  names = new String[4];
+                  indices = new int[4];
+                } else if (count == names.length) {
+                  names = Arrays.copyOf(names, count * 2);
+                  indices = Arrays.copyOf(indices, count * 2);
+                }
+                names[count] = name;
+                indices[count] = ++parameterCount;
+                count++;
+              }
+            }
+            i = end;
+            break;
+          }
+        default:
+          i++;
+          break;
+      }
+    }
+    if (parameterCount == 0) {
+      return NONE;
+    }
+    if (count == 0) {
+      return new ParameterNames(new String[0], new int[0], 0, parameterCount);
+    }
+    return new ParameterNames(names, indices, count, parameterCount);
+  }
+
+  /**
+   * @param name parameter name, with or without its {@code :}, {@code @} or {@code $} prefix
+   * @return 1-based index of the parameter, or -1 if the statement has no parameter of that name
+   */
+  public int indexOf(String name) {
+    if (count == 0 || name.isEmpty()) {
+      return -1;
+    }
+    char prefix = name.charAt(0);
+    int start = isPrefix(prefix) ? 1 : 0;
+    int length = name.length() - start;
+    int mask = slots.length - 1;
+    for (int slot = hash(name, start) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int entry = slots[slot] - 1;
+      String candidate = names[entry];
+      if (candidate.length() - 1 == length
+          && (start == 0 || candidate.charAt(0) == prefix)
+          && candidate.regionMatches(1, name, start, length)) {
+        return indices[entry];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return number of parameters of the statement, named or not; the largest valid index
+   */
+  public int getParameterCount() {
+    return parameterCount;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder("{");
+    for (int i = 0; i < count; i++) {
+      if (i > 0) text.append(", ");
+      text.append(names[i]).append('=').append(indices[i]);
+    }
+    return text.append('}').toString();
+  }
+
+  private static int find(String[] names, int count, String name) {
+    for (int i = 0; i < count; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int number(String sql, int start, int end) {
+    long number = 0;
+    for (int i = start + 1; i < end; i++) {
+      number = number * 10 + sql.charAt(i) - '0';
+      if (number > Integer.MAX_VALUE) {
+        break;
+      }
+    }
+    if (number < 1 || number > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "Parameter number out of range: " + sql.substring(start, end) + " in " + sql);
+    }
+    return (int) number;
+  }
+
+  private static int skipPast(String sql, int from, char end) {
+    int index = sql.indexOf(end, from);
+    return index < 0 ? sql.length() : index + 1;
+  }
+
+  private static boolean isPrefix(char c) {
+    return c == ':' || c == '@' || c == '$';
+  }
+
+  // identifier characters as accepted by SQLite's tokenizer
+  private static boolean isNameChar(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_'
+        || c == '$'
+        || c >= 0x80;
+  }
+
+  private static int hash(String name, int start) {
+    int h = 0;
+    for (int i = start, n = name.length(); i < n; i++) {
+      h = 31 * h + name.charAt(i);
+    }
+    return h ^ (h >>> 16);
+  }
+}
@@ -0,0 +1,119 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Maps query results into objects obtained from a libGDX {@link Pool}, collected in a reusable
+ * {@link Array}. Every read first returns the objects of the previous read to the pool, so
+ * reloading the same kind of result every frame allocates nothing once the pool, the array and the
+ * cursor have grown to the size of the result:
+ *
+ * <pre>
+ * PooledRowReader&lt;Monster&gt; reader =
+ *     new PooledRowReader&lt;&gt;(monsterPool, new MonsterMapper());
+ * PreparedStatement visible = db.getPreparedStatement("SELECT * FROM monster WHERE zone = ?");
+ *
+ * // every frame
+ * visible.setInt(1, zone);
+ * for (Monster monster : reader.read(visible)) { ... }
+ * </pre>
+ *
+ * The returned array and its objects stay valid until the next read or {@link #free()}. Objects
+ * that must outlive the next read have to be copied or removed from the array before it.
+ *
+ * <p>Allocation-free reuse of the cursor depends on the backend (see {@link
+ * PreparedStatement#executeQuery(DatabaseCursor)}); the mapping itself allocates nothing on every
+ * backend as long as the {@link RowMapper} does not.
+ *
+ * <p>Thread-safety: Not thread-safe. Use only from the thread that created it.
+ *
+ * @param <T> type of the mapped objects
+ */
+public final class PooledRowReader<T> {
+
+  private final Pool<T> pool;
+  private final RowMapper<? super T> mapper;
+  private final Array<T> rows = new Array<>();
+  private DatabaseCursor cursor = null;
+
+  /**
+   * @param pool pool the mapped objects are obtained from and returned to
+   * @param mapper copies a cursor row into a pooled object
+   */
+  public PooledRowReader(Pool<T> pool, RowMapper<? super T> mapper) {
+    if (pool == null || mapper == null) {
+      throw new IllegalArgumentException("pool and mapper must not be null");
+    }
+    this.pool = pool;
+    this.mapper = mapper;
+  }
+
+  /**
+   * Returns the objects of the previous read to the pool and maps every remaining row of the given
+   * cursor. The cursor is left after its last row and is not closed.
+   *
+   * @param cursor cursor positioned before the first row to map
+   * @return the reused array holding one pooled object per row
+   */
+  public Array<T> read(DatabaseCursor cursor) {
+    free();
+    while (cursor.next()) {
+      T row = pool.obtain();
+      rows.add(row);
+      mapper.map(cursor, row);
+    }
+    return rows;
+  }
+
+  /**
+   * Executes the given query and maps its rows like {@link #read(DatabaseCursor)}. The cursor of
+   * the previous call is passed to {@link PreparedStatement#executeQuery(DatabaseCursor)} again, so
+   * its storage is reused between reads. Only pass statements of the same database.
+   *
+   * @param statement query to execute, with its parameters bound
+   * @return the reused array holding one pooled object per row
+   * @throws SQLiteGdxException if the query fails
+   */
+  public Array<T> read(PreparedStatement statement) throws SQLiteGdxException {
+    cursor = cursor == null ? statement.executeQuery() : statement.executeQuery(cursor);
+    return read(cursor);
+  }
+
+  /**
+   * Executes the given SQL and maps its rows like {@link #read(DatabaseCursor)}, reusing the cursor
+   * of the previous call through {@link Database#rawQuery(DatabaseCursor, String)}. Only pass the
+   * same database on every call.
+   *
+   * @param database database to query
+   * @param sql query to execute. The SQL string must not be ; terminated
+   * @return the reused array holding one pooled object per row
+   * @throws SQLiteGdxException if the query fails
+   */
+  public Array<T> read(Database database, String sql) throws SQLiteGdxException {
+    cursor = cursor == null ? database.rawQuery(sql) : database.rawQuery(cursor, sql);
+    return read(cursor);
+  }
+
+  /**
+   * @return the objects mapped by the last read
+   */
+  public Array<T> getRows() {
+    return rows;
+  }
+
+  /** Returns the objects of the last read to the pool and empties the array. */
+  public void free() {
+    pool.freeAll(rows);
+    rows.clear();
+  }
+
+  /** Frees the mapped objects and closes the cursor kept between reads. */
+  public void close() {
+    free();
+    if (cursor != null) {
+      cursor.close();
+      cursor = null;
+    }
+  }
+}
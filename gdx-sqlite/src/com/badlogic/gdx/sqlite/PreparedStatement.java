@@ -1,6 +1,9 @@
 /** */
 package com.badlogic.gdx.sqlite;
 
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Blob;
 
@@ -23,6 +26,18 @@ import java.sql.Blob;
  * stmt.close();
  * </pre>
  *
+ * <p>Parameters can also be bound by name ({@code :name}, {@code @name} or {@code $name}). Names
+ * are resolved to indices once per statement; bind through a {@link ParameterHandle} to skip the
+ * name lookup as well:
+ *
+ * <pre>
+ * PreparedStatement stmt =
+ *     db.getPreparedStatement("UPDATE person SET age = :age WHERE name = :name");
+ * stmt.setInt("age", age);
+ * stmt.setString("name", name);
+ * stmt.executeUpdateDelete();
+ * </pre>
+ *
  * author cycloneqi
  */
 public interface PreparedStatement {
@@ -35,6 +50,60 @@ public interface PreparedStatement {
    */
   DatabaseCursor executeQuery() throws SQLiteGdxException;
 
+  /**
+   * Execute a {@code SELECT} statement and load the result into the given cursor instead of
+   * allocating a new one, in the same way as {@link Database#rawQuery(DatabaseCursor, String)}.
+   * Only pass a cursor previously returned by the same database.
+   *
+   * <p>Backends without cursor reuse return {@link #executeQuery()}.
+   *
+   * @param cursor existing cursor to reuse
+   * @return the cursor holding the result, positioned before the first row
+   * @throws SQLiteGdxException if execution fails
+   */
+  default DatabaseCursor executeQuery(DatabaseCursor cursor) throws SQLiteGdxException {
+    return executeQuery();
+  }
+
+  /**
+   * Execute a {@code SELECT} statement like {@link #executeQuery(DatabaseCursor)}, but stop it when
+   * it runs longer than {@code timeoutMillis} or when {@code token} is cancelled. See {@link
+   * Database#rawQuery(String, long, CancellationToken)}.
+   *
+   * <p>Backends that cannot interrupt a running query check the token before starting it and
+   * otherwise run the query to completion.
+   *
+   * @param cursor existing cursor to reuse, or {@code null} to allocate a new one
+   * @param timeoutMillis time the query may run, 0 for no deadline
+   * @param token token that cancels the query, may be {@code null}
+   * @return the cursor holding the result, positioned before the first row
+   * @throws QueryCancelledException if the deadline passed or the token was cancelled
+   * @throws SQLiteGdxException if execution fails
+   */
+  default DatabaseCursor executeQuery(
+      DatabaseCursor cursor, long timeoutMillis, CancellationToken token)
+      throws SQLiteGdxException {
+    if (token != null && token.isCancelled()) {
+      throw new QueryCancelledException("Query cancelled before it started", false, null);
+    }
+    return cursor == null ? executeQuery() : executeQuery(cursor);
+  }
+
+  /**
+   * Execute a {@code SELECT} statement and return a forward-only cursor that reads rows lazily
+   * instead of buffering the whole result set. See {@link Database#rawQueryStreaming(String)} for
+   * the restrictions of streaming cursors. The cursor becomes invalid once this statement is
+   * executed again or closed.
+   *
+   * <p>Backends without a dedicated streaming implementation return {@link #executeQuery()}.
+   *
+   * @return forward-only cursor positioned before the first row
+   * @throws SQLiteGdxException if execution fails
+   */
+  default DatabaseCursor executeQueryStreaming() throws SQLiteGdxException {
+    return executeQuery();
+  }
+
   /**
    * Execute a statement that does not produce a result set (e.g. DDL or an update where you do not
    * need the affected row count).
@@ -59,6 +128,57 @@ public interface PreparedStatement {
    */
   int executeUpdateDelete() throws SQLiteGdxException;
 
+  /**
+   * Adds the currently bound parameters as a row of this statement's batch. The parameters stay
+   * bound, so the next row only needs to set the values that change. Execute the rows with {@link
+   * #executeBatch(boolean)} or {@link #executeInsertBatch(boolean)}.
+   *
+   * <p>Backends without batch support throw {@link UnsupportedOperationException}.
+   *
+   * @throws SQLiteGdxException if the row cannot be added
+   */
+  default void addBatch() throws SQLiteGdxException {
+    throw new UnsupportedOperationException("Batches are not supported by this backend");
+  }
+
+  /**
+   * Drops every row added with {@link #addBatch()} without executing it.
+   *
+   * @throws SQLiteGdxException if clearing fails
+   */
+  default void clearBatch() throws SQLiteGdxException {
+    throw new UnsupportedOperationException("Batches are not supported by this backend");
+  }
+
+  /**
+   * Executes every row of the batch and clears it.
+   *
+   * <p>With {@code inTransaction} set and no transaction open, all rows run in a single
+   * transaction that is committed at the end and rolled back if a row fails. Without it, every row
+   * is committed on its own unless the caller opened a transaction with {@link
+   * Database#beginTransaction()}.
+   *
+   * @param inTransaction whether to wrap the batch in its own transaction
+   * @return number of rows changed by each batch row, in the order they were added
+   * @throws SQLiteGdxException if a row fails; the batch is cleared either way
+   */
+  default long[] executeBatch(boolean inTransaction) throws SQLiteGdxException {
+    throw new UnsupportedOperationException("Batches are not supported by this backend");
+  }
+
+  /**
+   * Executes every row of an {@code INSERT} batch and clears it, like {@link
+   * #executeBatch(boolean)}.
+   *
+   * @param inTransaction whether to wrap the batch in its own transaction
+   * @return rowid inserted by each batch row, or -1 for a row that inserted nothing (e.g. {@code
+   *     INSERT OR IGNORE})
+   * @throws SQLiteGdxException if a row fails; the batch is cleared either way
+   */
+  default long[] executeInsertBatch(boolean inTransaction) throws SQLiteGdxException {
+    throw new UnsupportedOperationException("Batches are not supported by this backend");
+  }
+
   /**
    * Clear all currently bound parameters so the statement can be reused.
    *
@@ -147,6 +267,41 @@ public interface PreparedStatement {
    */
   void setBlob(int parameterIndex, InputStream stream) throws SQLiteGdxException;
 
+  /**
+   * Bind a BLOB value of known size from the given {@link InputStream}. Exactly {@code length}
+   * bytes are read into a single buffer of that size, avoiding the intermediate copies needed when
+   * the size is unknown.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param stream source stream (caller retains ownership; consumed immediately)
+   * @param length number of bytes to read from the stream
+   * @throws SQLiteGdxException if the stream ends early, cannot be read or binding fails
+   */
+  default void setBlob(int parameterIndex, InputStream stream, int length)
+      throws SQLiteGdxException {
+    byte[] bytes = new byte[length];
+    try {
+      int offset = 0;
+      while (offset < length) {
+        int read = stream.read(bytes, offset, length - offset);
+        if (read < 0) {
+          throw new SQLiteGdxException(
+              "Stream ended after "
+                  + offset
+                  + " of "
+                  + length
+                  + " bytes for parameter index : "
+                  + parameterIndex);
+        }
+        offset += read;
+      }
+    } catch (IOException e) {
+      throw new SQLiteGdxException(
+          "Can't set blob to statement for parameter index : " + parameterIndex, e);
+    }
+    setBytes(parameterIndex, bytes);
+  }
+
   /**
    * Bind a BLOB value from the given byte array.
    *
@@ -155,4 +310,292 @@ public interface PreparedStatement {
    * @throws SQLiteGdxException if binding fails
    */
   void setBytes(int parameterIndex, byte[] b) throws SQLiteGdxException;
+
+  /**
+   * Bind {@code count} values of a {@code long} array, starting at {@code offset}, as a single JSON
+   * array. Use it with {@code json_each} (see {@link ArrayBinding#IN_LIST}) to match against a set
+   * of values with constant SQL text, which keeps the statement cacheable:
+   *
+   * <pre>
+   * PreparedStatement stmt = db.getPreparedStatement(
+   *     "SELECT * FROM entity WHERE id IN (SELECT value FROM json_each(?))");
+   * stmt.setLongArray(1, ids, 0, idCount);
+   * </pre>
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @param offset index of the first value to bind
+   * @param count number of values to bind
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setLongArray(int parameterIndex, long[] values, int offset, int count)
+      throws SQLiteGdxException {
+    if (values == null) {
+      setNull(parameterIndex, java.sql.Types.NULL);
+    } else {
+      StringBuilder json = ArrayBinding.newBuilder(count);
+      setString(parameterIndex, ArrayBinding.appendJson(json, values, offset, count).toString());
+    }
+  }
+
+  /**
+   * Bind a whole {@code long} array as a single JSON array, see {@link #setLongArray(int, long[],
+   * int, int)}.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setLongArray(int parameterIndex, long[] values) throws SQLiteGdxException {
+    setLongArray(parameterIndex, values, 0, values == null ? 0 : values.length);
+  }
+
+  /**
+   * Bind the items of a {@link LongArray} as a single JSON array, see {@link #setLongArray(int,
+   * long[], int, int)}.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setLongArray(int parameterIndex, LongArray values) throws SQLiteGdxException {
+    if (values == null) {
+      setLongArray(parameterIndex, null, 0, 0);
+    } else {
+      setLongArray(parameterIndex, values.items, 0, values.size);
+    }
+  }
+
+  /**
+   * Bind {@code count} values of an {@code int} array, starting at {@code offset}, as a single JSON
+   * array, see {@link #setLongArray(int, long[], int, int)}.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @param offset index of the first value to bind
+   * @param count number of values to bind
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setIntArray(int parameterIndex, int[] values, int offset, int count)
+      throws SQLiteGdxException {
+    if (values == null) {
+      setNull(parameterIndex, java.sql.Types.NULL);
+    } else {
+      StringBuilder json = ArrayBinding.newBuilder(count);
+      setString(parameterIndex, ArrayBinding.appendJson(json, values, offset, count).toString());
+    }
+  }
+
+  /**
+   * Bind a whole {@code int} array as a single JSON array, see {@link #setLongArray(int, long[],
+   * int, int)}.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setIntArray(int parameterIndex, int[] values) throws SQLiteGdxException {
+    setIntArray(parameterIndex, values, 0, values == null ? 0 : values.length);
+  }
+
+  /**
+   * Bind the items of an {@link IntArray} as a single JSON array, see {@link #setLongArray(int,
+   * long[], int, int)}.
+   *
+   * @param parameterIndex 1-based parameter index
+   * @param values values to bind, or {@code null} to bind NULL
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setIntArray(int parameterIndex, IntArray values) throws SQLiteGdxException {
+    if (values == null) {
+      setIntArray(parameterIndex, null, 0, 0);
+    } else {
+      setIntArray(parameterIndex, values.items, 0, values.size);
+    }
+  }
+
+  /**
+   * Returns the 1-based index of a named parameter. Backends resolve the names of a statement once
+   * when it is prepared, so the lookup does not parse the SQL and does not allocate.
+   *
+   * <p>Statements from {@link Database#getPreparedStatement(String)} support named parameters on
+   * the desktop backend. The desktop statement can also wrap a JDBC statement directly; it then
+   * needs the SQL text to know the names.
+   *
+   * @param name parameter name, with or without its {@code :}, {@code @} or {@code $} prefix
+   * @return 1-based parameter index, or -1 if the statement has no parameter of that name
+   * @throws UnsupportedOperationException if the backend has no named parameters, or the statement
+   *     was created without its SQL text
+   */
+  default int getParameterIndex(String name) {
+    throw new UnsupportedOperationException("Named parameters are not supported by this backend");
+  }
+
+  /**
+   * Bind a NULL value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param type SQL type code (e.g. from {@link java.sql.Types})
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setNull(String name, int type) throws SQLiteGdxException {
+    setNull(ParameterHandle.require(this, name), type);
+  }
+
+  /**
+   * Bind an {@code int} value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setInt(String name, int value) throws SQLiteGdxException {
+    setInt(ParameterHandle.require(this, name), value);
+  }
+
+  /**
+   * Bind a {@code long} value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setLong(String name, long value) throws SQLiteGdxException {
+    setLong(ParameterHandle.require(this, name), value);
+  }
+
+  /**
+   * Bind a {@code float} value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setFloat(String name, float value) throws SQLiteGdxException {
+    setFloat(ParameterHandle.require(this, name), value);
+  }
+
+  /**
+   * Bind a {@code double} value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setDouble(String name, double value) throws SQLiteGdxException {
+    setDouble(ParameterHandle.require(this, name), value);
+  }
+
+  /**
+   * Bind a {@link String} value to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param value value to bind (may be {@code null})
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setString(String name, String value) throws SQLiteGdxException {
+    setString(ParameterHandle.require(this, name), value);
+  }
+
+  /**
+   * Bind a BLOB value from the given byte array to a named parameter.
+   *
+   * @param name parameter name, with or without its prefix
+   * @param b data to bind (not copied necessarily; do not modify until after execution)
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setBytes(String name, byte[] b) throws SQLiteGdxException {
+    setBytes(ParameterHandle.require(this, name), b);
+  }
+
+  /**
+   * Bind a NULL value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param type SQL type code (e.g. from {@link java.sql.Types})
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setNull(ParameterHandle parameter, int type) throws SQLiteGdxException {
+    setNull(parameter.indexIn(this), type);
+  }
+
+  /**
+   * Bind an {@code int} value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setInt(ParameterHandle parameter, int value) throws SQLiteGdxException {
+    setInt(parameter.indexIn(this), value);
+  }
+
+  /**
+   * Bind a {@code long} value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setLong(ParameterHandle parameter, long value) throws SQLiteGdxException {
+    setLong(parameter.indexIn(this), value);
+  }
+
+  /**
+   * Bind a {@code float} value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setFloat(ParameterHandle parameter, float value) throws SQLiteGdxException {
+    setFloat(parameter.indexIn(this), value);
+  }
+
+  /**
+   * Bind a {@code double} value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param value value to bind
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setDouble(ParameterHandle parameter, double value) throws SQLiteGdxException {
+    setDouble(parameter.indexIn(this), value);
+  }
+
+  /**
+   * Bind a {@link String} value to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param value value to bind (may be {@code null})
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setString(ParameterHandle parameter, String value) throws SQLiteGdxException {
+    setString(parameter.indexIn(this), value);
+  }
+
+  /**
+   * Bind a BLOB value from the given byte array to the parameter of the given handle.
+   *
+   * @param parameter handle of the target parameter
+   * @param b data to bind (not copied necessarily; do not modify until after execution)
+   * @throws IllegalArgumentException if the statement has no parameter of that name
+   * @throws SQLiteGdxException if binding fails
+   */
+  default void setBytes(ParameterHandle parameter, byte[] b) throws SQLiteGdxException {
+    setBytes(parameter.indexIn(this), b);
+  }
 }
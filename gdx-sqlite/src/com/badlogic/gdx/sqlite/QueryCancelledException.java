@@ -0,0 +1,35 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Thrown when a query is stopped before it finished, either because its deadline passed or because
+ * its {@link CancellationToken} was cancelled. The cursor passed to the query holds no valid result
+ * afterwards.
+ */
+public class QueryCancelledException extends SQLiteGdxException {
+  private static final long serialVersionUID = 4418223096351172840L;
+
+  private final boolean timedOut;
+
+  /**
+   * @param message description of the stopped query
+   * @param timedOut {@code true} if the deadline passed, {@code false} if the token was cancelled
+   * @param cause the driver's interrupt error, may be {@code null}
+   */
+  public QueryCancelledException(String message, boolean timedOut, Throwable cause) {
+    super(message, cause);
+    this.timedOut = timedOut;
+  }
+
+  /**
+   * @return {@code true} if the query ran past its deadline, {@code false} if it was cancelled
+   *     through its token
+   */
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  @Override
+  public int getExtendedResultCode() {
+    return SQLiteResultCodes.SQLITE_INTERRUPT;
+  }
+}
@@ -0,0 +1,148 @@
+package com.badlogic.gdx.sqlite;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs statements and transactions on a database and attempts them again according to a {@link
+ * RetryPolicy} when they fail because of lock contention. A transaction is always retried as a
+ * whole: the failed attempt is rolled back by {@link Database#endTransaction()} before the task
+ * runs again, so the task must not have side effects outside the database that it cannot repeat.
+ *
+ * <p>Retrying helps where SQLite's own busy timeout (see {@link Database#setBusyTimeout(int)})
+ * cannot: a transaction that started reading and then tries to write fails with {@code
+ * SQLITE_BUSY} right away if another connection wrote in the meantime, without waiting.
+ *
+ * <pre>
+ * Retrier retrier = new Retrier(db, RetryPolicy.exponentialBackoff(5, 200, 2000));
+ * retrier.runInTransaction(database -&gt; {
+ *   database.execSQL("UPDATE player SET gold = gold - 100 WHERE id = 1");
+ *   database.execSQL("INSERT INTO item (owner, kind) VALUES (1, 'sword')");
+ *   return null;
+ * });
+ * </pre>
+ *
+ * <p>Thread-safety: Safe to share between threads if the database is.
+ */
+public final class Retrier {
+
+  private final Database database;
+  private final RetryPolicy policy;
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong giveUps = new AtomicLong();
+  private final AtomicLong contentionNanos = new AtomicLong();
+
+  /**
+   * @param database database to run the tasks on
+   * @param policy decides which failures are retried and how long to wait before
+   */
+  public Retrier(Database database, RetryPolicy policy) {
+    if (database == null || policy == null) {
+      throw new IllegalArgumentException("database and policy are required");
+    }
+    this.database = database;
+    this.policy = policy;
+  }
+
+  /**
+   * Runs the task, attempting it again while the policy allows. Use it for single statements; use
+   * {@link #runInTransaction(AsyncDatabase.Task)} for work that has to be atomic.
+   *
+   * @return the result of the successful attempt
+   * @throws SQLiteGdxException the failure of the last attempt if the policy gave up
+   */
+  public <T> T run(AsyncDatabase.Task<T> task) throws SQLiteGdxException {
+    return attempt(task, false);
+  }
+
+  /**
+   * Runs the task in a transaction, attempting the whole transaction again while the policy
+   * allows. The transaction is committed if the task returns normally.
+   *
+   * @return the result of the successful attempt
+   * @throws SQLiteGdxException the failure of the last attempt if the policy gave up
+   */
+  public <T> T runInTransaction(AsyncDatabase.Task<T> task) throws SQLiteGdxException {
+    return attempt(task, true);
+  }
+
+  /** Runs {@link Database#execSQL(String)} with retries. */
+  public void execSQL(final String sql) throws SQLiteGdxException {
+    run(
+        database -> {
+          database.execSQL(sql);
+          return null;
+        });
+  }
+
+  /**
+   * @return number of attempts that were repeated
+   */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  /**
+   * @return number of operations that still failed when the policy gave up
+   */
+  public long getGiveUps() {
+    return giveUps.get();
+  }
+
+  /**
+   * @return time, in nanoseconds, lost to contention: attempts that failed with a lock error, the
+   *     time SQLite spent waiting for the lock during them and the delays between attempts
+   */
+  public long getContentionNanos() {
+    return contentionNanos.get();
+  }
+
+  private <T> T attempt(AsyncDatabase.Task<T> task, boolean transaction)
+      throws SQLiteGdxException {
+    long start = System.nanoTime();
+    for (int attempt = 1; ; attempt++) {
+      long attemptStart = System.nanoTime();
+      try {
+        return transaction ? inTransaction(task) : task.run(database);
+      } catch (SQLiteGdxException e) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long delay = policy.delayMillis(attempt, elapsedMillis, e);
+        if (delay < 0) {
+          if (e.isBusy()) {
+            contentionNanos.addAndGet(System.nanoTime() - attemptStart);
+            giveUps.incrementAndGet();
+          }
+          throw e;
+        }
+        sleep(delay, e);
+        retries.incrementAndGet();
+        contentionNanos.addAndGet(System.nanoTime() - attemptStart);
+      }
+    }
+  }
+
+  private <T> T inTransaction(AsyncDatabase.Task<T> task) throws SQLiteGdxException {
+    database.beginTransaction();
+    try {
+      T result = task.run(database);
+      database.setTransactionSuccessful();
+      return result;
+    } finally {
+      database.endTransaction();
+    }
+  }
+
+  private static void sleep(long millis, SQLiteGdxException failure) throws SQLiteGdxException {
+    if (millis == 0) {
+      return;
+    }
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.addSuppressed(e);
+      throw failure;
+    }
+  }
+}
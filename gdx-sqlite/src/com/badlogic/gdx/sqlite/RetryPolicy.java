@@ -0,0 +1,62 @@
+package com.badlogic.gdx.sqlite;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed database operation is attempted again. Used by {@link
+ * Retrier}, which reruns statements and whole transactions that failed with {@link
+ * SQLiteResultCodes#SQLITE_BUSY} or {@link SQLiteResultCodes#SQLITE_LOCKED} because another
+ * connection held a lock.
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+
+  /** Never retries. */
+  RetryPolicy NONE = (attempt, elapsedMillis, error) -> -1;
+
+  /**
+   * @param attempt number of attempts that failed so far, starting at 1
+   * @param elapsedMillis time since the first attempt started
+   * @param error failure of the last attempt
+   * @return milliseconds to wait before the next attempt, or a negative value to give up and
+   *     rethrow {@code error}
+   */
+  long delayMillis(int attempt, long elapsedMillis, SQLiteGdxException error);
+
+  /**
+   * Retries lock contention errors with exponentially growing, jittered delays until a deadline.
+   * The delay before attempt {@code n + 1} is drawn between half and all of {@code
+   * min(maxDelayMillis, initialDelayMillis * 2^(n - 1))}, so competing writers that failed together
+   * do not retry in lockstep. Other errors are not retried.
+   *
+   * @param initialDelayMillis delay cap after the first failure
+   * @param maxDelayMillis upper bound of any single delay
+   * @param deadlineMillis time after the first attempt after which no further attempt starts
+   * @return the policy
+   */
+  static RetryPolicy exponentialBackoff(
+      final long initialDelayMillis, final long maxDelayMillis, final long deadlineMillis) {
+    if (initialDelayMillis < 1 || maxDelayMillis < initialDelayMillis || deadlineMillis < 0) {
+      throw new IllegalArgumentException(
+          "Invalid backoff: initialDelayMillis="
+              + initialDelayMillis
+              + " maxDelayMillis="
+              + maxDelayMillis
+              + " deadlineMillis="
+              + deadlineMillis);
+    }
+    return (attempt, elapsedMillis, error) -> {
+      if (!error.isBusy()) {
+        return -1;
+      }
+      long grown = initialDelayMillis << Math.min(attempt - 1, 20);
+      long cap = grown <= 0 || grown > maxDelayMillis ? maxDelayMillis : grown;
+      long delay = cap / 2 + ThreadLocalRandom.current().nextLong(cap - cap / 2 + 1);
+      long remaining = deadlineMillis - elapsedMillis;
+      if (remaining <= 0) {
+        return -1;
+      }
+      return Math.min(delay, remaining);
+    };
+  }
+}
@@ -0,0 +1,34 @@
+package com.badlogic.gdx.sqlite;
+
+/**
+ * Copies the current row of a cursor into an existing object. Used with {@link PooledRowReader} to
+ * fill pooled objects, so mapping a result allocates nothing per row.
+ *
+ * <p>Keep column bindings in {@link ColumnHandle} fields. A handle resolves its column index once
+ * per query shape and reuses it for every following row and query with the same columns:
+ *
+ * <pre>
+ * class MonsterMapper implements RowMapper&lt;Monster&gt; {
+ *   private final ColumnHandle id = new ColumnHandle("id");
+ *   private final ColumnHandle health = new ColumnHandle("health");
+ *
+ *   public void map(DatabaseCursor cursor, Monster monster) {
+ *     monster.id = cursor.getLong(id);
+ *     monster.health = cursor.getFloat(health);
+ *   }
+ * }
+ * </pre>
+ *
+ * @param <T> type of the mapped objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+  /**
+   * Copies the current row into {@code target}.
+   *
+   * @param cursor cursor positioned on the row to map
+   * @param target object to fill; may hold values of a previously mapped row
+   */
+  void map(DatabaseCursor cursor, T target);
+}
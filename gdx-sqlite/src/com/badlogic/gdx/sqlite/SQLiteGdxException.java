@@ -19,4 +19,28 @@ public class SQLiteGdxException extends Exception {
   public SQLiteGdxException(String message, Throwable t) {
     super(message, t);
   }
+
+  /**
+   * @return the primary SQLite result code of the failure (one of the {@link SQLiteResultCodes}
+   *     constants), or {@link SQLiteResultCodes#UNKNOWN} if the backend did not report one
+   */
+  public int getResultCode() {
+    return SQLiteResultCodes.primary(getExtendedResultCode());
+  }
+
+  /**
+   * @return the extended SQLite result code of the failure if the backend reports one, otherwise
+   *     the primary code or {@link SQLiteResultCodes#UNKNOWN}
+   */
+  public int getExtendedResultCode() {
+    return SQLiteResultCodes.of(getCause());
+  }
+
+  /**
+   * @return whether the failure was caused by lock contention and the operation may succeed when
+   *     retried
+   */
+  public boolean isBusy() {
+    return SQLiteResultCodes.isBusy(getExtendedResultCode());
+  }
 }
@@ -3,8 +3,9 @@ package com.badlogic.gdx.sqlite;
 /**
  * SQLite native result/return codes exposed for convenience when inspecting error conditions.
  * Values are sourced from the <a href="https://www.sqlite.org/c3ref/c_abort.html">official SQLite C
- * API documentation</a>. Only the most common primary result codes are included here (extended
- * result codes are not currently exposed).
+ * API documentation</a>. Only the most common primary result codes are included here; extended
+ * result codes, as reported by {@link SQLiteGdxException#getExtendedResultCode()}, carry the
+ * primary code in their lowest 8 bits (see {@link #primary(int)}).
  *
  * <p>author M Rafay Aleem
  */
@@ -43,4 +44,86 @@ public final class SQLiteResultCodes {
   public static final int SQLITE_NOTADB = 26; /* File opened that is not a database file */
   public static final int SQLITE_ROW = 100; /* sqlite3_step() has another row ready */
   public static final int SQLITE_DONE = 101; /* sqlite3_step() has finished executing */
+
+  /** Reported for errors that do not carry an SQLite result code. Not an SQLite value. */
+  public static final int UNKNOWN = -1;
+
+  /**
+   * @param code primary or extended result code
+   * @return the primary result code, or {@link #UNKNOWN}
+   */
+  public static int primary(int code) {
+    return code < 0 ? UNKNOWN : code & 0xff;
+  }
+
+  /**
+   * @param code primary or extended result code
+   * @return whether the code reports lock contention ({@link #SQLITE_BUSY} or {@link
+   *     #SQLITE_LOCKED}), after which the same operation may succeed when retried
+   */
+  public static boolean isBusy(int code) {
+    int primary = primary(code);
+    return primary == SQLITE_BUSY || primary == SQLITE_LOCKED;
+  }
+
+  /**
+   * Finds the SQLite result code of an error by walking its causes. JDBC drivers report the code
+   * through {@link java.sql.SQLException#getErrorCode()}. The desktop driver (sqlite-jdbc) only
+   * reports the primary code there; its extended code is read from the driver's own exception. The
+   * Android exceptions for lock, constraint and storage errors are recognized by their type and
+   * only give the primary code.
+   *
+   * @param error error thrown by a backend
+   * @return the extended result code if known, otherwise the primary one, or {@link #UNKNOWN}
+   */
+  public static int of(Throwable error) {
+    for (Throwable t = error; t != null; t = t.getCause()) {
+      if (t instanceof java.sql.SQLException) {
+        int code = ((java.sql.SQLException) t).getErrorCode();
+        int extended = driverResultCode(t);
+        if (extended > 0 && (code <= 0 || primary(extended) == code)) {
+          return extended;
+        }
+        if (code > 0) {
+          return code;
+        }
+      }
+      switch (t.getClass().getName()) {
+        case "android.database.sqlite.SQLiteDatabaseLockedException":
+          return SQLITE_BUSY;
+        case "android.database.sqlite.SQLiteTableLockedException":
+          return SQLITE_LOCKED;
+        case "android.database.sqlite.SQLiteConstraintException":
+          return SQLITE_CONSTRAINT;
+        case "android.database.sqlite.SQLiteFullException":
+          return SQLITE_FULL;
+        case "android.database.sqlite.SQLiteReadOnlyDatabaseException":
+          return SQLITE_READONLY;
+        case "android.database.sqlite.SQLiteDatabaseCorruptException":
+          return SQLITE_CORRUPT;
+        default:
+          break;
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Reads {@code org.sqlite.SQLiteException.getResultCode().code} reflectively, so that the core
+   * does not depend on the desktop driver.
+   */
+  private static int driverResultCode(Throwable error) {
+    if (!error.getClass().getName().equals("org.sqlite.SQLiteException")) {
+      return UNKNOWN;
+    }
+    try {
+      Object resultCode = error.getClass().getMethod("getResultCode").invoke(error);
+      if (resultCode == null) {
+        return UNKNOWN;
+      }
+      return resultCode.getClass().getField("code").getInt(resultCode);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return UNKNOWN;
+    }
+  }
 }
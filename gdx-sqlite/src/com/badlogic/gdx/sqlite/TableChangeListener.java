@@ -0,0 +1,32 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Receives the tables written by each committed transaction, see {@link
+ * Database#addTableChangeListener(TableChangeListener)}.
+ *
+ * <p>The listener is called on the thread that committed, once the commit is visible to every
+ * connection of the database. It must return quickly and must not use the database; record the
+ * change and act on it later, as {@link LiveQueries} does.
+ */
+@FunctionalInterface
+public interface TableChangeListener {
+
+  /**
+   * @param tables lower case names of the tables written by the transaction. Empty if the backend
+   *     could not tell which tables changed, e.g. after a schema change; treat that as a change to
+   *     every table. The set is not reused and may be kept.
+   */
+  void tablesChanged(ObjectSet<String> tables);
+
+  /**
+   * Called for every row as it is written, before its transaction commits, by backends that see
+   * single rows (the desktop backend); others only call {@link #tablesChanged(ObjectSet)}. Rows
+   * written by transactions that later roll back are reported as well.
+   *
+   * @param table lower case name of the table
+   * @param rowid rowid of the inserted, updated or deleted row
+   */
+  default void rowWritten(String table, long rowid) {}
+}
@@ -0,0 +1,388 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.ObjectSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the tables written by the current transaction and reports them to the {@link
+ * TableChangeListener}s once it commits. Used by the backends to implement {@link
+ * Database#addTableChangeListener(TableChangeListener)}.
+ *
+ * <p>Backends with SQLite's update and commit hooks report every written row with {@link
+ * #written(String, long)} and the end of the transaction with {@link #committed(boolean)} or {@link
+ * #rolledBack()}. The commit hook runs before the commit is visible to other connections, so a
+ * commit is only reported by {@link #settle(ObjectSet)}, called on the same thread once the
+ * statement that committed has returned. Backends without hooks report the statements run through
+ * the {@link Database} API instead: {@link #executed(String)} for every statement and {@link
+ * #begin()}, {@link #setSuccessful()} and {@link #end()} for the transaction methods. Statements
+ * outside a transaction commit right away. Their written table is read from the SQL text;
+ * statements it cannot be read from, such as schema changes, are reported as a change to every
+ * table.
+ *
+ * <p>Thread-safety: The methods of this class may be called from any thread. Listeners are called
+ * outside the tracker's lock.
+ */
+public final class TableChangeTracker {
+
+  private final CopyOnWriteArrayList<TableChangeListener> listeners =
+      new CopyOnWriteArrayList<>();
+
+  private ObjectSet<String> pending = new ObjectSet<>();
+  // a write whose tables are not known, reported as a change to every table
+  private boolean unknownWrite = false;
+  private int depth = 0;
+  private boolean successful = false;
+  private boolean failed = false;
+  // Tables of committed transactions not reported yet, by the thread that committed them.
+  private final HashMap<Thread, ObjectSet<String>> settling = new HashMap<>();
+
+  /**
+   * @param listener listener to add; adding it twice has no effect
+   */
+  public void addListener(TableChangeListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("listener is null");
+    }
+    listeners.addIfAbsent(listener);
+  }
+
+  public void removeListener(TableChangeListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @return whether a listener is registered; backends only need to track writes while it is
+   */
+  public boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Records a row written by the open transaction and reports it to the listeners right away.
+   *
+   * @param table name of the table
+   * @param rowid rowid of the row
+   */
+  public void written(String table, long rowid) {
+    String name = table.toLowerCase(Locale.ROOT);
+    for (TableChangeListener listener : listeners) {
+      try {
+        listener.rowWritten(name, rowid);
+      } catch (RuntimeException e) {
+        if (Gdx.app != null) {
+          Gdx.app.log(DatabaseFactory.ERROR_TAG, "A table change listener failed", e);
+        }
+      }
+    }
+    written(name);
+  }
+
+  /**
+   * Records a write to a table by the open transaction.
+   *
+   * @param table name of the table, or {@code null} if it is not known
+   */
+  public synchronized void written(String table) {
+    if (table == null) {
+      unknownWrite = true;
+    } else {
+      pending.add(table.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * Records the tables written by the transaction that just committed on the current thread. They
+   * are reported by the next call to {@link #settle(ObjectSet)} on this thread.
+   *
+   * @param wrote whether the transaction is known to have written, so that it is reported as a
+   *     change to every table if no table was recorded
+   */
+  public synchronized void committed(boolean wrote) {
+    if (wrote && pending.size == 0) {
+      unknownWrite = true;
+    }
+    ObjectSet<String> changed = take();
+    if (changed == null) {
+      return;
+    }
+    Thread thread = Thread.currentThread();
+    ObjectSet<String> staged = settling.get(thread);
+    if (staged == null) {
+      settling.put(thread, changed);
+    } else if (changed.size == 0) {
+      staged.clear();
+    } else if (staged.size > 0) {
+      staged.addAll(changed);
+    }
+  }
+
+  /**
+   * @return whether a transaction committed on the current thread has not been reported yet
+   */
+  public synchronized boolean isSettling() {
+    return settling.containsKey(Thread.currentThread());
+  }
+
+  /**
+   * Reports the tables written by the transactions committed on the current thread. Called once
+   * the statement that committed has returned, when every connection sees the commit.
+   *
+   * @param unreported tables whose writes the update hook does not report ({@code WITHOUT ROWID}
+   *     tables), added to every reported commit since any of them may have been written; {@code
+   *     null} if they are not known, which reports a change to every table
+   */
+  public void settle(ObjectSet<String> unreported) {
+    ObjectSet<String> changed;
+    synchronized (this) {
+      changed = settling.remove(Thread.currentThread());
+    }
+    if (changed == null) {
+      return;
+    }
+    if (changed.size > 0) {
+      if (unreported == null) {
+        changed.clear();
+      } else {
+        changed.addAll(unreported);
+      }
+    }
+    report(changed);
+  }
+
+  /** Forgets the tables written by the transaction that just rolled back. */
+  public synchronized void rolledBack() {
+    pending.clear();
+    unknownWrite = false;
+  }
+
+  /** Called by {@link Database#beginTransaction()}; transactions may nest. */
+  public synchronized void begin() {
+    if (depth == 0) {
+      failed = false;
+    }
+    depth++;
+    successful = false;
+  }
+
+  /** Called by {@link Database#setTransactionSuccessful()}. */
+  public synchronized void setSuccessful() {
+    successful = true;
+  }
+
+  /**
+   * Called by {@link Database#endTransaction()}. The outermost transaction commits unless it or a
+   * nested one was not marked successful.
+   */
+  public void end() {
+    ObjectSet<String> changed = null;
+    synchronized (this) {
+      if (depth == 0) {
+        return;
+      }
+      failed |= !successful;
+      successful = false;
+      if (--depth == 0) {
+        if (failed) {
+          rolledBack();
+        } else {
+          changed = take();
+        }
+      }
+    }
+    report(changed);
+  }
+
+  /**
+   * Records a statement that ran successfully through {@link Database#execSQL(String)}. Statements
+   * that control transactions ({@code BEGIN}, {@code COMMIT}, {@code ROLLBACK}) are followed, and
+   * a write outside a transaction is reported right away.
+   *
+   * @param sql the statement
+   */
+  public void executed(String sql) {
+    ObjectSet<String> changed = null;
+    synchronized (this) {
+      int start = skipSpace(sql, 0);
+      int end = wordEnd(sql, start);
+      String verb = sql.substring(start, end).toUpperCase(Locale.ROOT);
+      switch (verb) {
+        case "BEGIN":
+        case "SAVEPOINT":
+          depth++;
+          return;
+        case "COMMIT":
+        case "END":
+        case "RELEASE":
+          if (depth > 0 && --depth > 0) {
+            return;
+          }
+          depth = 0;
+          changed = take();
+          break;
+        case "ROLLBACK":
+          if (word(sql, skipSpace(sql, end)).equals("TO")) {
+            return; // rolls back to a savepoint; its writes stay reported
+          }
+          depth = 0;
+          rolledBack();
+          return;
+        case "SELECT":
+        case "EXPLAIN":
+        case "PRAGMA":
+        case "VALUES":
+        case "ANALYZE":
+        case "ATTACH":
+        case "DETACH":
+        case "VACUUM":
+        case "REINDEX":
+          return;
+        default:
+          String table = hasSecondStatement(sql, end) ? null : targetTable(verb, sql, end);
+          written(table);
+          if (depth > 0) {
+            return;
+          }
+          changed = take();
+      }
+    }
+    report(changed);
+  }
+
+  private ObjectSet<String> take() {
+    if (pending.size == 0 && !unknownWrite) {
+      return null;
+    }
+    ObjectSet<String> changed = pending;
+    if (unknownWrite) {
+      changed.clear();
+    }
+    pending = new ObjectSet<>();
+    unknownWrite = false;
+    return changed;
+  }
+
+  private void report(ObjectSet<String> changed) {
+    if (changed == null) {
+      return;
+    }
+    for (TableChangeListener listener : listeners) {
+      try {
+        listener.tablesChanged(changed);
+      } catch (RuntimeException e) {
+        if (Gdx.app != null) {
+          Gdx.app.log(DatabaseFactory.ERROR_TAG, "A table change listener failed", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the table written by an {@code INSERT}, {@code REPLACE}, {@code UPDATE} or {@code
+   *     DELETE}, or {@code null} for any other statement
+   */
+  private static String targetTable(String verb, String sql, int pos) {
+    switch (verb) {
+      case "INSERT":
+      case "REPLACE":
+        pos = skipPast(sql, pos, "INTO");
+        break;
+      case "DELETE":
+        pos = skipPast(sql, pos, "FROM");
+        break;
+      case "UPDATE":
+        pos = skipSpace(sql, pos);
+        if (word(sql, pos).equals("OR")) {
+          // UPDATE OR <conflict resolution> table
+          pos = skipSpace(sql, wordEnd(sql, skipSpace(sql, wordEnd(sql, pos))));
+        }
+        break;
+      default:
+        return null;
+    }
+    if (pos < 0) {
+      return null;
+    }
+    String name = null;
+    while (true) {
+      pos = skipSpace(sql, pos);
+      if (pos >= sql.length()) {
+        return name;
+      }
+      int end;
+      char c = sql.charAt(pos);
+      if (c == '"' || c == '`' || c == '[') {
+        char close = c == '[' ? ']' : c;
+        StringBuilder quoted = new StringBuilder();
+        end = pos + 1;
+        while (true) {
+          int next = sql.indexOf(close, end);
+          if (next < 0) {
+            return null;
+          }
+          quoted.append(sql, end, next);
+          end = next + 1;
+          if (close == ']' || end >= sql.length() || sql.charAt(end) != close) {
+            break;
+          }
+          quoted.append(close); // a doubled quote stands for itself
+          end++;
+        }
+        name = quoted.toString();
+      } else {
+        end = wordEnd(sql, pos);
+        if (end == pos) {
+          return name;
+        }
+        name = sql.substring(pos, end);
+      }
+      pos = skipSpace(sql, end);
+      if (pos >= sql.length() || sql.charAt(pos) != '.') {
+        return name; // the part after the last dot, without the schema
+      }
+      pos++;
+    }
+  }
+
+  /** @return position after the keyword following {@code pos}, searched word by word */
+  private static int skipPast(String sql, int pos, String keyword) {
+    for (int i = 0; i < 4; i++) {
+      pos = skipSpace(sql, pos);
+      int end = wordEnd(sql, pos);
+      if (end == pos) {
+        return -1;
+      }
+      if (sql.substring(pos, end).equalsIgnoreCase(keyword)) {
+        return end;
+      }
+      pos = end;
+    }
+    return -1;
+  }
+
+  private static boolean hasSecondStatement(String sql, int pos) {
+    int semicolon = sql.indexOf(';', pos);
+    return semicolon >= 0 && skipSpace(sql, semicolon + 1) < sql.length();
+  }
+
+  private static String word(String sql, int pos) {
+    return sql.substring(pos, wordEnd(sql, pos)).toUpperCase(Locale.ROOT);
+  }
+
+  private static int skipSpace(String sql, int pos) {
+    while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private static int wordEnd(String sql, int pos) {
+    while (pos < sql.length()
+        && (Character.isLetterOrDigit(sql.charAt(pos)) || sql.charAt(pos) == '_')) {
+      pos++;
+    }
+    return pos;
+  }
+}
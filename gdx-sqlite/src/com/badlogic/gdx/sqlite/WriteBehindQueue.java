@@ -0,0 +1,487 @@
+package com.badlogic.gdx.sqlite;
+
+import com.badlogic.gdx.Gdx;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Queues small writes from any thread and commits them in groups on a background thread. Without
+ * an explicit transaction every statement is its own transaction with its own disk sync; grouping
+ * the writes of up to {@link #DEFAULT_MAX_DELAY_MILLIS} milliseconds or {@link
+ * #DEFAULT_MAX_BATCH_SIZE} operations into one transaction pays that cost once per group.
+ *
+ * <pre>
+ * WriteBehindQueue events = new WriteBehindQueue(db);
+ * events.enqueue("INSERT INTO event (kind, time) VALUES (?, ?)", kind, TimeUtils.millis());
+ * ...
+ * db.closeDatabase(); // commits everything still queued, then closes the database
+ * </pre>
+ *
+ * <p>The queue is bounded. {@link #enqueue(String, Object...)} waits while it is full, which slows
+ * producers down to the rate the database can sustain; {@link #tryEnqueue(String, Object...)}
+ * returns {@code false} instead. Queued writes are not durable until their group is committed:
+ * call {@link #flush()} to wait for that. The queue registers a {@link DatabaseCloseListener}, so
+ * closing the database commits everything still queued and closes the queue first; with a backend
+ * that does not report closing, close the database through {@link #closeDatabase()} instead so
+ * that nothing queued is lost.
+ *
+ * <p>A write that fails is logged and skipped; the rest of its group is still committed. A group
+ * whose transaction fails is logged and counted as failed, and the queue goes on with the next
+ * one.
+ *
+ * <p>The background thread uses the database while other threads may use it too, so wrap a
+ * database that is safe for that, such as a desktop database with {@link
+ * Database#enableWriteAheadLogging(int)}, or use the database only through this queue.
+ *
+ * <p>Thread-safety: The methods of this class may be called from any thread.
+ */
+public final class WriteBehindQueue {
+
+  public static final int DEFAULT_CAPACITY = 10000;
+  public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+  public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+
+  /** A write applied by the background thread inside the group transaction. */
+  @FunctionalInterface
+  public interface Write {
+
+    /**
+     * @param database the database the queue writes to
+     * @throws SQLiteGdxException if the write fails; it is logged and skipped
+     */
+    void write(Database database) throws SQLiteGdxException;
+  }
+
+  private static final class Entry {
+    final String sql;
+    final Object[] args;
+    final Write write;
+    final CountDownLatch flushed;
+
+    Entry(String sql, Object[] args, Write write, CountDownLatch flushed) {
+      this.sql = sql;
+      this.args = args;
+      this.write = write;
+      this.flushed = flushed;
+    }
+  }
+
+  private final Database database;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final ArrayBlockingQueue<Entry> queue;
+  private final Thread thread;
+  private volatile boolean closed = false;
+  // held shared while an entry is queued and exclusively to close, so nothing is queued after the
+  // background thread has seen the queue closed
+  private final ReentrantReadWriteLock closing = new ReentrantReadWriteLock();
+  private final DatabaseCloseListener closeListener = closingDatabase -> close();
+  private final boolean listening;
+
+  // Statements prepared for the current group, closed when it is committed.
+  private final HashMap<String, PreparedStatement> statements = new HashMap<>();
+
+  private final AtomicLong enqueued = new AtomicLong();
+  private final AtomicLong blockedEnqueues = new AtomicLong();
+  private final AtomicLong committed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong groups = new AtomicLong();
+
+  /** Creates a queue with the default capacity, group size and delay. */
+  public WriteBehindQueue(Database database) {
+    this(database, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+  }
+
+  /**
+   * @param database open database to write to
+   * @param capacity number of writes that can be queued before producers have to wait
+   * @param maxBatchSize maximum number of writes committed in one transaction
+   * @param maxDelayMillis maximum time a group waits for more writes after its first one
+   */
+  public WriteBehindQueue(Database database, int capacity, int maxBatchSize, long maxDelayMillis) {
+    if (database == null) {
+      throw new IllegalArgumentException("database is null");
+    }
+    if (capacity < 1 || maxBatchSize < 1 || maxDelayMillis < 0) {
+      throw new IllegalArgumentException(
+          "Invalid queue settings: capacity="
+              + capacity
+              + " maxBatchSize="
+              + maxBatchSize
+              + " maxDelayMillis="
+              + maxDelayMillis);
+    }
+    this.database = database;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.thread = new Thread(this::drain, "gdx-sqlite-write-behind");
+    thread.setDaemon(true);
+    thread.start();
+    this.listening = listenForClose(database, closeListener);
+  }
+
+  private static boolean listenForClose(Database database, DatabaseCloseListener listener) {
+    try {
+      database.addCloseListener(listener);
+      return true;
+    } catch (UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Queues a statement with its parameters, waiting while the queue is full. Parameters may be
+   * {@code null}, numbers, booleans, strings or byte arrays.
+   *
+   * @param sql statement to execute, prepared once per group
+   * @param args values for the {@code ?} placeholders, in order
+   * @throws IllegalArgumentException if a parameter has an unsupported type
+   * @throws IllegalStateException if the queue is closed
+   * @throws SQLiteGdxRuntimeException if the thread is interrupted while waiting
+   */
+  public void enqueue(String sql, Object... args) {
+    put(new Entry(sql, checkArgs(args), null, null));
+  }
+
+  /**
+   * Queues a custom write, waiting while the queue is full.
+   *
+   * @throws IllegalStateException if the queue is closed
+   * @throws SQLiteGdxRuntimeException if the thread is interrupted while waiting
+   */
+  public void enqueue(Write write) {
+    put(new Entry(null, null, write, null));
+  }
+
+  /**
+   * Queues a statement with its parameters unless the queue is full.
+   *
+   * @return {@code false} if the queue is full and the write was dropped
+   * @throws IllegalStateException if the queue is closed
+   */
+  public boolean tryEnqueue(String sql, Object... args) {
+    return offer(new Entry(sql, checkArgs(args), null, null));
+  }
+
+  /**
+   * Queues a custom write unless the queue is full.
+   *
+   * @return {@code false} if the queue is full and the write was dropped
+   * @throws IllegalStateException if the queue is closed
+   */
+  public boolean tryEnqueue(Write write) {
+    return offer(new Entry(null, null, write, null));
+  }
+
+  /**
+   * Commits every write queued before this call and waits until that is done.
+   *
+   * @throws SQLiteGdxRuntimeException if the thread is interrupted while waiting
+   */
+  public void flush() {
+    CountDownLatch flushed = new CountDownLatch(1);
+    put(new Entry(null, null, null, flushed));
+    await(flushed);
+  }
+
+  /**
+   * Commits every queued write and stops the background thread. Later writes are rejected. The
+   * database stays open. Called by {@link Database#closeDatabase()} as well.
+   */
+  public void close() {
+    if (closed) {
+      return;
+    }
+    flush();
+    closing.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    } finally {
+      closing.writeLock().unlock();
+    }
+    if (listening) {
+      database.removeCloseListener(closeListener);
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLiteGdxRuntimeException("Interrupted while stopping the write-behind queue", e);
+    }
+  }
+
+  /**
+   * Commits every queued write, stops the background thread and closes the database.
+   *
+   * @throws SQLiteGdxException if closing the database fails
+   */
+  public void closeDatabase() throws SQLiteGdxException {
+    close();
+    database.closeDatabase();
+  }
+
+  /**
+   * @return number of writes accepted so far
+   */
+  public long getEnqueued() {
+    return enqueued.get();
+  }
+
+  /**
+   * @return number of {@link #enqueue} calls that had to wait for space in the queue
+   */
+  public long getBlockedEnqueues() {
+    return blockedEnqueues.get();
+  }
+
+  /**
+   * @return number of writes committed
+   */
+  public long getCommitted() {
+    return committed.get();
+  }
+
+  /**
+   * @return number of writes that failed or were lost with a failed commit
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * @return number of transactions committed
+   */
+  public long getGroups() {
+    return groups.get();
+  }
+
+  /**
+   * @return number of writes waiting to be committed
+   */
+  public int getPending() {
+    return queue.size();
+  }
+
+  private void put(Entry entry) {
+    closing.readLock().lock();
+    try {
+      checkOpen();
+      if (entry.flushed == null) {
+        enqueued.incrementAndGet();
+      }
+      if (queue.offer(entry)) {
+        return;
+      }
+      blockedEnqueues.incrementAndGet();
+      // the background thread keeps draining, so close() only waits until there is space
+      queue.put(entry);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLiteGdxRuntimeException("Interrupted while waiting for space in the queue", e);
+    } finally {
+      closing.readLock().unlock();
+    }
+  }
+
+  private boolean offer(Entry entry) {
+    closing.readLock().lock();
+    try {
+      checkOpen();
+      if (queue.offer(entry)) {
+        enqueued.incrementAndGet();
+        return true;
+      }
+      return false;
+    } finally {
+      closing.readLock().unlock();
+    }
+  }
+
+  private void checkOpen() {
+    if (closed) {
+      throw new IllegalStateException("The write-behind queue is closed");
+    }
+  }
+
+  private void drain() {
+    while (!closed || !queue.isEmpty()) {
+      Entry first;
+      try {
+        first = queue.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        continue;
+      }
+      if (first == null) {
+        continue;
+      }
+      if (first.flushed != null) {
+        // nothing queued before the flush
+        first.flushed.countDown();
+        continue;
+      }
+      commitGroup(first);
+    }
+  }
+
+  /** Applies the given write and every following one that arrives in time in one transaction. */
+  private void commitGroup(Entry first) {
+    int applied = 0;
+    int count = 0;
+    Entry flush = null;
+    boolean open = false;
+    try {
+      database.beginTransaction();
+      open = true;
+      long deadline = System.nanoTime() + maxDelayNanos;
+      Entry entry = first;
+      while (entry != null) {
+        if (entry.flushed != null) {
+          flush = entry;
+          break;
+        }
+        count++;
+        if (apply(entry)) {
+          applied++;
+        }
+        if (count == maxBatchSize) {
+          break;
+        }
+        entry = next(deadline);
+      }
+      database.setTransactionSuccessful();
+      committed.addAndGet(applied);
+      groups.incrementAndGet();
+    } catch (SQLiteGdxException | RuntimeException e) {
+      // without a transaction the first write is lost as well
+      failed.addAndGet(open ? applied : 1);
+      log("Committing a group of " + count + " queued writes failed", e);
+    } finally {
+      try {
+        closeStatements();
+        if (open) {
+          try {
+            database.endTransaction();
+          } catch (SQLiteGdxException | RuntimeException e) {
+            log("Ending the write-behind transaction failed", e);
+          }
+        }
+      } finally {
+        // a flush waiting for this group is released even if ending it failed
+        if (flush != null) {
+          flush.flushed.countDown();
+        }
+      }
+    }
+  }
+
+  /** Returns the next queued entry, waiting until the deadline at most; null ends the group. */
+  private Entry next(long deadline) {
+    long remaining = deadline - System.nanoTime();
+    if (remaining <= 0) {
+      return queue.poll();
+    }
+    try {
+      return queue.poll(remaining, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      return null;
+    }
+  }
+
+  private boolean apply(Entry entry) {
+    try {
+      if (entry.write != null) {
+        entry.write.write(database);
+        return true;
+      }
+      PreparedStatement statement = statements.get(entry.sql);
+      if (statement == null) {
+        statement = database.getPreparedStatement(entry.sql);
+        statements.put(entry.sql, statement);
+      } else {
+        statement.clearParameters();
+      }
+      Object[] args = entry.args;
+      for (int i = 0; i < args.length; i++) {
+        bind(statement, i + 1, args[i]);
+      }
+      statement.execute();
+      return true;
+    } catch (SQLiteGdxException | RuntimeException e) {
+      failed.incrementAndGet();
+      Object write = entry.sql != null ? entry.sql : entry.write;
+      log("A queued write failed and was skipped: " + write, e);
+      return false;
+    }
+  }
+
+  private void closeStatements() {
+    for (PreparedStatement statement : statements.values()) {
+      try {
+        statement.close();
+      } catch (SQLiteGdxException | RuntimeException e) {
+        log("Closing a write-behind statement failed", e);
+      }
+    }
+    statements.clear();
+  }
+
+  private static void bind(PreparedStatement statement, int index, Object value)
+      throws SQLiteGdxException {
+    if (value == null) {
+      statement.setNull(index, java.sql.Types.NULL);
+    } else if (value instanceof Long) {
+      statement.setLong(index, (Long) value);
+    } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      statement.setInt(index, ((Number) value).intValue());
+    } else if (value instanceof Double) {
+      statement.setDouble(index, (Double) value);
+    } else if (value instanceof Float) {
+      statement.setFloat(index, (Float) value);
+    } else if (value instanceof Boolean) {
+      statement.setInt(index, (Boolean) value ? 1 : 0);
+    } else if (value instanceof Number) {
+      statement.setDouble(index, ((Number) value).doubleValue());
+    } else if (value instanceof String) {
+      statement.setString(index, (String) value);
+    } else {
+      statement.setBytes(index, (byte[]) value);
+    }
+  }
+
+  private static Object[] checkArgs(Object[] args) {
+    for (Object value : args) {
+      if (value != null
+          && !(value instanceof Number)
+          && !(value instanceof Boolean)
+          && !(value instanceof String)
+          && !(value instanceof byte[])) {
+        throw new IllegalArgumentException(
+            "Unsupported parameter type: " + value.getClass().getName());
+      }
+    }
+    return args;
+  }
+
+  private static void log(String message, Exception e) {
+    if (Gdx.app != null) {
+      Gdx.app.log(DatabaseFactory.ERROR_TAG, message, e);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLiteGdxRuntimeException("Interrupted while flushing the write-behind queue", e);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.badlogic.gdx.sqlite;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ArrayBindingTest {
+
+  @Test
+  public void appendsLongs() {
+    long[] values = {1, -2, Long.MAX_VALUE, Long.MIN_VALUE};
+    assertEquals(
+        "[1,-2,9223372036854775807,-9223372036854775808]",
+        ArrayBinding.appendJson(new StringBuilder(), values, 0, values.length).toString());
+  }
+
+  @Test
+  public void appendsInts() {
+    int[] values = {7, 0, -3};
+    assertEquals(
+        "[7,0,-3]", ArrayBinding.appendJson(new StringBuilder(), values, 0, 3).toString());
+  }
+
+  @Test
+  public void appendsRange() {
+    long[] values = {1, 2, 3, 4};
+    assertEquals("[2,3]", ArrayBinding.appendJson(new StringBuilder(), values, 1, 2).toString());
+  }
+
+  @Test
+  public void emptyArray() {
+    assertEquals("[]", ArrayBinding.appendJson(new StringBuilder(), new int[0], 0, 0).toString());
+  }
+
+  @Test
+  public void appendsToExistingText() {
+    StringBuilder out = new StringBuilder("x=");
+    assertEquals("x=[5]", ArrayBinding.appendJson(out, new long[] {5}, 0, 1).toString());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsRangePastTheEnd() {
+    ArrayBinding.appendJson(new StringBuilder(), new long[2], 1, 2);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsNegativeOffset() {
+    ArrayBinding.appendJson(new StringBuilder(), new int[2], -1, 1);
+  }
+}
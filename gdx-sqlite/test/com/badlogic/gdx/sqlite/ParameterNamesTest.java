@@ -0,0 +1,95 @@
+package com.badlogic.gdx.sqlite;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class ParameterNamesTest {
+
+  @Test
+  public void numbersNamesInOrderOfFirstUse() {
+    ParameterNames names =
+        ParameterNames.parse("SELECT * FROM t WHERE a = :a AND b = @b OR c = $c");
+    assertEquals(1, names.indexOf(":a"));
+    assertEquals(2, names.indexOf("@b"));
+    assertEquals(3, names.indexOf("$c"));
+    assertEquals(3, names.getParameterCount());
+  }
+
+  @Test
+  public void looksUpNamesWithoutPrefix() {
+    ParameterNames names = ParameterNames.parse("UPDATE t SET x = :x WHERE id = :id");
+    assertEquals(1, names.indexOf("x"));
+    assertEquals(2, names.indexOf("id"));
+    assertEquals(-1, names.indexOf("y"));
+    assertEquals(-1, names.indexOf(""));
+  }
+
+  @Test
+  public void repeatedNameIsOneParameter() {
+    ParameterNames names = ParameterNames.parse("SELECT :v, ?, :v");
+    assertEquals(1, names.indexOf(":v"));
+    assertEquals(2, names.getParameterCount());
+  }
+
+  @Test
+  public void sameNameWithOtherPrefixIsAnotherParameter() {
+    ParameterNames names = ParameterNames.parse("SELECT :id, @id");
+    assertEquals(1, names.indexOf(":id"));
+    assertEquals(2, names.indexOf("@id"));
+    assertEquals(1, names.indexOf("id"));
+  }
+
+  @Test
+  public void namedParametersFollowTheLargestNumber() {
+    ParameterNames names = ParameterNames.parse("SELECT ?, ?5, :after, ?");
+    assertEquals(6, names.indexOf(":after"));
+    assertEquals(7, names.getParameterCount());
+  }
+
+  @Test
+  public void skipsLiteralsIdentifiersAndComments() {
+    ParameterNames names =
+        ParameterNames.parse(
+            "SELECT ':a', 'it''s ?', \"b:c\", `:d`, [?e] -- :f ?\n"
+                + "FROM t /* @g ? */ WHERE x = :x");
+    assertEquals(-1, names.indexOf("a"));
+    assertEquals(-1, names.indexOf("d"));
+    assertEquals(-1, names.indexOf("f"));
+    assertEquals(-1, names.indexOf("g"));
+    assertEquals(1, names.indexOf(":x"));
+    assertEquals(1, names.getParameterCount());
+  }
+
+  @Test
+  public void unterminatedCommentEndsTheStatement() {
+    assertEquals(0, ParameterNames.parse("SELECT 1 /* :a").getParameterCount());
+  }
+
+  @Test
+  public void noParameters() {
+    ParameterNames names = ParameterNames.parse("SELECT 1");
+    assertEquals(0, names.getParameterCount());
+    assertEquals(-1, names.indexOf(":a"));
+  }
+
+  @Test
+  public void loneColonIsNotAParameter() {
+    assertEquals(0, ParameterNames.parse("SELECT 1 : 2").getParameterCount());
+  }
+
+  @Test
+  public void numberedParameterWithLeadingZeros() {
+    assertEquals(12, ParameterNames.parse("SELECT ?012").getParameterCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNumberTooLargeForAnIndex() {
+    ParameterNames.parse("SELECT ?99999999999999999999");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsParameterZero() {
+    ParameterNames.parse("SELECT ?0");
+  }
+}
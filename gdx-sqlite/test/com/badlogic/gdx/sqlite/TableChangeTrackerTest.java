@@ -0,0 +1,167 @@
+package com.badlogic.gdx.sqlite;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.badlogic.gdx.utils.ObjectSet;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TableChangeTrackerTest {
+
+  private TableChangeTracker tracker;
+  private ObjectSet<String> reported;
+  private int reports;
+
+  @Before
+  public void setUp() {
+    tracker = new TableChangeTracker();
+    reported = null;
+    reports = 0;
+    tracker.addListener(
+        tables -> {
+          reported = new ObjectSet<>(tables);
+          reports++;
+        });
+  }
+
+  @Test
+  public void insertReportsItsTable() {
+    assertTarget("item", "INSERT INTO item (id) VALUES (1)");
+    assertTarget("item", "insert into item(id) values (1)");
+    assertTarget("item", "REPLACE INTO item VALUES (1)");
+  }
+
+  @Test
+  public void insertWithConflictClauseAndQuotedSchema() {
+    assertTarget("player", "INSERT OR REPLACE INTO schema.\"Player\" (id) VALUES (1)");
+    assertTarget("player", "INSERT OR IGNORE INTO main . [Player] VALUES (1)");
+    assertTarget("player", "INSERT INTO `Player` VALUES (1)");
+  }
+
+  @Test
+  public void quotedNameWithDoubledQuote() {
+    assertTarget("a\"b", "INSERT INTO \"a\"\"b\" VALUES (1)");
+  }
+
+  @Test
+  public void updateAndDelete() {
+    assertTarget("item", "UPDATE item SET x = 1");
+    assertTarget("item", "UPDATE OR ROLLBACK main.item SET x = 1");
+    assertTarget("item", "DELETE FROM item WHERE id = 1");
+  }
+
+  @Test
+  public void unknownStatementsChangeEveryTable() {
+    assertEveryTable("CREATE TABLE other (id)");
+    assertEveryTable("WITH n AS (SELECT 1) INSERT INTO item SELECT * FROM n");
+    assertEveryTable("INSERT INTO a VALUES (1); INSERT INTO b VALUES (2)");
+    assertEveryTable("-- comment\nINSERT INTO item VALUES (1)");
+  }
+
+  @Test
+  public void readsAreNotReported() {
+    tracker.executed("SELECT * FROM item");
+    tracker.executed("PRAGMA user_version");
+    assertEquals(0, reports);
+  }
+
+  @Test
+  public void transactionReportsOnCommit() {
+    tracker.executed("BEGIN");
+    tracker.executed("INSERT INTO a VALUES (1)");
+    tracker.executed("UPDATE b SET x = 1");
+    assertEquals(0, reports);
+    tracker.executed("COMMIT");
+    assertEquals(1, reports);
+    assertTrue(reported.contains("a"));
+    assertTrue(reported.contains("b"));
+  }
+
+  @Test
+  public void rollbackForgetsWrites() {
+    tracker.executed("BEGIN");
+    tracker.executed("INSERT INTO a VALUES (1)");
+    tracker.executed("ROLLBACK");
+    tracker.executed("COMMIT");
+    assertEquals(0, reports);
+  }
+
+  @Test
+  public void nestedApiTransactionFailsAsAWhole() {
+    tracker.begin();
+    tracker.begin();
+    tracker.executed("INSERT INTO a VALUES (1)");
+    tracker.end(); // not successful
+    tracker.setSuccessful();
+    tracker.end();
+    assertEquals(0, reports);
+  }
+
+  @Test
+  public void hookCommitWithoutRowsChangesEveryTable() {
+    tracker.committed(true);
+    tracker.settle(new ObjectSet<>());
+    assertNotNull(reported);
+    assertEquals(0, reported.size);
+  }
+
+  @Test
+  public void hookCommitIsReportedWhenItSettles() {
+    tracker.written("Item", 1);
+    tracker.committed(true);
+    assertEquals(0, reports);
+    assertTrue(tracker.isSettling());
+    tracker.settle(new ObjectSet<>());
+    assertEquals(1, reports);
+    assertTrue(reported.contains("item"));
+    assertFalse(tracker.isSettling());
+  }
+
+  @Test
+  public void hookCommitAddsTablesTheHookDoesNotReport() {
+    ObjectSet<String> withoutRowid = new ObjectSet<>();
+    withoutRowid.add("pair");
+    tracker.written("item", 1);
+    tracker.committed(true);
+    tracker.settle(withoutRowid);
+    assertEquals(2, reported.size);
+    assertTrue(reported.contains("pair"));
+
+    tracker.written("item", 2);
+    tracker.committed(true);
+    tracker.settle(null);
+    assertEquals(0, reported.size);
+  }
+
+  @Test
+  public void hookCommitsOfOtherThreadsDoNotSettle() throws InterruptedException {
+    Thread other =
+        new Thread(
+            () -> {
+              tracker.written("item", 1);
+              tracker.committed(true);
+            });
+    other.start();
+    other.join();
+    tracker.settle(new ObjectSet<>());
+    assertEquals(0, reports);
+  }
+
+  private void assertTarget(String table, String sql) {
+    reported = null;
+    tracker.executed(sql);
+    assertNotNull(sql, reported);
+    assertEquals(sql, 1, reported.size);
+    assertTrue(sql, reported.contains(table));
+  }
+
+  private void assertEveryTable(String sql) {
+    reported = null;
+    tracker.executed(sql);
+    assertNotNull(sql, reported);
+    assertEquals(sql, 0, reported.size);
+  }
+}